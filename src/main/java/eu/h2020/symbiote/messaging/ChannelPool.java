@@ -0,0 +1,323 @@
+package eu.h2020.symbiote.messaging;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
+import com.rabbitmq.client.Connection;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of channels used for publishing messages.
+ * <p>
+ * Channels are created on demand up to the size of the pool and reused by
+ * subsequent publishers, so publishing does not open and close a channel for
+ * every message. A channel is used by a single thread at a time. Channels
+ * closed by the broker are discarded and replaced.
+ * <p>
+ * If publisher confirms are enabled, publishers do not wait for the confirm
+ * of every message. Outstanding messages are tracked per channel and released
+ * when the broker confirms them, usually many at once using <code>multiple</code>
+ * flag. {@link #awaitConfirms(long)} waits until all published messages are
+ * confirmed.
+ */
+public class ChannelPool {
+
+    private static Log log = LogFactory.getLog(ChannelPool.class);
+
+    private final Connection connection;
+    private final int size;
+    private final boolean confirms;
+    private final long borrowTimeout;
+
+    private final BlockingQueue<PooledChannel> idleChannels = new LinkedBlockingQueue<>();
+    private final List<PooledChannel> channels = new CopyOnWriteArrayList<>();
+    // confirms are received on the thread of the connection, so they must not wait for creation of channels
+    private final Object confirmsLock = new Object();
+
+    private final AtomicInteger borrowed = new AtomicInteger();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong borrowWaits = new AtomicLong();
+    private final AtomicLong channelsCreated = new AtomicLong();
+    private final AtomicLong confirmed = new AtomicLong();
+    private final AtomicLong nacked = new AtomicLong();
+    private final AtomicLong confirmLatencyNanos = new AtomicLong();
+    private final AtomicLong maxConfirmLatencyNanos = new AtomicLong();
+
+    /**
+     * @param connection    connection to create channels on
+     * @param size          maximum number of channels
+     * @param confirms      whether publisher confirms are enabled on the channels
+     * @param borrowTimeout time in milliseconds to wait for a channel if all of them are in use
+     */
+    public ChannelPool(Connection connection, int size, boolean confirms, long borrowTimeout) {
+        this.connection = connection;
+        this.size = Math.max(size, 1);
+        this.confirms = confirms;
+        this.borrowTimeout = borrowTimeout;
+    }
+
+    /**
+     * Publishes the message on a channel from the pool.
+     *
+     * @param exchange   name of the exchange
+     * @param routingKey routing key of the message
+     * @param props      properties of the message
+     * @param body       content of the message
+     * @throws IOException if no channel is available in time or publishing fails
+     */
+    public void publish(String exchange, String routingKey, AMQP.BasicProperties props, byte[] body) throws IOException {
+        PooledChannel pooledChannel = borrow();
+        long sequenceNumber = pooledChannel.channel.getNextPublishSeqNo();
+        try {
+            if (confirms) {
+                pooledChannel.outstanding.put(sequenceNumber, System.nanoTime());
+            }
+            pooledChannel.channel.basicPublish(exchange, routingKey, props, body);
+            published.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            pooledChannel.outstanding.remove(sequenceNumber);
+            throw e;
+        } finally {
+            release(pooledChannel);
+        }
+    }
+
+    private PooledChannel borrow() throws IOException {
+        PooledChannel pooledChannel = idleChannels.poll();
+        if (pooledChannel == null) {
+            pooledChannel = createChannelIfPossible();
+        }
+        if (pooledChannel == null) {
+            borrowWaits.incrementAndGet();
+            try {
+                pooledChannel = idleChannels.poll(borrowTimeout, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for a channel", e);
+            }
+            if (pooledChannel == null) {
+                throw new IOException("No channel available in " + borrowTimeout + " ms, all " + size + " channels are in use");
+            }
+        }
+        borrowed.incrementAndGet();
+        return pooledChannel;
+    }
+
+    private PooledChannel createChannelIfPossible() throws IOException {
+        synchronized (channels) {
+            if (channels.size() >= size) {
+                return null;
+            }
+            Channel channel = connection.createChannel();
+            PooledChannel pooledChannel = new PooledChannel(channel);
+            if (confirms) {
+                channel.confirmSelect();
+                channel.addConfirmListener(pooledChannel);
+            }
+            channels.add(pooledChannel);
+            channelsCreated.incrementAndGet();
+            return pooledChannel;
+        }
+    }
+
+    private void release(PooledChannel pooledChannel) {
+        borrowed.decrementAndGet();
+        if (pooledChannel.channel.isOpen()) {
+            idleChannels.offer(pooledChannel);
+        } else {
+            log.warn("Discarding closed publishing channel");
+            channels.remove(pooledChannel);
+            // messages not confirmed before the channel was closed are lost
+            nacked.addAndGet(pooledChannel.outstanding.size());
+            pooledChannel.outstanding.clear();
+            synchronized (confirmsLock) {
+                confirmsLock.notifyAll();
+            }
+            // replace the channel, so publishers waiting for a channel get one
+            try {
+                PooledChannel replacement = createChannelIfPossible();
+                if (replacement != null) {
+                    idleChannels.offer(replacement);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to replace closed publishing channel", e);
+            }
+        }
+    }
+
+    /**
+     * Waits until all messages published so far are confirmed by the broker.
+     * Returns immediately if publisher confirms are disabled.
+     *
+     * @param timeout time to wait in milliseconds
+     * @return <code>true</code> if all messages were confirmed in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitConfirms(long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        synchronized (confirmsLock) {
+            while (getOutstandingConfirms() > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                confirmsLock.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Closes all channels of the pool.
+     */
+    public void close() {
+        synchronized (channels) {
+            for (PooledChannel pooledChannel : channels) {
+                try {
+                    if (pooledChannel.channel.isOpen()) {
+                        pooledChannel.channel.close();
+                    }
+                } catch (IOException | TimeoutException e) {
+                    log.warn("Failed to close publishing channel", e);
+                }
+            }
+            channels.clear();
+            idleChannels.clear();
+        }
+    }
+
+    /**
+     * @return maximum number of channels
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return number of channels created so far, including the replaced ones
+     */
+    public long getChannelsCreated() {
+        return channelsCreated.get();
+    }
+
+    /**
+     * @return number of channels currently used by publishers
+     */
+    public int getBorrowed() {
+        return borrowed.get();
+    }
+
+    /**
+     * @return number of times a publisher had to wait for a channel, because all of them were in use
+     */
+    public long getBorrowWaits() {
+        return borrowWaits.get();
+    }
+
+    /**
+     * @return number of published messages
+     */
+    public long getPublished() {
+        return published.get();
+    }
+
+    /**
+     * @return number of messages confirmed by the broker
+     */
+    public long getConfirmed() {
+        return confirmed.get();
+    }
+
+    /**
+     * @return number of messages rejected by the broker or lost together with their channel
+     */
+    public long getNacked() {
+        return nacked.get();
+    }
+
+    /**
+     * @return number of published messages waiting for confirm
+     */
+    public int getOutstandingConfirms() {
+        int outstanding = 0;
+        for (PooledChannel pooledChannel : channels) {
+            outstanding += pooledChannel.outstanding.size();
+        }
+        return outstanding;
+    }
+
+    /**
+     * @return average time in milliseconds between publishing a message and receiving its confirm
+     */
+    public double getAverageConfirmLatency() {
+        long count = confirmed.get() + nacked.get();
+        return count == 0 ? 0 : confirmLatencyNanos.get() / 1e6 / count;
+    }
+
+    /**
+     * @return maximum time in milliseconds between publishing a message and receiving its confirm
+     */
+    public double getMaxConfirmLatency() {
+        return maxConfirmLatencyNanos.get() / 1e6;
+    }
+
+    /**
+     * Channel of the pool together with its messages waiting for confirm, keyed by
+     * their sequence number.
+     */
+    private class PooledChannel implements ConfirmListener {
+        private final Channel channel;
+        private final ConcurrentNavigableMap<Long, Long> outstanding = new ConcurrentSkipListMap<>();
+
+        PooledChannel(Channel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void handleAck(long deliveryTag, boolean multiple) {
+            confirmed.addAndGet(complete(deliveryTag, multiple));
+        }
+
+        @Override
+        public void handleNack(long deliveryTag, boolean multiple) {
+            int count = complete(deliveryTag, multiple);
+            nacked.addAndGet(count);
+            log.warn(count + " published messages were not confirmed by the broker");
+        }
+
+        private int complete(long deliveryTag, boolean multiple) {
+            long now = System.nanoTime();
+            Map<Long, Long> completed = multiple
+                    ? outstanding.headMap(deliveryTag, true)
+                    : outstanding.subMap(deliveryTag, true, deliveryTag, true);
+            int count = 0;
+            for (Long publishedAt : completed.values()) {
+                long latency = now - publishedAt;
+                confirmLatencyNanos.addAndGet(latency);
+                maxConfirmLatencyNanos.accumulateAndGet(latency, Math::max);
+                count++;
+            }
+            completed.clear();
+            if (outstanding.isEmpty()) {
+                synchronized (confirmsLock) {
+                    confirmsLock.notifyAll();
+                }
+            }
+            return count;
+        }
+    }
+}
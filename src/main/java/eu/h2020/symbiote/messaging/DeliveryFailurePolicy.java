@@ -0,0 +1,172 @@
+package eu.h2020.symbiote.messaging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Failure policy shared by all consumers, guaranteeing that every delivery is
+ * either acknowledged or rejected.
+ * <p>
+ * Delivery is acknowledged after it is processed successfully. If processing
+ * fails, it is retried with exponential backoff up to the configured number of
+ * times, as the failure may be temporary. Messages which can not be parsed are
+ * not retried. Deliveries which still fail are rejected without requeueing,
+ * so the broker moves them to the dead-letter exchange of the queue (if set)
+ * instead of keeping them unacknowledged forever. Retries are done on the
+ * consumer thread, so the order of messages on the channel is kept.
+ */
+public class DeliveryFailurePolicy {
+
+    private static Log log = LogFactory.getLog(DeliveryFailurePolicy.class);
+
+    /**
+     * Kinds of failures counted by the policy.
+     */
+    public enum FailureType {
+        /**
+         * Message could not be parsed, never retried.
+         */
+        PARSE,
+        /**
+         * I/O error, e.g. when sending the response.
+         */
+        IO,
+        /**
+         * Any other error during processing.
+         */
+        PROCESSING
+    }
+
+    /**
+     * Processing of a single delivery, excluding its acknowledgement.
+     */
+    @FunctionalInterface
+    public interface Delivery {
+        void process() throws Exception;
+    }
+
+    private final int maxRetries;
+    private final long initialBackoff;
+    private final long maxBackoff;
+
+    private final Map<FailureType, AtomicLong> failures = new EnumMap<>(FailureType.class);
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong recovered = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+
+    /**
+     * Creates policy retrying failed deliveries twice, waiting 100 ms before the first retry.
+     */
+    public DeliveryFailurePolicy() {
+        this(2, 100, 2000);
+    }
+
+    /**
+     * @param maxRetries     number of retries of failed delivery
+     * @param initialBackoff time in milliseconds to wait before the first retry, doubled for every next one
+     * @param maxBackoff     maximum time in milliseconds to wait before a retry
+     */
+    public DeliveryFailurePolicy(int maxRetries, long initialBackoff, long maxBackoff) {
+        this.maxRetries = Math.max(maxRetries, 0);
+        this.initialBackoff = Math.max(initialBackoff, 0);
+        this.maxBackoff = Math.max(maxBackoff, this.initialBackoff);
+        for (FailureType type : FailureType.values()) {
+            failures.put(type, new AtomicLong());
+        }
+    }
+
+    /**
+     * Processes the delivery, retrying it on failure, and acknowledges or rejects it.
+     *
+     * @param channel     channel the message was delivered on
+     * @param envelope    envelope of the delivery
+     * @param description description of the processing used in logs
+     * @param delivery    processing of the delivery
+     * @throws IOException if the delivery can not be acknowledged or rejected
+     */
+    public void handle(Channel channel, Envelope envelope, String description, Delivery delivery) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                delivery.process();
+            } catch (Exception e) {
+                FailureType type = classify(e);
+                failures.get(type).incrementAndGet();
+                if (type != FailureType.PARSE && attempt < maxRetries) {
+                    long backoff = getBackoff(attempt);
+                    log.warn(description + " failed (" + type + "), retry " + (attempt + 1) + "/" + maxRetries
+                            + " in " + backoff + " ms: " + e.getMessage());
+                    retries.incrementAndGet();
+                    try {
+                        Thread.sleep(backoff);
+                        continue;
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                log.error(description + " failed (" + type + "), message is rejected", e);
+                deadLettered.incrementAndGet();
+                channel.basicNack(envelope.getDeliveryTag(), false, false);
+                return;
+            }
+            if (attempt > 0) {
+                recovered.incrementAndGet();
+            }
+            channel.basicAck(envelope.getDeliveryTag(), false);
+            return;
+        }
+    }
+
+    private long getBackoff(int attempt) {
+        long backoff = initialBackoff << Math.min(attempt, 20);
+        return backoff < 0 ? maxBackoff : Math.min(backoff, maxBackoff);
+    }
+
+    private static FailureType classify(Exception e) {
+        if (e instanceof JsonProcessingException) {
+            return FailureType.PARSE;
+        }
+        if (e instanceof IOException) {
+            return FailureType.IO;
+        }
+        return FailureType.PROCESSING;
+    }
+
+    /**
+     * @return number of failed attempts by the type of failure
+     */
+    public Map<FailureType, Long> getFailures() {
+        Map<FailureType, Long> result = new EnumMap<>(FailureType.class);
+        failures.forEach((type, count) -> result.put(type, count.get()));
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * @return number of retries
+     */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * @return number of deliveries processed successfully after a retry
+     */
+    public long getRecovered() {
+        return recovered.get();
+    }
+
+    /**
+     * @return number of rejected deliveries
+     */
+    public long getDeadLettered() {
+        return deadLettered.get();
+    }
+}
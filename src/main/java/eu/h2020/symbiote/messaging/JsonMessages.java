@@ -0,0 +1,161 @@
+package eu.h2020.symbiote.messaging;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import eu.h2020.symbiote.core.internal.CoreResourceRegistryRequest;
+import eu.h2020.symbiote.core.internal.CoreSspResourceRegistryRequest;
+import eu.h2020.symbiote.core.internal.DescriptionType;
+import eu.h2020.symbiote.core.internal.InformationModelListResponse;
+import eu.h2020.symbiote.core.internal.ResourceInstanceValidationRequest;
+import eu.h2020.symbiote.model.cim.Resource;
+import eu.h2020.symbiote.model.mim.InformationModel;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Readers and writers of JSON messages exchanged over RabbitMQ.
+ * <p>
+ * Readers and writers are immutable and thread-safe, so they are created once
+ * and shared by all consumers. Messages are parsed directly from the received
+ * bytes (encoding is detected by Jackson) without creating a string first.
+ */
+public final class JsonMessages {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static final ObjectReader INFORMATION_MODEL_READER = MAPPER.readerFor(InformationModel.class);
+    public static final ObjectReader INFORMATION_MODEL_LIST_RESPONSE_READER = MAPPER.readerFor(InformationModelListResponse.class);
+    public static final ObjectReader RESOURCE_VALIDATION_REQUEST_READER = MAPPER.readerFor(ResourceInstanceValidationRequest.class);
+    public static final ObjectReader RESOURCE_REGISTRY_REQUEST_READER = MAPPER.readerFor(CoreResourceRegistryRequest.class);
+    public static final ObjectReader SSP_RESOURCE_REGISTRY_REQUEST_READER = MAPPER.readerFor(CoreSspResourceRegistryRequest.class);
+    public static final ObjectReader RESOURCES_READER = MAPPER.readerFor(new TypeReference<Map<String, Resource>>() {
+    });
+
+    public static final ObjectWriter WRITER = MAPPER.writer();
+
+    private static final String PLATFORM_ID_FIELD = "platformId";
+    private static final String DESCRIPTION_TYPE_FIELD = "descriptionType";
+    private static final String BODY_FIELD = "body";
+
+    private JsonMessages() {
+    }
+
+    /**
+     * Resources of a {@link CoreResourceRegistryRequest} together with the fields of
+     * the request needed for their translation.
+     */
+    public static class ResourceRegistryRequest {
+        private final String platformId;
+        private final DescriptionType descriptionType;
+        private final Map<String, Resource> resources;
+
+        public ResourceRegistryRequest(String platformId, DescriptionType descriptionType, Map<String, Resource> resources) {
+            this.platformId = platformId;
+            this.descriptionType = descriptionType;
+            this.resources = resources;
+        }
+
+        public String getPlatformId() {
+            return platformId;
+        }
+
+        public DescriptionType getDescriptionType() {
+            return descriptionType;
+        }
+
+        /**
+         * @return resources contained in the body, <code>null</code> if description type is not BASIC
+         */
+        public Map<String, Resource> getResources() {
+            return resources;
+        }
+    }
+
+    /**
+     * Reads registry request containing resources serialized as JSON string in
+     * its body. The body is parsed in two steps, first into a string and then
+     * into the resources.
+     *
+     * @param message received message
+     * @return parsed request
+     * @throws IOException if the message or its body can not be parsed
+     */
+    public static ResourceRegistryRequest readResourceRegistryRequest(byte[] message) throws IOException {
+        CoreResourceRegistryRequest request = RESOURCE_REGISTRY_REQUEST_READER.readValue(message);
+        Map<String, Resource> resources = null;
+        if (DescriptionType.BASIC.equals(request.getDescriptionType())) {
+            resources = RESOURCES_READER.readValue(request.getBody());
+        }
+        return new ResourceRegistryRequest(request.getPlatformId(), request.getDescriptionType(), resources);
+    }
+
+    /**
+     * Reads registry request like {@link #readResourceRegistryRequest(byte[])},
+     * but parses the resources directly from the characters of the body while
+     * streaming through the message, so neither the message nor its body is
+     * copied into a string. Other fields of the request are skipped. If the
+     * message does not have the expected structure, it is parsed using
+     * {@link #readResourceRegistryRequest(byte[])}.
+     *
+     * @param message received message
+     * @return parsed request
+     * @throws IOException if the message or its body can not be parsed
+     */
+    public static ResourceRegistryRequest streamResourceRegistryRequest(byte[] message) throws IOException {
+        String platformId = null;
+        DescriptionType descriptionType = null;
+        Map<String, Resource> resources = null;
+        IOException bodyException = null;
+        boolean bodyFound = false;
+        try (JsonParser parser = MAPPER.getFactory().createParser(message)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return readResourceRegistryRequest(message);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (PLATFORM_ID_FIELD.equals(field)) {
+                    platformId = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                } else if (DESCRIPTION_TYPE_FIELD.equals(field)) {
+                    descriptionType = value == JsonToken.VALUE_NULL ? null : parser.readValueAs(DescriptionType.class);
+                } else if (BODY_FIELD.equals(field) && value == JsonToken.VALUE_STRING) {
+                    bodyFound = true;
+                    // body may precede the description type, so failures are reported only for BASIC requests
+                    try {
+                        resources = RESOURCES_READER.readValue(new CharArrayReader(
+                                parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength()));
+                    } catch (IOException e) {
+                        bodyException = e;
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        if (!bodyFound || descriptionType == null) {
+            return readResourceRegistryRequest(message);
+        }
+        if (!DescriptionType.BASIC.equals(descriptionType)) {
+            return new ResourceRegistryRequest(platformId, descriptionType, null);
+        }
+        if (bodyException != null) {
+            throw bodyException;
+        }
+        return new ResourceRegistryRequest(platformId, descriptionType, resources);
+    }
+
+    /**
+     * @param message received message
+     * @return message decoded as UTF-8, used for logging
+     */
+    public static String toString(byte[] message) {
+        return new String(message, StandardCharsets.UTF_8);
+    }
+}
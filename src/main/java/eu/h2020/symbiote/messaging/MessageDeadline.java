@@ -0,0 +1,68 @@
+package eu.h2020.symbiote.messaging;
+
+import com.rabbitmq.client.AMQP;
+
+/**
+ * Determines deadlines of received requests, after which their callers no
+ * longer wait for the response.
+ */
+public final class MessageDeadline {
+
+    /**
+     * Header containing deadline of the request in milliseconds since epoch.
+     */
+    public static final String DEADLINE_HEADER = "x-deadline";
+
+    /**
+     * Time in milliseconds added to deadlines computed from the timestamp of
+     * the message, so that requests are abandoned only when they certainly
+     * expired.
+     */
+    public static final long TIMESTAMP_MARGIN = 5000;
+
+    private MessageDeadline() {
+    }
+
+    /**
+     * Returns deadline of the request, after which its caller no longer waits
+     * for the response:
+     * <ul>
+     * <li>the deadline set by the sender in {@link #DEADLINE_HEADER} header, which
+     * producers have to set for the time the request waited in the queue to be
+     * taken into account, e.g. {@link RpcClient} sets it for all calls,</li>
+     * <li>otherwise the timestamp of the message plus the timeout of requests,
+     * extended by {@link #TIMESTAMP_MARGIN}, as the timestamp has a resolution of
+     * one second and is set using the clock of the sender,</li>
+     * <li>otherwise, which is the case of senders setting neither, the time the
+     * message is delivered plus the timeout of requests. Time spent in the queue
+     * is not known then, so only processing of the request is limited.</li>
+     * </ul>
+     *
+     * @param properties     properties of the message
+     * @param requestTimeout time in milliseconds the sender waits for the response, values lower
+     *                       than 1 mean the timeout is not known
+     * @return deadline in milliseconds since epoch, 0 if it can not be determined
+     */
+    public static long of(AMQP.BasicProperties properties, long requestTimeout) {
+        if (properties != null && properties.getHeaders() != null) {
+            Object deadline = properties.getHeaders().get(DEADLINE_HEADER);
+            if (deadline instanceof Number) {
+                return ((Number) deadline).longValue();
+            }
+            if (deadline != null) {
+                try {
+                    return Long.parseLong(deadline.toString());
+                } catch (NumberFormatException e) {
+                    // fall back to the timestamp
+                }
+            }
+        }
+        if (requestTimeout <= 0) {
+            return 0;
+        }
+        if (properties != null && properties.getTimestamp() != null) {
+            return properties.getTimestamp().getTime() + requestTimeout + TIMESTAMP_MARGIN;
+        }
+        return System.currentTimeMillis() + requestTimeout;
+    }
+}
@@ -1,6 +1,5 @@
 package eu.h2020.symbiote.messaging;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rabbitmq.client.*;
 import eu.h2020.symbiote.core.internal.InformationModelListResponse;
 import eu.h2020.symbiote.messaging.consumers.*;
@@ -17,9 +16,12 @@ import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 /**
  * Bean used to manage internal communication using RabbitMQ.
@@ -112,14 +114,114 @@ public class RabbitManager {
     @Value("${rabbit.routingKey.resource.sparqlSearchRequested}")
     private String resourceSparqlSearchRequestedRoutingKey;
 
+    // In scale-out mode requests are consumed from queues shared by all instances
+    // and information model events from queues of every single instance
+    @Value("${rabbit.scaleOut.enabled:false}")
+    private boolean scaleOut = false;
+    @Value("${rabbit.instanceId:}")
+    private String instanceId = "";
+
+    // Number of consumers (each on its own channel) and number of unacknowledged messages per consumer
+    // for request queues. Information model events are always handled one at a time to keep their order.
+    @Value("${rabbit.consumer.pimValidation.concurrency:1}")
+    private int pimValidationConcurrency = 1;
+    @Value("${rabbit.consumer.pimValidation.prefetch:1}")
+    private int pimValidationPrefetch = 1;
+    @Value("${rabbit.consumer.resourceValidation.concurrency:1}")
+    private int resourceValidationConcurrency = 1;
+    @Value("${rabbit.consumer.resourceValidation.prefetch:1}")
+    private int resourceValidationPrefetch = 1;
+    // Values lower than 1 for translation consumers mean twice the number of available processors, which exceeds
+    // the default number of translation permits of the semantic manager (one per processor), so registrations of
+    // other platforms and SSPs are consumed while a large batch is translated and their sub-batches interleaved.
+    @Value("${rabbit.consumer.bimResourceTranslation.concurrency:0}")
+    private int bimResourceTranslationConcurrency = 0;
+    @Value("${rabbit.consumer.bimResourceTranslation.prefetch:1}")
+    private int bimResourceTranslationPrefetch = 1;
+    // parse resources of BIM translation requests while streaming through the message
+    @Value("${rabbit.consumer.bimResourceTranslation.streamingParse:false}")
+    private boolean bimResourceTranslationStreamingParse = false;
+    @Value("${rabbit.consumer.sspResourceTranslation.concurrency:0}")
+    private int sspResourceTranslationConcurrency = 0;
+    @Value("${rabbit.consumer.sspResourceTranslation.prefetch:1}")
+    private int sspResourceTranslationPrefetch = 1;
+
+    // Requests of every lane are consumed using a separate connection and thread pool, so a burst of slow
+    // PIM validations can not delay resource requests. Number of threads of a lane defaults to the sum of
+    // concurrency of its consumers.
+    @Value("${rabbit.lanes.enabled:true}")
+    private boolean lanesEnabled = true;
+    @Value("${rabbit.lane.pimValidation.threads:0}")
+    private int pimValidationLaneThreads = 0;
+    @Value("${rabbit.lane.resource.threads:0}")
+    private int resourceLaneThreads = 0;
+
+    // Maximum priority of messages in request queues, 0 disables priorities. Priorities are only applied to
+    // messages waiting in the queue, so they need prefetch low enough to keep the backlog in the broker.
+    // Changing the value requires existing shared queues to be deleted, as their arguments can not be changed.
+    @Value("${rabbit.queue.maxPriority:0}")
+    private int queueMaxPriority = 0;
+
+    // maximum number of RPC calls waiting for a reply at the same time
+    @Value("${rabbit.rpc.maxPendingCalls:64}")
+    private int rpcMaxPendingCalls = 64;
+
+    // channels reused for publishing messages, optionally with publisher confirms
+    @Value("${rabbit.publisher.channelPoolSize:8}")
+    private int publisherChannelPoolSize = 8;
+    @Value("${rabbit.publisher.confirms:false}")
+    private boolean publisherConfirms = false;
+
+    // retries of failed deliveries before they are rejected, with backoff in milliseconds doubled for every retry
+    @Value("${rabbit.failure.maxRetries:2}")
+    private int failureMaxRetries = 2;
+    @Value("${rabbit.failure.initialBackoff:100}")
+    private long failureInitialBackoff = 100;
+    @Value("${rabbit.failure.maxBackoff:2000}")
+    private long failureMaxBackoff = 2000;
+
+    // Rejected requests are routed to the dead-letter exchange and kept in a bounded queue for inspection.
+    // Off by default, as RabbitMQ also dead-letters requests expired by the message TTL, so ordinary timeouts
+    // would fill the queue. Event queues are never dead-lettered, their messages are only useful to the instance.
+    // Changing the setting requires existing shared queues to be deleted, as their arguments can not be changed.
+    @Value("${rabbit.deadLetter.enabled:false}")
+    private boolean deadLetterEnabled = false;
+    @Value("${rabbit.deadLetter.exchange:symbIoTe-SemanticManager-dlx}")
+    private String deadLetterExchangeName = "symbIoTe-SemanticManager-dlx";
+    @Value("${rabbit.deadLetter.queue:symbIoTe-SemanticManager-dead-letters}")
+    private String deadLetterQueueName = "symbIoTe-SemanticManager-dead-letters";
+    @Value("${rabbit.deadLetter.maxLength:10000}")
+    private int deadLetterMaxLength = 10000;
+
 //    @Value("${semantic.insert.whole.location.for.existing}")
     private boolean insertWholeLocation = true;
 
     private Map<String,Object> queueArgs;
 
+    private Map<String,Object> requestQueueArgs;
+
+    /**
+     * Classes of requests isolated from each other by their own connection and thread pool.
+     */
+    private enum Lane {
+        PIM_VALIDATION, RESOURCE
+    }
+
+    private final Map<Lane, Connection> laneConnections = new EnumMap<>(Lane.class);
+
+    private final Map<Lane, ExecutorService> laneExecutors = new EnumMap<>(Lane.class);
+
 
     private Connection connection;
 
+    private ExecutorService consumerExecutor;
+
+    private RpcClient rpcClient;
+
+    private ChannelPool publisherChannelPool;
+
+    private DeliveryFailurePolicy failurePolicy;
+
     private final LocationRepository locationRepository;
 
     @Autowired
@@ -135,15 +237,79 @@ public class RabbitManager {
      */
     public Connection getConnection() throws IOException, TimeoutException {
         if (connection == null) {
-            ConnectionFactory factory = new ConnectionFactory();
-            factory.setHost(this.rabbitHost);
-            factory.setUsername(this.rabbitUsername);
-            factory.setPassword(this.rabbitPassword);
-            this.connection = factory.newConnection();
+            this.connection = newConnection();
         }
         return this.connection;
     }
 
+    /**
+     * Creates connection delivering messages using a thread pool large enough
+     * to run all configured consumers at the same time.
+     */
+    private Connection newConnection() throws IOException, TimeoutException {
+        // information model events and the replies to RPC messages use one consumer each
+        int consumerThreads = 4;
+        if (!lanesEnabled) {
+            consumerThreads += getLaneThreads(Lane.PIM_VALIDATION) + getLaneThreads(Lane.RESOURCE);
+        }
+        if (consumerExecutor == null) {
+            consumerExecutor = Executors.newFixedThreadPool(consumerThreads);
+        }
+        return newConnection(consumerExecutor);
+    }
+
+    private Connection newConnection(ExecutorService executor) throws IOException, TimeoutException {
+        ConnectionFactory factory = new ConnectionFactory();
+        factory.setHost(this.rabbitHost);
+        factory.setUsername(this.rabbitUsername);
+        factory.setPassword(this.rabbitPassword);
+        return factory.newConnection(executor);
+    }
+
+    /**
+     * @return connection used to consume requests of the lane, shared connection if lanes are disabled
+     */
+    private synchronized Connection getLaneConnection(Lane lane) throws IOException {
+        if (!lanesEnabled) {
+            return connection;
+        }
+        Connection laneConnection = laneConnections.get(lane);
+        if (laneConnection == null) {
+            int threads = getLaneThreads(lane);
+            log.info("Creating connection for " + lane + " requests with " + threads + " threads");
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                laneConnection = newConnection(executor);
+            } catch (TimeoutException e) {
+                executor.shutdown();
+                throw new IOException("Could not create connection for " + lane + " requests", e);
+            } catch (IOException e) {
+                executor.shutdown();
+                throw e;
+            }
+            laneExecutors.put(lane, executor);
+            laneConnections.put(lane, laneConnection);
+        }
+        return laneConnection;
+    }
+
+    private int getLaneThreads(Lane lane) {
+        switch (lane) {
+            case PIM_VALIDATION:
+                return pimValidationLaneThreads > 0 ? pimValidationLaneThreads
+                        : Math.max(pimValidationConcurrency, 1);
+            default:
+                return resourceLaneThreads > 0 ? resourceLaneThreads
+                        : Math.max(resourceValidationConcurrency, 1)
+                        + getTranslationConcurrency(bimResourceTranslationConcurrency)
+                        + getTranslationConcurrency(sspResourceTranslationConcurrency);
+        }
+    }
+
+    private static int getTranslationConcurrency(int concurrency) {
+        return concurrency > 0 ? concurrency : 2 * Runtime.getRuntime().availableProcessors();
+    }
+
     /**
      * Method creates channel and declares Rabbit exchanges.
      * It triggers start of all consumers used in Registry communication.
@@ -154,15 +320,25 @@ public class RabbitManager {
         Channel channel = null;
         queueArgs = new HashMap<>();
         queueArgs.put("x-message-ttl", rabbitMessageTimeout);
+        requestQueueArgs = new HashMap<>(queueArgs);
+        if (deadLetterEnabled) {
+            requestQueueArgs.put("x-dead-letter-exchange", deadLetterExchangeName);
+        }
+        if (queueMaxPriority > 0) {
+            requestQueueArgs.put("x-max-priority", Math.min(queueMaxPriority, 255));
+        }
+        failurePolicy = new DeliveryFailurePolicy(failureMaxRetries, failureInitialBackoff, failureMaxBackoff);
+        if (instanceId == null || instanceId.isEmpty()) {
+            instanceId = UUID.randomUUID().toString();
+        }
+        if (scaleOut) {
+            log.info("Scale-out mode enabled, instance id: " + instanceId);
+        }
 
         try {
-            ConnectionFactory factory = new ConnectionFactory();
-
-            factory.setHost(this.rabbitHost);
-            factory.setUsername(this.rabbitUsername);
-            factory.setPassword(this.rabbitPassword);
-
-            this.connection = factory.newConnection();
+            this.connection = newConnection();
+            this.rpcClient = new RpcClient(this.connection, rpcMaxPendingCalls, rabbitMessageTimeout);
+            this.publisherChannelPool = new ChannelPool(this.connection, publisherChannelPoolSize, publisherConfirms, rabbitMessageTimeout);
 
             channel = this.connection.createChannel();
             channel.exchangeDeclare(this.platformExchangeName,
@@ -179,6 +355,10 @@ public class RabbitManager {
                     this.resourceExchangeInternal,
                     null);
 
+            if (deadLetterEnabled) {
+                declareDeadLetterQueue(channel);
+            }
+
 //            LocationFinder.getSingleton(this.resourceExchangeName, this.resourceSparqlSearchRequestedRoutingKey, this.connection, this);
 //            LocationFinder.getSingleton(this.insertWholeLocation,locationRepository);
 
@@ -212,12 +392,34 @@ public class RabbitManager {
 //        } catch (IOException e) {
 //            e.printStackTrace();
 //        }
+        if (rpcClient != null) {
+            rpcClient.close();
+        }
+        if (publisherChannelPool != null) {
+            publisherChannelPool.close();
+        }
         try {
             if (this.connection != null && this.connection.isOpen())
                 this.connection.close();
         } catch (IOException e) {
             e.printStackTrace();
         }
+        if (consumerExecutor != null) {
+            consumerExecutor.shutdown();
+        }
+        synchronized (this) {
+            for (Connection laneConnection : laneConnections.values()) {
+                try {
+                    if (laneConnection.isOpen())
+                        laneConnection.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            laneConnections.clear();
+            laneExecutors.values().forEach(ExecutorService::shutdown);
+            laneExecutors.clear();
+        }
     }
 
     /**
@@ -243,32 +445,24 @@ public class RabbitManager {
 
 
     private void scheduleLoadingOfPIMs() {
-        try {
-            Channel tempChannel = connection.createChannel();
-
-            String queueName = tempChannel.queueDeclare("symbIoTe-SemanticManager-pimsLookup", true, true, false, queueArgs).getQueue();
-
-            TimerTask task = new TimerTask() {
-                @Override
-                public void run() {
-                    try {
-                        String response = sendRpcMessage(tempChannel, queueName, platformExchangeName, platformInformationModelRequestedKey, "", String.class.getCanonicalName());
-                        ObjectMapper mapper = new ObjectMapper();
-                        InformationModelListResponse informationModelsList = mapper.readValue(response, InformationModelListResponse.class);
-                        SymbioteModelsUtil.addModels(informationModelsList.getBody());
-                    } catch (IOException e) {
-                        log.error("Error occurred when loading PIMs from registry");
+        TimerTask task = new TimerTask() {
+            @Override
+            public void run() {
+                try {
+                    String response = sendRpcMessage(platformExchangeName, platformInformationModelRequestedKey, "", String.class.getCanonicalName());
+                    if (response == null) {
+                        log.error("Error occurred when loading PIMs from registry: no response received");
+                        return;
                     }
+                    InformationModelListResponse informationModelsList = JsonMessages.INFORMATION_MODEL_LIST_RESPONSE_READER.readValue(response);
+                    SymbioteModelsUtil.addModels(informationModelsList.getBody());
+                } catch (IOException e) {
+                    log.error("Error occurred when loading PIMs from registry");
                 }
-            };
-            Timer timer = new Timer("pim download task",false);
-            timer.schedule(task,30000);
-
-
-        } catch (IOException e) {
-            log.error("Error occurred when loading PIMs from registry");
-        }
-
+            }
+        };
+        Timer timer = new Timer("pim download task",false);
+        timer.schedule(task,30000);
     }
 
     public void sendCustomMessage(String exchange, String routingKey, String objectInJson) {
@@ -277,7 +471,7 @@ public class RabbitManager {
     }
 
     /**
-     * Method publishes given message to the given exchange and routing key.
+     * Method publishes given message to the given exchange and routing key using a channel from the pool.
      * Props are set for correct message handle on the receiver side.
      *
      * @param exchange   name of the proper Rabbit exchange, adequate to topic of the communication
@@ -286,80 +480,96 @@ public class RabbitManager {
      */
     private void sendMessage(String exchange, String routingKey, String message) {
         AMQP.BasicProperties props;
-        Channel channel = null;
         try {
-            channel = this.connection.createChannel();
             props = new AMQP.BasicProperties()
                     .builder()
                     .contentType("application/json")
                     .build();
 
-            channel.basicPublish(exchange, routingKey, props, message.getBytes());
+            publisherChannelPool.publish(exchange, routingKey, props, message.getBytes());
         } catch (IOException e) {
             e.printStackTrace();
-        } finally {
-            closeChannel(channel);
         }
     }
 
+    /**
+     * Declares the dead-letter exchange and a queue keeping all rejected messages, regardless of their routing key.
+     *
+     * @param channel channel to declare the exchange and queue on
+     */
+    private void declareDeadLetterQueue(Channel channel) throws IOException {
+        Map<String, Object> deadLetterQueueArgs = new HashMap<>();
+        deadLetterQueueArgs.put("x-max-length", deadLetterMaxLength);
+        channel.exchangeDeclare(deadLetterExchangeName, "topic", true, false, false, null);
+        channel.queueDeclare(deadLetterQueueName, true, false, false, deadLetterQueueArgs);
+        channel.queueBind(deadLetterQueueName, deadLetterExchangeName, "#");
+    }
+
+    /**
+     * @return policy applied by consumers when processing of a message fails
+     */
+    public DeliveryFailurePolicy getFailurePolicy() {
+        return failurePolicy;
+    }
+
+    /**
+     * @return pool of channels used for publishing messages
+     */
+    public ChannelPool getPublisherChannelPool() {
+        return publisherChannelPool;
+    }
+
+    /**
+     * Method used to send message via RPC (Remote Procedure Call) pattern.
+     * Replies are received using RabbitMQ direct reply-to by a single consumer shared by all calls and matched
+     * with the calls by their correlation id, so calls can be pipelined.
+     * If the response doesn't come in time set by <code>spring.rabbitmq.template.reply-timeout</code>,
+     * the returned future is completed with {@link TimeoutException}.
+     *
+     * @param exchangeName name of the exchange to send message to
+     * @param routingKey   routing key to send message to
+     * @param message      message to be sent
+     * @param classType    type of the message
+     * @return future completed by the response from the consumer
+     */
+    public CompletableFuture<String> sendRpcMessageAsync(String exchangeName, String routingKey, String message, String classType) {
+        log.info("Sending RPC message: " + message);
+        return rpcClient.call(exchangeName, routingKey, message, classType);
+    }
+
     /**
      * Method used to send message via RPC (Remote Procedure Call) pattern.
      * In this implementation it covers asynchronous Rabbit communication with synchronous one, as it is used by conventional REST facade.
-     * Before sending a message, a temporary response queue is declared and its name is passed along with the message.
-     * When a consumer handles the message, it returns the result via the response queue.
-     * Since this is a synchronous pattern, it uses timeout of 20 seconds. If the response doesn't come in that time, the method returns with null result.
+     * If the response doesn't come in time set by <code>spring.rabbitmq.template.reply-timeout</code>, the method returns with null result.
      *
-     * @param exchangeName name of the eschange to send message to
+     * @param exchangeName name of the exchange to send message to
      * @param routingKey   routing key to send message to
      * @param message      message to be sent
+     * @param classType    type of the message
      * @return response from the consumer or null if timeout occurs
+     * @see #sendRpcMessageAsync(String, String, String, String)
      */
-    public String sendRpcMessage(Channel channel, String responseQueueName, String exchangeName, String routingKey, String message, String classType) {
+    public String sendRpcMessage(String exchangeName, String routingKey, String message, String classType) {
         try {
-            log.info("Sending RPC message: " + message);
-
-            String correlationId = UUID.randomUUID().toString();
-
-            Map<String, Object> headers = new HashMap<>();
-            headers.put("__TypeId__", classType);
-            headers.put("__ContentTypeId__", Object.class.getCanonicalName());
-//
-            AMQP.BasicProperties props = new AMQP.BasicProperties()
-                    .builder()
-                    .correlationId(correlationId)
-                    .replyTo(responseQueueName)
-                    .contentType("application/json")
-                    .headers(headers)
-                    .build();
-
-            final BlockingQueue<String> response = new ArrayBlockingQueue<String>(1);
-
-            DefaultConsumer consumer = new DefaultConsumer(channel) {
-                @Override
-                public void handleDelivery(String consumerTag, Envelope envelope, AMQP.BasicProperties properties, byte[] body) throws IOException {
-                    if (properties.getCorrelationId().equals(correlationId)) {
-                        log.debug("Got reply with correlationId: " + correlationId);
-                        response.offer(new String(body, "UTF-8"));
-                        getChannel().basicCancel(this.getConsumerTag());
-                    } else {
-                        log.debug("Got answer with wrong correlationId... should be " + correlationId + " but got " + properties.getCorrelationId());
-                    }
-                }
-            };
-
-            channel.basicConsume(responseQueueName, true, consumer);
-
-            channel.basicPublish(exchangeName, routingKey, props, message.getBytes());
-
-            String responseMsg = response.take();
+            String responseMsg = sendRpcMessageAsync(exchangeName, routingKey, message, classType).get();
             log.info("Response received: " + (responseMsg.length() > 200 ? responseMsg.substring(0,200) + (" ..."): responseMsg ) );
             return responseMsg;
-        } catch (IOException | InterruptedException e) {
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             log.error(e.getMessage(), e);
+        } catch (ExecutionException e) {
+            log.error("RPC message to " + exchangeName + "/" + routingKey + " failed: " + e.getCause().getMessage());
         }
         return null;
     }
 
+    /**
+     * @return client used to send RPC messages
+     */
+    public RpcClient getRpcClient() {
+        return rpcClient;
+    }
+
     /**
      * Closes given channel if it exists and is open.
      *
@@ -376,19 +586,85 @@ public class RabbitManager {
         }
     }
 
+    /**
+     * Declares queue for requests, binds it to the routing key and starts
+     * consumers on it. In scale-out mode the queue is shared by all instances,
+     * so requests are distributed among them, otherwise the queue is exclusive
+     * to this instance.
+     *
+     * @param lane            lane of the requests, determines connection used by the consumers
+     * @param queueName       name of the queue
+     * @param exchangeName    exchange to bind the queue to
+     * @param routingKey      routing key to bind the queue with
+     * @param concurrency     number of consumers
+     * @param prefetch        maximum number of unacknowledged messages per consumer, 0 means unlimited
+     * @param consumerFactory creates consumer for the channel
+     */
+    private void registerRequestConsumer(Lane lane, String queueName, String exchangeName, String routingKey,
+                                         int concurrency, int prefetch,
+                                         Function<Channel, Consumer> consumerFactory) throws IOException {
+        Connection laneConnection = getLaneConnection(lane);
+        Channel channel = laneConnection.createChannel();
+        channel.queueDeclare(queueName, false, !scaleOut, !scaleOut, requestQueueArgs);
+        channel.queueBind(queueName, exchangeName, routingKey);
+        startConsumers(laneConnection, channel, queueName, concurrency, prefetch, consumerFactory);
+    }
+
+    /**
+     * Declares queue for information model events, binds it to the routing key
+     * and starts a single consumer on it, so events are handled in order. Every
+     * instance has its own queue, so all instances receive all events and keep
+     * their models up to date.
+     *
+     * @param queueName       name of the queue, suffixed by instance id in scale-out mode
+     * @param exchangeName    exchange to bind the queue to
+     * @param routingKey      routing key to bind the queue with
+     * @param consumerFactory creates consumer for the channel
+     */
+    private void registerEventConsumer(String queueName, String exchangeName, String routingKey,
+                                       Function<Channel, Consumer> consumerFactory) throws IOException {
+        String instanceQueueName = getInstanceQueueName(queueName);
+        Channel channel = connection.createChannel();
+        channel.queueDeclare(instanceQueueName, false, true, true, queueArgs);
+        channel.queueBind(instanceQueueName, exchangeName, routingKey);
+        startConsumers(connection, channel, instanceQueueName, 1, 1, consumerFactory);
+    }
+
+    /**
+     * Starts consumers on the queue. Every consumer gets its own channel, so up
+     * to <code>concurrency</code> messages are processed in parallel. Consumers
+     * acknowledge messages after they are processed, so <code>prefetch</code>
+     * limits the number of messages delivered to a consumer in advance.
+     */
+    private void startConsumers(Connection consumerConnection, Channel channel, String queueName, int concurrency, int prefetch,
+                                Function<Channel, Consumer> consumerFactory) throws IOException {
+        for (int i = 0; i < Math.max(concurrency, 1); i++) {
+            if (i > 0) {
+                channel = consumerConnection.createChannel();
+            }
+            channel.basicQos(Math.max(prefetch, 0));
+            channel.basicConsume(queueName, false, consumerFactory.apply(channel));
+        }
+    }
+
+    /**
+     * @param queueName name of the queue
+     * @return name of the queue used only by this instance
+     */
+    private String getInstanceQueueName(String queueName) {
+        return scaleOut ? queueName + "-" + instanceId : queueName;
+    }
+
     /**
      * Registers a Validate PIM Meta Model consumer
      */
     public void registerValidatePIMMetaModelConsumer(SemanticManager semanticManager) throws IOException {
         String queueName = "symbIoTe-SemanticManager-validate-PIM-MetaModel";
 
-        Channel channel = connection.createChannel();
-        channel.queueDeclare(queueName, false, true, true, queueArgs);
-        channel.queueBind(queueName, platformExchangeName, platformModelValidationRequestedRoutingKey);
-        ValidatePIMMetaModelConsumer consumer = new ValidatePIMMetaModelConsumer(channel, semanticManager);
-
         log.debug("Creating PIM meta model consumer");
-        channel.basicConsume(queueName, false, consumer);
+        registerRequestConsumer(Lane.PIM_VALIDATION, queueName, platformExchangeName, platformModelValidationRequestedRoutingKey,
+                pimValidationConcurrency, pimValidationPrefetch,
+                channel -> new ValidatePIMMetaModelConsumer(channel, semanticManager, rabbitMessageTimeout, failurePolicy));
     }
 
 //    /**
@@ -412,13 +688,10 @@ public class RabbitManager {
     public void registerValidateResourceInstanceConsumer(SemanticManager semanticManager) throws IOException {
         String queueName = "symbIoTe-SemanticManager-validate-Resource-Instance";
 
-        Channel channel = connection.createChannel();
-        channel.queueDeclare(queueName, false, true, true, queueArgs);
-        channel.queueBind(queueName, resourceExchangeName, resourceInstanceValidationRequestedRoutingKey);
-        ValidateResourcesInstanceConsumer consumer = new ValidateResourcesInstanceConsumer(channel, semanticManager);
-
         log.debug("Creating resource instance consumer");
-        channel.basicConsume(queueName, false, consumer);
+        registerRequestConsumer(Lane.RESOURCE, queueName, resourceExchangeName, resourceInstanceValidationRequestedRoutingKey,
+                resourceValidationConcurrency, resourceValidationPrefetch,
+                channel -> new ValidateResourcesInstanceConsumer(channel, semanticManager, rabbitMessageTimeout, failurePolicy));
     }
 
 //    /**
@@ -442,13 +715,10 @@ public class RabbitManager {
     public void registerValidateAndCreateBIMResource(SemanticManager semanticManager) throws IOException {
         String queueName = "symbIoTe-SemanticManager-validate-and-create-BIM-Resource";
 
-        Channel channel = connection.createChannel();
-        channel.queueDeclare(queueName, false, true, true, queueArgs);
-        channel.queueBind(queueName, resourceExchangeName, resourceInstanceTranslationRequestedRoutingKey);
-        ValidateAndCreateRDFForBIMResourceConsumer consumer = new ValidateAndCreateRDFForBIMResourceConsumer(channel, semanticManager);
-
         log.debug("Creating BIM resource validation and creation consumer");
-        channel.basicConsume(queueName, false, consumer);
+        registerRequestConsumer(Lane.RESOURCE, queueName, resourceExchangeName, resourceInstanceTranslationRequestedRoutingKey,
+                getTranslationConcurrency(bimResourceTranslationConcurrency), bimResourceTranslationPrefetch,
+                channel -> new ValidateAndCreateRDFForBIMResourceConsumer(channel, semanticManager, bimResourceTranslationStreamingParse, rabbitMessageTimeout, failurePolicy));
     }
 
     /**
@@ -457,13 +727,10 @@ public class RabbitManager {
     public void registerValidateAndCreateSspResource(SemanticManager semanticManager) throws IOException {
         String queueName = "symbIoTe-SemanticManager-validate-and-create-SSP-Resource";
 
-        Channel channel = connection.createChannel();
-        channel.queueDeclare(queueName, false, true, true, queueArgs);
-        channel.queueBind(queueName, resourceExchangeName, sspResourceInstanceTranslationRequestedRoutingKey);
-        ValidateAndCreateRDFForSspResourceConsumer consumer = new ValidateAndCreateRDFForSspResourceConsumer(channel, semanticManager);
-
         log.debug("Creating Ssp resource validation and creation consumer");
-        channel.basicConsume(queueName, false, consumer);
+        registerRequestConsumer(Lane.RESOURCE, queueName, resourceExchangeName, sspResourceInstanceTranslationRequestedRoutingKey,
+                getTranslationConcurrency(sspResourceTranslationConcurrency), sspResourceTranslationPrefetch,
+                channel -> new ValidateAndCreateRDFForSspResourceConsumer(channel, semanticManager, rabbitMessageTimeout, failurePolicy));
     }
 
 //    /**
@@ -487,13 +754,9 @@ public class RabbitManager {
     public void registerPIMMetaModelCreationConsumer(SemanticManager semanticManager) throws IOException {
         String queueName = "symbIoTe-SemanticManager-PIM-MetaModel-creation";
 
-        Channel channel = connection.createChannel();
-        channel.queueDeclare(queueName, false, true, true, queueArgs);
-        channel.queueBind(queueName, platformExchangeName, platformModelCreatedRoutingKey);
-        RegisterPIMMetaModelConsumer consumer = new RegisterPIMMetaModelConsumer(channel, semanticManager);
-
         log.debug("Creating PIM Meta Model create consumer");
-        channel.basicConsume(queueName, false, consumer);
+        registerEventConsumer(queueName, platformExchangeName, platformModelCreatedRoutingKey,
+                channel -> new RegisterPIMMetaModelConsumer(channel, semanticManager, failurePolicy));
     }
 
     /**
@@ -502,13 +765,9 @@ public class RabbitManager {
     public void registerPIMMetaModelDeleteConsumer(SemanticManager semanticManager) throws IOException {
         String queueName = "symbIoTe-SemanticManager-PIM-MetaModel-delete";
 
-        Channel channel = connection.createChannel();
-        channel.queueDeclare(queueName, false, true, true, queueArgs);
-        channel.queueBind(queueName, platformExchangeName, platformModelRemovedRoutingKey);
-        DeletePIMMetaModelConsumer consumer = new DeletePIMMetaModelConsumer(channel, semanticManager);
-
         log.debug("Creating PIM Meta Model delete consumer");
-        channel.basicConsume(queueName, false, consumer);
+        registerEventConsumer(queueName, platformExchangeName, platformModelRemovedRoutingKey,
+                channel -> new DeletePIMMetaModelConsumer(channel, semanticManager, failurePolicy));
     }
 
     /**
@@ -517,13 +776,9 @@ public class RabbitManager {
     public void registerPIMMetaModelModifyConsumer(SemanticManager semanticManager) throws IOException {
         String queueName = "symbIoTe-SemanticManager-PIM-MetaModel-modify";
 
-        Channel channel = connection.createChannel();
-        channel.queueDeclare(queueName, false, true, true, queueArgs);
-        channel.queueBind(queueName, platformExchangeName, platformModelModifiedRoutingKey);
-        ModifyPIMMetaModelConsumer consumer = new ModifyPIMMetaModelConsumer(channel, semanticManager);
-
         log.debug("Creating PIM Meta Model modify consumer");
-        channel.basicConsume(queueName, false, consumer);
+        registerEventConsumer(queueName, platformExchangeName, platformModelModifiedRoutingKey,
+                channel -> new ModifyPIMMetaModelConsumer(channel, semanticManager, failurePolicy));
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,216 @@
+package eu.h2020.symbiote.messaging;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.ShutdownSignalException;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client sending messages using RPC (Remote Procedure Call) pattern over a
+ * single long-lived channel.
+ * <p>
+ * Replies are received using RabbitMQ direct reply-to, so no response queue
+ * is declared, and matched to pending calls by their correlation id. Every call
+ * has a deadline after which it fails with {@link TimeoutException}, and the
+ * number of calls waiting for a reply is bounded, so many calls can be
+ * pipelined without exhausting memory when the other side is slow.
+ * <p>
+ * Futures are completed on the thread delivering replies, so callers doing
+ * expensive work with the reply should use the asynchronous variants of
+ * {@link CompletableFuture} methods or wait for the result on their own thread.
+ */
+public class RpcClient {
+
+    public static final String DIRECT_REPLY_TO = "amq.rabbitmq.reply-to";
+
+    private static Log log = LogFactory.getLog(RpcClient.class);
+
+    private final Channel channel;
+    private final long defaultTimeout;
+    private final Semaphore permits;
+    private final Map<String, CompletableFuture<String>> pendingCalls = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timeoutScheduler;
+
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong lateReplies = new AtomicLong();
+
+    /**
+     * Creates a channel and starts consuming replies on it.
+     *
+     * @param connection     connection to create the channel on
+     * @param maxPendingCalls maximum number of calls waiting for a reply
+     * @param defaultTimeout timeout of calls in milliseconds
+     * @throws IOException if the channel can not be created
+     */
+    public RpcClient(Connection connection, int maxPendingCalls, long defaultTimeout) throws IOException {
+        this.defaultTimeout = defaultTimeout;
+        this.permits = new Semaphore(Math.max(maxPendingCalls, 1));
+        this.timeoutScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rpc-timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.channel = connection.createChannel();
+        // messages published as mandatory are returned if they can not be routed to any queue
+        this.channel.addReturnListener((replyCode, replyText, exchange, routingKey, properties, body) ->
+                fail(properties.getCorrelationId(), new IOException("RPC message to " + exchange + "/" + routingKey
+                        + " was returned: " + replyText)));
+        this.channel.basicConsume(DIRECT_REPLY_TO, true, new DefaultConsumer(channel) {
+            @Override
+            public void handleDelivery(String consumerTag, Envelope envelope, AMQP.BasicProperties properties, byte[] body) throws IOException {
+                CompletableFuture<String> call = pendingCalls.get(properties.getCorrelationId());
+                if (call != null) {
+                    log.debug("Got reply with correlationId: " + properties.getCorrelationId());
+                    call.complete(new String(body, StandardCharsets.UTF_8));
+                } else {
+                    lateReplies.incrementAndGet();
+                    log.debug("Got reply for unknown or timed out call with correlationId: " + properties.getCorrelationId());
+                }
+            }
+
+            @Override
+            public void handleShutdownSignal(String consumerTag, ShutdownSignalException sig) {
+                for (String correlationId : pendingCalls.keySet()) {
+                    fail(correlationId, new IOException("RPC channel closed", sig));
+                }
+            }
+        });
+    }
+
+    /**
+     * Sends the message using default timeout.
+     *
+     * @see #call(String, String, String, String, long)
+     */
+    public CompletableFuture<String> call(String exchangeName, String routingKey, String message, String classType) {
+        return call(exchangeName, routingKey, message, classType, defaultTimeout);
+    }
+
+    /**
+     * Sends the message and returns future completed by the reply. If the
+     * maximum number of pending calls is reached, the method waits for one of
+     * them to finish, at most for the timeout of the call.
+     *
+     * @param exchangeName name of the exchange to send message to
+     * @param routingKey   routing key to send message to
+     * @param message      message to be sent
+     * @param classType    type of the message set in headers for Spring AMQP consumers
+     * @param timeout      time in milliseconds to wait for the reply
+     * @return future completed by the reply, or exceptionally if the message can not be sent or
+     * the reply does not arrive in time
+     */
+    public CompletableFuture<String> call(String exchangeName, String routingKey, String message, String classType, long timeout) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        long deadline = System.currentTimeMillis() + timeout;
+        try {
+            if (!permits.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                result.completeExceptionally(new TimeoutException("Too many pending RPC calls"));
+                return result;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        String correlationId = UUID.randomUUID().toString();
+        pendingCalls.put(correlationId, result);
+        ScheduledFuture<?> timeoutTask = timeoutScheduler.schedule(() -> {
+            if (fail(correlationId, new TimeoutException("No reply received for " + exchangeName + "/" + routingKey
+                    + " in " + timeout + " ms"))) {
+                timeouts.incrementAndGet();
+            }
+        }, Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+        // runs exactly once, whether the call is answered, failed, timed out or cancelled by the caller
+        result.whenComplete((response, throwable) -> {
+            pendingCalls.remove(correlationId);
+            timeoutTask.cancel(false);
+            permits.release();
+        });
+
+        Map<String, Object> headers = new HashMap<>();
+        headers.put("__TypeId__", classType);
+        headers.put("__ContentTypeId__", Object.class.getCanonicalName());
+        headers.put(MessageDeadline.DEADLINE_HEADER, deadline);
+
+        AMQP.BasicProperties props = new AMQP.BasicProperties()
+                .builder()
+                .correlationId(correlationId)
+                .replyTo(DIRECT_REPLY_TO)
+                .contentType("application/json")
+                .headers(headers)
+                .build();
+        try {
+            // channels must not be used for publishing by multiple threads at the same time
+            synchronized (channel) {
+                channel.basicPublish(exchangeName, routingKey, true, props, message.getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException | RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private boolean fail(String correlationId, Throwable cause) {
+        CompletableFuture<String> call = correlationId != null ? pendingCalls.get(correlationId) : null;
+        return call != null && call.completeExceptionally(cause);
+    }
+
+    /**
+     * @return number of calls waiting for a reply
+     */
+    public int getPendingCalls() {
+        return pendingCalls.size();
+    }
+
+    /**
+     * @return number of calls which did not receive reply in time
+     */
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    /**
+     * @return number of replies received after their call timed out
+     */
+    public long getLateReplies() {
+        return lateReplies.get();
+    }
+
+    /**
+     * Closes the channel and fails all pending calls.
+     */
+    public void close() {
+        timeoutScheduler.shutdownNow();
+        try {
+            if (channel.isOpen()) {
+                channel.close();
+            }
+        } catch (IOException | TimeoutException e) {
+            log.warn("Failed to close RPC channel", e);
+        }
+        for (String correlationId : pendingCalls.keySet()) {
+            fail(correlationId, new IOException("RPC client closed"));
+        }
+    }
+}
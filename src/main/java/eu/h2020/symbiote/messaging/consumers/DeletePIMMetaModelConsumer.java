@@ -1,12 +1,11 @@
 package eu.h2020.symbiote.messaging.consumers;
 
-import com.fasterxml.jackson.core.JsonParseException;
-import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rabbitmq.client.AMQP;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.DefaultConsumer;
 import com.rabbitmq.client.Envelope;
+import eu.h2020.symbiote.messaging.DeliveryFailurePolicy;
+import eu.h2020.symbiote.messaging.JsonMessages;
 import eu.h2020.symbiote.messaging.RabbitManager;
 import eu.h2020.symbiote.model.mim.InformationModel;
 import eu.h2020.symbiote.ontology.SemanticManager;
@@ -24,6 +23,7 @@ public class DeletePIMMetaModelConsumer extends DefaultConsumer {
 
     private static Log log = LogFactory.getLog(DeletePIMMetaModelConsumer.class);
     private SemanticManager semanticManager;
+    private DeliveryFailurePolicy failurePolicy;
 
     /**
      * Constructs a new instance and records its association to the passed-in channel.
@@ -34,8 +34,22 @@ public class DeletePIMMetaModelConsumer extends DefaultConsumer {
      */
     public DeletePIMMetaModelConsumer(Channel channel,
                                       SemanticManager semanticManager) {
+        this(channel, semanticManager, new DeliveryFailurePolicy());
+    }
+
+    /**
+     * Constructs a new instance and records its association to the passed-in channel.
+     *
+     * @param channel         the channel to which this consumer is attached
+     * @param semanticManager semantic manager
+     * @param failurePolicy   policy applied when processing of a message fails
+     */
+    public DeletePIMMetaModelConsumer(Channel channel,
+                                      SemanticManager semanticManager,
+                                      DeliveryFailurePolicy failurePolicy) {
         super(channel);
         this.semanticManager = semanticManager;
+        this.failurePolicy = failurePolicy;
     }
 
     /**
@@ -52,24 +66,14 @@ public class DeletePIMMetaModelConsumer extends DefaultConsumer {
     public void handleDelivery(String consumerTag, Envelope envelope,
                                AMQP.BasicProperties properties, byte[] body)
             throws IOException {
-        String msg = new String(body);
-        log.debug( "Consume delete PIM meta model message: " + msg );
+        if (log.isDebugEnabled()) {
+            log.debug("Consume delete PIM meta model message: " + JsonMessages.toString(body));
+        }
 
-        //Try to parse the message
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            InformationModel registerRequest = mapper.readValue(msg, InformationModel.class);
+        failurePolicy.handle(getChannel(), envelope, "Deleting PIM meta model", () -> {
+            InformationModel registerRequest = JsonMessages.INFORMATION_MODEL_READER.readValue(body);
 
             this.semanticManager.deletePIMMetaModel(registerRequest);
-
-            getChannel().basicAck(envelope.getDeliveryTag(),false);
-
-        } catch( JsonParseException | JsonMappingException e ) {
-            log.error("Error occurred when registering new PIM meta model: " + msg, e);
-        } catch( IOException e ) {
-            log.error("I/O Exception occurred when parsing PIM meta model object" , e);
-        } catch( Exception e ) {
-            log.error("Generic error ocurred when handling delivery" , e);
-        }
+        });
     }
 }
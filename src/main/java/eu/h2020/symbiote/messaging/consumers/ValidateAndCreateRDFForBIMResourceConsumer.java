@@ -1,17 +1,19 @@
 package eu.h2020.symbiote.messaging.consumers;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rabbitmq.client.AMQP;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.DefaultConsumer;
 import com.rabbitmq.client.Envelope;
-import eu.h2020.symbiote.core.internal.CoreResourceRegistryRequest;
 import eu.h2020.symbiote.core.internal.DescriptionType;
 import eu.h2020.symbiote.core.internal.ResourceInstanceValidationResult;
+import eu.h2020.symbiote.messaging.DeliveryFailurePolicy;
+import eu.h2020.symbiote.messaging.JsonMessages;
+import eu.h2020.symbiote.messaging.MessageDeadline;
 import eu.h2020.symbiote.messaging.RabbitManager;
 import eu.h2020.symbiote.model.cim.Resource;
 import eu.h2020.symbiote.ontology.SemanticManager;
+import eu.h2020.symbiote.ontology.errors.RequestExpiredException;
+import eu.h2020.symbiote.ontology.utils.RequestDeadline;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -27,6 +29,9 @@ public class ValidateAndCreateRDFForBIMResourceConsumer extends DefaultConsumer
 
     private static Log log = LogFactory.getLog(ValidateAndCreateRDFForBIMResourceConsumer.class);
     private SemanticManager semanticManager;
+    private long requestTimeout;
+    private DeliveryFailurePolicy failurePolicy;
+    private boolean streamingParse;
 
     /**
      * Constructs a new instance and records its association to the passed-in channel.
@@ -37,8 +42,41 @@ public class ValidateAndCreateRDFForBIMResourceConsumer extends DefaultConsumer
      */
     public ValidateAndCreateRDFForBIMResourceConsumer(Channel channel,
                                                       SemanticManager semanticManager) {
+        this(channel, semanticManager, false);
+    }
+
+    /**
+     * Constructs a new instance and records its association to the passed-in channel.
+     *
+     * @param channel         the channel to which this consumer is attached
+     * @param semanticManager semantic manager
+     * @param streamingParse  if resources should be parsed directly from the request body while streaming through the message
+     */
+    public ValidateAndCreateRDFForBIMResourceConsumer(Channel channel,
+                                                      SemanticManager semanticManager,
+                                                      boolean streamingParse) {
+        this(channel, semanticManager, streamingParse, 0, new DeliveryFailurePolicy());
+    }
+
+    /**
+     * Constructs a new instance and records its association to the passed-in channel.
+     *
+     * @param channel         the channel to which this consumer is attached
+     * @param semanticManager semantic manager
+     * @param streamingParse  if resources should be parsed directly from the request body while streaming through the message
+     * @param requestTimeout  time in milliseconds callers wait for the response, see {@link MessageDeadline#of}
+     * @param failurePolicy   policy applied when processing of a message fails
+     */
+    public ValidateAndCreateRDFForBIMResourceConsumer(Channel channel,
+                                                      SemanticManager semanticManager,
+                                                      boolean streamingParse,
+                                                      long requestTimeout,
+                                                      DeliveryFailurePolicy failurePolicy) {
         super(channel);
         this.semanticManager = semanticManager;
+        this.streamingParse = streamingParse;
+        this.requestTimeout = requestTimeout;
+        this.failurePolicy = failurePolicy;
     }
 
     /**
@@ -55,49 +93,56 @@ public class ValidateAndCreateRDFForBIMResourceConsumer extends DefaultConsumer
     public void handleDelivery(String consumerTag, Envelope envelope,
                                AMQP.BasicProperties properties, byte[] body)
             throws IOException {
-        String msg = new String(body);
-        log.debug("Consume validate and create RDF for resource " + msg);
-        ObjectMapper mapper = new ObjectMapper();
+        if (log.isDebugEnabled()) {
+            log.debug("Consume validate and create RDF for resource " + JsonMessages.toString(body));
+        }
         ResourceInstanceValidationResult response = null;
+        RequestDeadline.set(MessageDeadline.of(properties, requestTimeout));
         //Try to parse the message
         try {
+            RequestDeadline.check(RequestDeadline.STAGE_PARSE);
 //            List<Resource> validateAndTranslateRequest = mapper.readValue(msg, new TypeReference<List<Resource>>(){});
 
-            CoreResourceRegistryRequest coreResourceRegistryRequest = mapper.readValue(msg, CoreResourceRegistryRequest.class);
+            JsonMessages.ResourceRegistryRequest coreResourceRegistryRequest = streamingParse
+                    ? JsonMessages.streamResourceRegistryRequest(body)
+                    : JsonMessages.readResourceRegistryRequest(body);
 
-            if (!coreResourceRegistryRequest.getDescriptionType().equals(DescriptionType.BASIC)) {
+            if (!DescriptionType.BASIC.equals(coreResourceRegistryRequest.getDescriptionType())) {
                 log.fatal("Validate and create should only be used by BASIC (JSON) type of description");
                 throw new IllegalArgumentException("Validate and create should only be used by BASIC (JSON) type of description");
             }
 
-            Map<String, Resource> resources = null;
-            resources = mapper.readValue(coreResourceRegistryRequest.getBody(), new TypeReference<Map<String, Resource>>() {
-            });
+            Map<String, Resource> resources = coreResourceRegistryRequest.getResources();
 
             response = this.semanticManager.validateAndCreateBIMResourceToRDF(resources,coreResourceRegistryRequest.getPlatformId(),false);
             //Send the response back to the client
             log.debug("Validation status: " + response.isSuccess() + ", message: " + response.getMessage());
 
 //        } catch( JsonParseException | JsonMappingException e ) {
-//            log.error("Error occurred when parsing Resource object JSON: " + msg, e);
+//            log.error("Error occurred when parsing Resource object JSON: " + JsonMessages.toString(body), e);
 //        } catch( IOException e ) {
 //            log.error("I/O Exception occurred when parsing Resource object" , e);
 //        } catch( PropertyNotFoundException e) {
 //            log.error("Could not find property: " + e.getMessage() , e);
+        } catch (RequestExpiredException e) {
+            response = createResponseForError(e);
+            log.warn("Translation of resources abandoned: " + e.getMessage());
         } catch (Exception e) {
             response = createResponseForError(e);
             log.error("Generic error occurred when handling delivery: " + e.getMessage(), e);
+        } finally {
+            RequestDeadline.clear();
         }
-        byte[] responseBytes = mapper.writeValueAsBytes(response != null ? response : "[]");
+        byte[] responseBytes = JsonMessages.WRITER.writeValueAsBytes(response != null ? response : "[]");
 
         AMQP.BasicProperties replyProps = new AMQP.BasicProperties
                 .Builder()
                 .correlationId(properties.getCorrelationId())
                 .build();
-        this.getChannel().basicPublish("", properties.getReplyTo(), replyProps, responseBytes);
-        log.debug("-> Message was sent back");
-
-        this.getChannel().basicAck(envelope.getDeliveryTag(), false);
+        failurePolicy.handle(getChannel(), envelope, "Sending response of BIM resource translation", () -> {
+            this.getChannel().basicPublish("", properties.getReplyTo(), replyProps, responseBytes);
+            log.debug("-> Message was sent back");
+        });
     }
 
     private ResourceInstanceValidationResult createResponseForError(Exception error) {
@@ -1,7 +1,6 @@
 package eu.h2020.symbiote.messaging.consumers;
 
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rabbitmq.client.AMQP;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.DefaultConsumer;
@@ -10,7 +9,12 @@ import eu.h2020.symbiote.core.internal.CoreResourceRegistryRequest;
 import eu.h2020.symbiote.core.internal.CoreSspResourceRegistryRequest;
 import eu.h2020.symbiote.core.internal.ResourceInstanceValidationResult;
 import eu.h2020.symbiote.model.cim.Resource;
+import eu.h2020.symbiote.messaging.DeliveryFailurePolicy;
+import eu.h2020.symbiote.messaging.JsonMessages;
+import eu.h2020.symbiote.messaging.MessageDeadline;
 import eu.h2020.symbiote.ontology.SemanticManager;
+import eu.h2020.symbiote.ontology.errors.RequestExpiredException;
+import eu.h2020.symbiote.ontology.utils.RequestDeadline;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -26,6 +30,8 @@ public class ValidateAndCreateRDFForSspResourceConsumer extends DefaultConsumer
 
     private static Log log = LogFactory.getLog(ValidateAndCreateRDFForSspResourceConsumer.class);
     private SemanticManager semanticManager;
+    private long requestTimeout;
+    private DeliveryFailurePolicy failurePolicy;
 
     /**
      * Constructs a new instance and records its association to the passed-in channel.
@@ -36,8 +42,25 @@ public class ValidateAndCreateRDFForSspResourceConsumer extends DefaultConsumer
      */
     public ValidateAndCreateRDFForSspResourceConsumer(Channel channel,
                                                       SemanticManager semanticManager) {
+        this(channel, semanticManager, 0, new DeliveryFailurePolicy());
+    }
+
+    /**
+     * Constructs a new instance and records its association to the passed-in channel.
+     *
+     * @param channel         the channel to which this consumer is attached
+     * @param semanticManager semantic manager
+     * @param requestTimeout  time in milliseconds callers wait for the response, see {@link MessageDeadline#of}
+     * @param failurePolicy   policy applied when processing of a message fails
+     */
+    public ValidateAndCreateRDFForSspResourceConsumer(Channel channel,
+                                                      SemanticManager semanticManager,
+                                                      long requestTimeout,
+                                                      DeliveryFailurePolicy failurePolicy) {
         super(channel);
         this.semanticManager = semanticManager;
+        this.requestTimeout = requestTimeout;
+        this.failurePolicy = failurePolicy;
     }
 
     /**
@@ -54,14 +77,16 @@ public class ValidateAndCreateRDFForSspResourceConsumer extends DefaultConsumer
     public void handleDelivery(String consumerTag, Envelope envelope,
                                AMQP.BasicProperties properties, byte[] body)
             throws IOException {
-        String msg = new String(body);
-        log.debug("Consume validate and create RDF for ssp resource " + msg);
-        ObjectMapper mapper = new ObjectMapper();
+        if (log.isDebugEnabled()) {
+            log.debug("Consume validate and create RDF for ssp resource " + JsonMessages.toString(body));
+        }
         ResourceInstanceValidationResult response = null;
+        RequestDeadline.set(MessageDeadline.of(properties, requestTimeout));
         //Try to parse the message
         try {
+            RequestDeadline.check(RequestDeadline.STAGE_PARSE);
 
-            CoreSspResourceRegistryRequest coreResourceRegistryRequest = mapper.readValue(msg, CoreSspResourceRegistryRequest.class);
+            CoreSspResourceRegistryRequest coreResourceRegistryRequest = JsonMessages.SSP_RESOURCE_REGISTRY_REQUEST_READER.readValue(body);
 
 //
 //            Map<String, Resource> resources = null;
@@ -73,25 +98,30 @@ public class ValidateAndCreateRDFForSspResourceConsumer extends DefaultConsumer
             log.debug("Validation status: " + response.isSuccess() + ", message: " + response.getMessage());
 
 //        } catch( JsonParseException | JsonMappingException e ) {
-//            log.error("Error occurred when parsing Resource object JSON: " + msg, e);
+//            log.error("Error occurred when parsing Resource object JSON: " + JsonMessages.toString(body), e);
 //        } catch( IOException e ) {
 //            log.error("I/O Exception occurred when parsing Resource object" , e);
 //        } catch( PropertyNotFoundException e) {
 //            log.error("Could not find property: " + e.getMessage() , e);
+        } catch (RequestExpiredException e) {
+            response = createResponseForError(e);
+            log.warn("Translation of resources abandoned: " + e.getMessage());
         } catch (Exception e) {
             response = createResponseForError(e);
             log.error("Generic error occurred when handling delivery", e);
+        } finally {
+            RequestDeadline.clear();
         }
-        byte[] responseBytes = mapper.writeValueAsBytes(response != null ? response : "[]");
+        byte[] responseBytes = JsonMessages.WRITER.writeValueAsBytes(response != null ? response : "[]");
 
         AMQP.BasicProperties replyProps = new AMQP.BasicProperties
                 .Builder()
                 .correlationId(properties.getCorrelationId())
                 .build();
-        this.getChannel().basicPublish("", properties.getReplyTo(), replyProps, responseBytes);
-        log.debug("-> Message was sent back");
-
-        this.getChannel().basicAck(envelope.getDeliveryTag(), false);
+        failurePolicy.handle(getChannel(), envelope, "Sending response of SSP resource translation", () -> {
+            this.getChannel().basicPublish("", properties.getReplyTo(), replyProps, responseBytes);
+            log.debug("-> Message was sent back");
+        });
     }
 
     private ResourceInstanceValidationResult createResponseForError(Exception error) {
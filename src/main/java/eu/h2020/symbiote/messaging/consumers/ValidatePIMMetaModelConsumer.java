@@ -1,16 +1,18 @@
 package eu.h2020.symbiote.messaging.consumers;
 
-import com.fasterxml.jackson.core.JsonParseException;
-import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rabbitmq.client.AMQP;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.DefaultConsumer;
 import com.rabbitmq.client.Envelope;
 import eu.h2020.symbiote.core.internal.InformationModelValidationResult;
+import eu.h2020.symbiote.messaging.DeliveryFailurePolicy;
+import eu.h2020.symbiote.messaging.JsonMessages;
+import eu.h2020.symbiote.messaging.MessageDeadline;
 import eu.h2020.symbiote.messaging.RabbitManager;
 import eu.h2020.symbiote.model.mim.InformationModel;
 import eu.h2020.symbiote.ontology.SemanticManager;
+import eu.h2020.symbiote.ontology.errors.RequestExpiredException;
+import eu.h2020.symbiote.ontology.utils.RequestDeadline;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -25,6 +27,8 @@ public class ValidatePIMMetaModelConsumer extends DefaultConsumer {
 
     private static Log log = LogFactory.getLog(ValidatePIMMetaModelConsumer.class);
     private SemanticManager semanticManager;
+    private long requestTimeout;
+    private DeliveryFailurePolicy failurePolicy;
 
     /**
      * Constructs a new instance and records its association to the passed-in channel.
@@ -35,8 +39,25 @@ public class ValidatePIMMetaModelConsumer extends DefaultConsumer {
      */
     public ValidatePIMMetaModelConsumer(Channel channel,
                                         SemanticManager semanticManager) {
+        this(channel, semanticManager, 0, new DeliveryFailurePolicy());
+    }
+
+    /**
+     * Constructs a new instance and records its association to the passed-in channel.
+     *
+     * @param channel         the channel to which this consumer is attached
+     * @param semanticManager semantic manager
+     * @param requestTimeout  time in milliseconds callers wait for the response, see {@link MessageDeadline#of}
+     * @param failurePolicy   policy applied when processing of a message fails
+     */
+    public ValidatePIMMetaModelConsumer(Channel channel,
+                                        SemanticManager semanticManager,
+                                        long requestTimeout,
+                                        DeliveryFailurePolicy failurePolicy) {
         super(channel);
         this.semanticManager = semanticManager;
+        this.requestTimeout = requestTimeout;
+        this.failurePolicy = failurePolicy;
     }
 
     /**
@@ -53,35 +74,39 @@ public class ValidatePIMMetaModelConsumer extends DefaultConsumer {
     public void handleDelivery(String consumerTag, Envelope envelope,
                                AMQP.BasicProperties properties, byte[] body)
             throws IOException {
-        String msg = new String(body);
-        log.debug( "Consume validate PIM meta model message: " + msg );
+        if (log.isDebugEnabled()) {
+            log.debug("Consume validate PIM meta model message: " + JsonMessages.toString(body));
+        }
 
-        //Try to parse the message
+        RequestDeadline.set(MessageDeadline.of(properties, requestTimeout));
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            InformationModel validateRequest = mapper.readValue(msg, InformationModel.class);
-
-            InformationModelValidationResult response = this.semanticManager.validatePIMMetaModel(validateRequest);
-            //Send the response back to the client
-            log.debug( "Validation status: " + response.isSuccess() + ", message: " + response.getMessage());
-
-            byte[] responseBytes = mapper.writeValueAsBytes(response!=null?response:"[]");
+            failurePolicy.handle(getChannel(), envelope, "Validating PIM meta model", () -> {
+                InformationModelValidationResult response;
+                try {
+                    RequestDeadline.check(RequestDeadline.STAGE_PARSE);
+                    InformationModel validateRequest = JsonMessages.INFORMATION_MODEL_READER.readValue(body);
 
-            AMQP.BasicProperties replyProps = new AMQP.BasicProperties
-                    .Builder()
-                    .correlationId(properties.getCorrelationId())
-                    .build();
-            this.getChannel().basicPublish("", properties.getReplyTo(), replyProps, responseBytes);
-            log.debug("-> Message was sent back");
+                    response = this.semanticManager.validatePIMMetaModel(validateRequest);
+                } catch (RequestExpiredException e) {
+                    log.warn("Validation of PIM meta model abandoned: " + e.getMessage());
+                    response = new InformationModelValidationResult();
+                    response.setSuccess(false);
+                    response.setMessage(e.getMessage());
+                }
+                //Send the response back to the client
+                log.debug( "Validation status: " + response.isSuccess() + ", message: " + response.getMessage());
 
-            this.getChannel().basicAck(envelope.getDeliveryTag(), false);
+                byte[] responseBytes = JsonMessages.WRITER.writeValueAsBytes(response!=null?response:"[]");
 
-        } catch( JsonParseException | JsonMappingException e ) {
-            log.error("Error occurred when parsing Resource object JSON: " + msg, e);
-        } catch( IOException e ) {
-            log.error("I/O Exception occurred when parsing Resource object" , e);
-        } catch( Exception e ) {
-            log.error("Generic error ocurred when handling delivery" , e);
+                AMQP.BasicProperties replyProps = new AMQP.BasicProperties
+                        .Builder()
+                        .correlationId(properties.getCorrelationId())
+                        .build();
+                this.getChannel().basicPublish("", properties.getReplyTo(), replyProps, responseBytes);
+                log.debug("-> Message was sent back");
+            });
+        } finally {
+            RequestDeadline.clear();
         }
     }
 }
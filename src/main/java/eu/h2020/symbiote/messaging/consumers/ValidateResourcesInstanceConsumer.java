@@ -1,8 +1,6 @@
 package eu.h2020.symbiote.messaging.consumers;
 
-import com.fasterxml.jackson.core.JsonParseException;
-import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.rabbitmq.client.AMQP;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.DefaultConsumer;
@@ -10,8 +8,13 @@ import com.rabbitmq.client.Envelope;
 import eu.h2020.symbiote.core.internal.CoreResourceRegistryRequest;
 import eu.h2020.symbiote.core.internal.ResourceInstanceValidationRequest;
 import eu.h2020.symbiote.core.internal.ResourceInstanceValidationResult;
+import eu.h2020.symbiote.messaging.DeliveryFailurePolicy;
+import eu.h2020.symbiote.messaging.JsonMessages;
+import eu.h2020.symbiote.messaging.MessageDeadline;
 import eu.h2020.symbiote.messaging.RabbitManager;
 import eu.h2020.symbiote.ontology.SemanticManager;
+import eu.h2020.symbiote.ontology.errors.RequestExpiredException;
+import eu.h2020.symbiote.ontology.utils.RequestDeadline;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -26,6 +29,8 @@ public class ValidateResourcesInstanceConsumer extends DefaultConsumer {
 
     private static Log log = LogFactory.getLog(ValidateResourcesInstanceConsumer.class);
     private SemanticManager semanticManager;
+    private long requestTimeout;
+    private DeliveryFailurePolicy failurePolicy;
 
     /**
      * Constructs a new instance and records its association to the passed-in channel.
@@ -36,8 +41,25 @@ public class ValidateResourcesInstanceConsumer extends DefaultConsumer {
      */
     public ValidateResourcesInstanceConsumer(Channel channel,
                                              SemanticManager semanticManager) {
+        this(channel, semanticManager, 0, new DeliveryFailurePolicy());
+    }
+
+    /**
+     * Constructs a new instance and records its association to the passed-in channel.
+     *
+     * @param channel         the channel to which this consumer is attached
+     * @param semanticManager semantic manager
+     * @param requestTimeout  time in milliseconds callers wait for the response, see {@link MessageDeadline#of}
+     * @param failurePolicy   policy applied when processing of a message fails
+     */
+    public ValidateResourcesInstanceConsumer(Channel channel,
+                                             SemanticManager semanticManager,
+                                             long requestTimeout,
+                                             DeliveryFailurePolicy failurePolicy) {
         super(channel);
         this.semanticManager = semanticManager;
+        this.requestTimeout = requestTimeout;
+        this.failurePolicy = failurePolicy;
     }
 
     /**
@@ -54,44 +76,48 @@ public class ValidateResourcesInstanceConsumer extends DefaultConsumer {
     public void handleDelivery(String consumerTag, Envelope envelope,
                                AMQP.BasicProperties properties, byte[] body)
             throws IOException {
-        String msg = new String(body);
-        log.debug( "Consume validate resource instance message: " + msg );
+        if (log.isDebugEnabled()) {
+            log.debug("Consume validate resource instance message: " + JsonMessages.toString(body));
+        }
 
-        //Try to parse the message
+        RequestDeadline.set(MessageDeadline.of(properties, requestTimeout));
         try {
-            ObjectMapper mapper = new ObjectMapper();
-//            CoreResourceRegistryRequest validateRequest = mapper.readValue(msg, CoreResourceRegistryRequest.class);
-
-            ResourceInstanceValidationRequest validateRequest = mapper.readValue(msg, ResourceInstanceValidationRequest.class);
-            ResourceInstanceValidationResult response = null;
-            try {
-                response = semanticManager.validateResourcesInstance(validateRequest);
-                //Send the response back to the client
-                log.debug("Validation status: " + response.isSuccess() + ", message: " + response.getMessage() + " resources size: " + response.getObjectDescription().size());
-            } catch( Exception e ) {
-                log.error( "Error occurred during validating resources " + e.getMessage(), e );
-                response = new ResourceInstanceValidationResult();
-                response.setSuccess(false);
-                response.setMessage( "Error occurred during validating resources " + e.getMessage() );
-            }
-
-            byte[] responseBytes = mapper.writeValueAsBytes(response!=null?response:"[]");
+            failurePolicy.handle(getChannel(), envelope, "Validating resource instance", () -> {
+//                CoreResourceRegistryRequest validateRequest = mapper.readValue(msg, CoreResourceRegistryRequest.class);
 
-            AMQP.BasicProperties replyProps = new AMQP.BasicProperties
-                    .Builder()
-                    .correlationId(properties.getCorrelationId())
-                    .build();
-            this.getChannel().basicPublish("", properties.getReplyTo(), replyProps, responseBytes);
-            log.debug("-> Message was sent back");
+                ResourceInstanceValidationResult response = null;
+                try {
+                    RequestDeadline.check(RequestDeadline.STAGE_PARSE);
+                    ResourceInstanceValidationRequest validateRequest = JsonMessages.RESOURCE_VALIDATION_REQUEST_READER.readValue(body);
+                    response = semanticManager.validateResourcesInstance(validateRequest);
+                    //Send the response back to the client
+                    log.debug("Validation status: " + response.isSuccess() + ", message: " + response.getMessage() + " resources size: " + response.getObjectDescription().size());
+                } catch( RequestExpiredException e ) {
+                    log.warn("Validation of resources abandoned: " + e.getMessage());
+                    response = new ResourceInstanceValidationResult();
+                    response.setSuccess(false);
+                    response.setMessage(e.getMessage());
+                } catch( JsonProcessingException e ) {
+                    // message can not be parsed, handled by failure policy
+                    throw e;
+                } catch( Exception e ) {
+                    log.error( "Error occurred during validating resources " + e.getMessage(), e );
+                    response = new ResourceInstanceValidationResult();
+                    response.setSuccess(false);
+                    response.setMessage( "Error occurred during validating resources " + e.getMessage() );
+                }
 
-            this.getChannel().basicAck(envelope.getDeliveryTag(), false);
+                byte[] responseBytes = JsonMessages.WRITER.writeValueAsBytes(response!=null?response:"[]");
 
-        } catch( JsonParseException | JsonMappingException e ) {
-            log.error("Error occurred when parsing Resource object JSON: " + msg, e);
-        } catch( IOException e ) {
-            log.error("I/O Exception occurred when parsing Resource object" , e);
-        } catch( Exception e ) {
-            log.error("Generic error ocurred when handling delivery" , e);
+                AMQP.BasicProperties replyProps = new AMQP.BasicProperties
+                        .Builder()
+                        .correlationId(properties.getCorrelationId())
+                        .build();
+                this.getChannel().basicPublish("", properties.getReplyTo(), replyProps, responseBytes);
+                log.debug("-> Message was sent back");
+            });
+        } finally {
+            RequestDeadline.clear();
         }
     }
 }
@@ -1,18 +1,25 @@
 package eu.h2020.symbiote.ontology;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import eu.h2020.symbiote.core.internal.*;
 import eu.h2020.symbiote.model.cim.Resource;
 import eu.h2020.symbiote.model.mim.InformationModel;
 import eu.h2020.symbiote.ontology.errors.PropertyNotFoundException;
 import eu.h2020.symbiote.ontology.errors.RDFGenerationError;
 import eu.h2020.symbiote.ontology.errors.RDFParsingError;
+import eu.h2020.symbiote.ontology.errors.RequestExpiredException;
+import eu.h2020.symbiote.ontology.utils.BoundedCache;
+import eu.h2020.symbiote.ontology.utils.ContentHash;
+import eu.h2020.symbiote.ontology.utils.FairPermitGate;
 import eu.h2020.symbiote.ontology.utils.GenerationResult;
 import eu.h2020.symbiote.ontology.utils.RDFGenerator;
 import eu.h2020.symbiote.ontology.utils.RDFReader;
+import eu.h2020.symbiote.ontology.utils.RequestDeadline;
 import eu.h2020.symbiote.ontology.utils.SymbioteModelsUtil;
+import eu.h2020.symbiote.ontology.validation.CardinalityConstraintIndex;
+import eu.h2020.symbiote.ontology.validation.PimValidationView;
 import eu.h2020.symbiote.ontology.validation.ValidationHelper;
 import eu.h2020.symbiote.semantics.ModelHelper;
+import eu.h2020.symbiote.utils.LocationResolver;
 import eu.h2020.symbiote.semantics.ontology.CIM;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
@@ -24,11 +31,19 @@ import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.RDFNode;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Main class for handling validation and translation. All RDF-related tasks are
@@ -45,9 +60,169 @@ public class SemanticManager {
 
     private final RDFGenerator rdfGenerator;
 
+    @Value("${semantic.validation.pimValidationCache.size:64}")
+    private int pimValidationCacheSize = 64;
+
+    @Value("${semantic.validation.pimValidationCache.ttl:3600000}")
+    private long pimValidationCacheTtl = 3600000;
+
+    @Value("${semantic.validation.parsedModelCache.size:4}")
+    private int parsedModelCacheSize = 4;
+
+    @Value("${semantic.validation.parsedModelCache.ttl:60000}")
+    private long parsedModelCacheTtl = 60000;
+
+    @Value("${semantic.validation.inferenceModelCache.size:16}")
+    private int inferenceModelCacheSize = 16;
+
+    @Value("${semantic.validation.inferenceModelCache.ttl:0}")
+    private long inferenceModelCacheTtl = 0;
+
+    /**
+     * Number of threads used to validate resources of a single request, values
+     * lower than 2 mean resources are validated sequentially.
+     */
+    @Value("${semantic.validation.parallelism:1}")
+    private int validationParallelism = 1;
+
+    private ForkJoinPool validationPool;
+
+    /**
+     * Number of resources of a registration translated in one turn. Large
+     * registrations are translated in sub-batches of this size, so that
+     * registrations of other platforms and SSPs can be interleaved.
+     */
+    @Value("${semantic.translation.subBatchSize:200}")
+    private int translationSubBatchSize = 200;
+
+    /**
+     * Number of sub-batches translated at the same time, values lower than 1
+     * mean the number of available processors. Fair scheduling applies when
+     * more registrations are consumed concurrently than there are permits,
+     * which is the case with default concurrency of translation consumers.
+     */
+    @Value("${semantic.translation.permits:0}")
+    private int translationPermits = 0;
+
+    /**
+     * Hands out translation turns to platforms and SSPs in round-robin order.
+     */
+    private FairPermitGate translationGate;
+
+    /**
+     * Number of threads used to generate RDF for resources of a sub-batch,
+     * values lower than 2 mean RDF is generated sequentially.
+     */
+    @Value("${semantic.translation.parallelism:1}")
+    private int translationParallelism = 1;
+
+    private ForkJoinPool translationPool;
+
+    /**
+     * Inference-enabled PIMs (including imports) keyed by information model id.
+     * Cached models are shared between requests, so any code querying them
+     * directly has to synchronize on the model.
+     */
+    private final BoundedCache<String, PimValidationView> inferenceModelCache;
+
+    /**
+     * Outcomes of PIM meta model validation keyed by hash of the RDF, its format
+     * and the CIM version. Cached results do not contain the model description,
+     * successful ones keep the parsed PIM.
+     */
+    private final BoundedCache<String, PimValidationOutcome> pimValidationCache;
+
+    /**
+     * PIMs parsed during successful validation keyed by hash of the RDF and its
+     * format, kept for a short time so that the registration following the
+     * validation does not need to parse the RDF again. Models are put on every
+     * successful validation, including ones answered from cache, and shared with
+     * the validation outcomes, so a copy is handed over to a single registration.
+     */
+    private final BoundedCache<String, Model> parsedModelCache;
+
+    /**
+     * Outcome of PIM meta model validation together with the parsed PIM,
+     * which must not be modified.
+     */
+    private static final class PimValidationOutcome {
+        private final InformationModelValidationResult result;
+        private final Model parsedModel;
+
+        private PimValidationOutcome(InformationModelValidationResult result, Model parsedModel) {
+            this.result = result;
+            this.parsedModel = parsedModel;
+        }
+    }
+
     @Autowired
     public SemanticManager( RDFGenerator rdfGenerator ) {
         this.rdfGenerator = rdfGenerator;
+        this.inferenceModelCache = new BoundedCache<>(inferenceModelCacheSize, inferenceModelCacheTtl);
+        this.pimValidationCache = new BoundedCache<>(pimValidationCacheSize, pimValidationCacheTtl);
+        this.parsedModelCache = new BoundedCache<>(parsedModelCacheSize, parsedModelCacheTtl);
+        this.translationGate = createTranslationGate();
+    }
+
+    @PostConstruct
+    public void init() {
+        inferenceModelCache.setMaxSize(inferenceModelCacheSize);
+        inferenceModelCache.setTimeToLiveMillis(inferenceModelCacheTtl);
+        pimValidationCache.setMaxSize(pimValidationCacheSize);
+        pimValidationCache.setTimeToLiveMillis(pimValidationCacheTtl);
+        parsedModelCache.setMaxSize(parsedModelCacheSize);
+        parsedModelCache.setTimeToLiveMillis(parsedModelCacheTtl);
+        translationGate = createTranslationGate();
+        if (validationParallelism > 1) {
+            log.info("Resources will be validated using " + validationParallelism + " threads");
+            validationPool = new ForkJoinPool(validationParallelism);
+        }
+        if (translationParallelism > 1) {
+            log.info("RDF of resources will be generated using " + translationParallelism + " threads");
+            translationPool = new ForkJoinPool(translationParallelism);
+        }
+    }
+
+    private FairPermitGate createTranslationGate() {
+        return new FairPermitGate(translationPermits > 0 ? translationPermits : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (validationPool != null) {
+            validationPool.shutdown();
+        }
+        if (translationPool != null) {
+            translationPool.shutdown();
+        }
+    }
+
+    /**
+     * @return cache of inference-enabled PIMs, exposing hit/miss/eviction counters
+     */
+    public BoundedCache<String, PimValidationView> getInferenceModelCache() {
+        return inferenceModelCache;
+    }
+
+    /**
+     * @return cache of PIM meta model validation outcomes, exposing hit/miss/eviction counters
+     */
+    public BoundedCache<String, ?> getPimValidationCache() {
+        return pimValidationCache;
+    }
+
+    /**
+     * @return cache of PIMs parsed during validation, exposing hit/miss/eviction counters
+     */
+    public BoundedCache<String, Model> getParsedModelCache() {
+        return parsedModelCache;
+    }
+
+    /**
+     * @return gate scheduling translation of resources, exposing number of waiting platforms and SSPs
+     */
+    public FairPermitGate getTranslationGate() {
+        return translationGate;
     }
 
 //    private static SemanticManager manager = null;
@@ -83,9 +258,63 @@ public class SemanticManager {
      *
      * @param request Request containing RDF.
      * @return result of the meta model validation.
+     * @throws RequestExpiredException if the deadline of the request passed before an expensive stage
      */
     public InformationModelValidationResult validatePIMMetaModel(InformationModel request) {
         log.info("Validating PIM meta model " + request.getRdf().substring(0, 30) + " ... ");
+        String contentHash = ContentHash.sha256(request.getRdf(), String.valueOf(request.getRdfFormat()), CIM.getURI());
+        InformationModelValidationResult outcome;
+        try {
+            PimValidationOutcome validation = pimValidationCache.get(contentHash, x -> validatePIMMetaModelContent(request));
+            outcome = validation.result;
+            if (validation.parsedModel != null) {
+                // handed over to the registration following the validation, also if the outcome was cached
+                parsedModelCache.put(getParsedModelKey(request), validation.parsedModel);
+            }
+        } catch (IOException ex) {
+            // failures to load imports may be temporary, so they are not cached
+            outcome = new InformationModelValidationResult();
+            outcome.setSuccess(false);
+            outcome.setMessage("enabling inference on PIM failed! Reason: " + ex.getMessage());
+        }
+
+        InformationModelValidationResult result = new InformationModelValidationResult();
+        result.setSuccess(outcome.isSuccess());
+        result.setMessage(outcome.getMessage());
+        result.setModelValidatedAgainst(outcome.getModelValidatedAgainst());
+        result.setModelValidated(outcome.getModelValidated());
+        if (outcome.isSuccess()) {
+            InformationModel modelInfo = new InformationModel();
+
+            modelInfo.setRdf(request.getRdf()); //Original one or modified one if there is some updates needed (unique id?)
+            modelInfo.setRdfFormat(request.getRdfFormat());
+            String modelId = String.valueOf(ObjectId.get());
+            log.debug("Generating id for the ontology model: " + modelId);
+//        modelInfo.setUri("http://www.symbiote-h2020.eu/ontology/pim/" + modelId);
+            log.debug("Using passed uri of the model: " + request.getUri());
+            modelInfo.setUri(request.getUri());
+            modelInfo.setId(modelId);
+            modelInfo.setOwner(request.getOwner());
+            modelInfo.setName(request.getName());
+
+            result.setObjectDescription(modelInfo);
+        }
+
+        log.info("Validation ended with status: " + (result.isSuccess() ? "valid" : "not valid: " + result.getMessage()));
+
+        return result;
+    }
+
+    /**
+     * Runs all checks of the PIM meta model. Result depends only on the RDF,
+     * its format and the CIM version and does not contain description of the
+     * model, so it can be reused for requests with the same content.
+     *
+     * @param request Request containing RDF.
+     * @return result of the meta model validation without object description, with the parsed PIM if it is valid
+     * @throws IOException if imports of the PIM could not be loaded
+     */
+    private PimValidationOutcome validatePIMMetaModelContent(InformationModel request) throws IOException {
         InformationModelValidationResult result = new InformationModelValidationResult();
 
         /*                                    
@@ -93,27 +322,29 @@ public class SemanticManager {
             - check all definitions are within namespace?
          */
         // 1. check for valid RDF
+        RequestDeadline.check(RequestDeadline.STAGE_PARSE);
         OntModel pim;
         try {
             pim = ModelHelper.readModel(request, false, false);
         } catch (IOException ex) {
             result.setSuccess(false);
             result.setMessage("PIM could not be parsed! Reason: " + ex);
-            return result;
+            return new PimValidationOutcome(result, null);
         }
+        Model parsedModel = pim.getBaseModel();
         // 2. check exactly one owl:Ontology
         Set<String> ontologyDefinitions = ModelHelper.getOntologyDefinitionsURI(pim);
         if (ontologyDefinitions.size() != 1) {
             result.setSuccess(false);
             result.setMessage("PIM must contain exactly one owl:Ontology");
-            return result;
+            return new PimValidationOutcome(result, null);
         }
         String ontologyURI = ontologyDefinitions.iterator().next();
         // 3. check imports core
         if (!ValidationHelper.checkImportsCIM(pim)) {
             result.setSuccess(false);
             result.setMessage("PIM must import CIM directly (using owl:imports)");
-            return result;
+            return new PimValidationOutcome(result, null);
         }
         // 4. check if any definitions were made in CIM namespace
         Set<String> resourcesDefinedInCIMNamespace = ValidationHelper.getDefinedResourcesInNamespace(pim, CIM.NS);
@@ -122,18 +353,13 @@ public class SemanticManager {
             result.setMessage("PIM is not allowed to define Resources within the CIM namespace! Found resources: "
                     + System.lineSeparator()
                     + StringUtils.join(resourcesDefinedInCIMNamespace, System.lineSeparator()));
-            return result;
+            return new PimValidationOutcome(result, null);
         }
 
         // for all further steps we need inference and the imports to be loaded
+        RequestDeadline.check(RequestDeadline.STAGE_INFERENCE);
         pim = ModelHelper.withInf(pim);
-        try {
-            ModelHelper.loadImports(pim);
-        } catch (IOException ex) {
-            result.setSuccess(false);
-            result.setMessage("enabling inference on PIM failed! Reason: " + ex.getMessage());
-            return result;
-        }
+        ModelHelper.loadImports(pim);
         // 5. check only declared classes used
         Set<String> undefinedButUsedClasses = ValidationHelper.getUndefinedButUsedClasses(pim);
         if (undefinedButUsedClasses.size() > 0) {
@@ -142,7 +368,7 @@ public class SemanticManager {
                     undefinedButUsedClasses.size(),
                     System.lineSeparator(),
                     undefinedButUsedClasses));
-            return result;
+            return new PimValidationOutcome(result, null);
         }
         // 6. use OWL profile validation provided by Jena
         // TODO fix CIM/BIM to pass OWL validation - to be done in R4
@@ -153,7 +379,7 @@ public class SemanticManager {
 //                    + StreamHelper.stream(report.getReports())
 //                            .map(x -> x.toString())
 //                            .collect(Collectors.joining(System.lineSeparator())));
-//            return result;
+//            return new PimValidationOutcome(result, null);
 //        }
         System.out.println("---> PIM has no validation errors");
 
@@ -161,24 +387,27 @@ public class SemanticManager {
         result.setMessage("Validation successful");
         result.setModelValidatedAgainst(CIM.getURI());
         result.setModelValidated(ontologyURI);
-        InformationModel modelInfo = new InformationModel();
-
-        modelInfo.setRdf(request.getRdf()); //Original one or modified one if there is some updates needed (unique id?)
-        modelInfo.setRdfFormat(request.getRdfFormat());
-        String modelId = String.valueOf(ObjectId.get());
-        log.debug("Generating id for the ontology model: " + modelId);
-//        modelInfo.setUri("http://www.symbiote-h2020.eu/ontology/pim/" + modelId);
-        log.debug("Using passed uri of the model: " + request.getUri());
-        modelInfo.setUri(request.getUri());
-        modelInfo.setId(modelId);
-        modelInfo.setOwner(request.getOwner());
-        modelInfo.setName(request.getName());
-
-        result.setObjectDescription(modelInfo);
+        return new PimValidationOutcome(result, parsedModel);
+    }
 
-        log.info("Validation ended with status: " + (result.isSuccess() ? "valid" : "not valid: " + result.getMessage()));
+    private static String getParsedModelKey(InformationModel model) {
+        return ContentHash.sha256(model.getRdf(), String.valueOf(model.getRdfFormat()));
+    }
 
-        return result;
+    /**
+     * @return copy of the model parsed during validation of the same RDF or <code>null</code> if there is none
+     */
+    private Model takeParsedModel(InformationModel model) {
+        Model parsedModel = parsedModelCache.remove(getParsedModelKey(model));
+        if (parsedModel == null) {
+            return null;
+        }
+        log.debug("Reusing PIM parsed during validation for model " + model.getId());
+        // parsed model is shared with the cached validation outcome
+        Model copy = ModelFactory.createDefaultModel();
+        copy.setNsPrefixes(parsedModel.getNsPrefixMap());
+        copy.add(parsedModel);
+        return copy;
     }
 
     /**
@@ -190,7 +419,8 @@ public class SemanticManager {
      */
     public void registerNewPIMMetaModel(InformationModel pimMetaModel) {
         log.info("Registering new PIM meta model " + pimMetaModel.getUri());
-        SymbioteModelsUtil.addModels(Arrays.asList(pimMetaModel));
+        SymbioteModelsUtil.addModels(Arrays.asList(pimMetaModel), this::takeParsedModel);
+        inferenceModelCache.invalidate(pimMetaModel.getId());
 
     }
 
@@ -203,6 +433,7 @@ public class SemanticManager {
     public void deletePIMMetaModel(InformationModel pimMetaModel) {
         log.info("Deleting PIM meta model " + pimMetaModel.getUri());
         SymbioteModelsUtil.removeModels(Arrays.asList(pimMetaModel));
+        inferenceModelCache.invalidate(pimMetaModel.getId());
 
     }
 
@@ -214,7 +445,8 @@ public class SemanticManager {
      */
     public void modifyPIMMetaModel(InformationModel pimMetaModel) {
         log.info("Modifying PIM meta model " + pimMetaModel.getUri());
-        SymbioteModelsUtil.modifyModels(Arrays.asList(pimMetaModel));
+        SymbioteModelsUtil.modifyModels(Arrays.asList(pimMetaModel), this::takeParsedModel);
+        inferenceModelCache.invalidate(pimMetaModel.getId());
 
     }
 
@@ -373,6 +605,7 @@ public class SemanticManager {
      * @param request Request containing RDF to be validated
      * @return Validation result as well as list of resources which were found
      * in the rdf model.
+     * @throws RequestExpiredException if the deadline of the request passed before an expensive stage
      */
     public ResourceInstanceValidationResult validateResourcesInstance(ResourceInstanceValidationRequest request) {
         log.info("Validating Resource instance ... ");
@@ -388,7 +621,6 @@ public class SemanticManager {
         3. check classes of instances are present
         4. check multiplicity constraints of core predicates
          */
-        ObjectMapper mapper = new ObjectMapper();
 //        ResourceInstanceValidationRequest rdfRequest;
 //        try {
 //            rdfRequest = mapper.readValue(request.getBody(), ResourceInstanceValidationRequest.class);
@@ -401,6 +633,7 @@ public class SemanticManager {
         ResourceInstanceValidationResult result = new ResourceInstanceValidationResult();
         result.setModelValidated(request.getRdf());
 
+        RequestDeadline.check(RequestDeadline.STAGE_PARSE);
         OntModel instances = null;
         try {
             instances = ModelHelper.readModel(request.getRdf(), request.getRdfFormat(), false, false);
@@ -437,8 +670,7 @@ public class SemanticManager {
         }
 
         // load PIM
-        Model loadedPIM = SymbioteModelsUtil.findInformationModelById(request.getInformationModelId());
-        if (loadedPIM == null || loadedPIM.isEmpty()) {
+        if (!SymbioteModelsUtil.hasInformationModel(request.getInformationModelId())) {
             String message = "PIM with id '" + request.getInformationModelId() + "' could not be loaded";
             log.info(message);
             result.setSuccess(false);
@@ -446,67 +678,38 @@ public class SemanticManager {
             return result;
         }
         // from now on we need inference
-        OntModel pim;
+        RequestDeadline.check(RequestDeadline.STAGE_INFERENCE);
+        PimValidationView pimView;
         try {
-            pim = ModelHelper.asOntModel(loadedPIM, true, true);
+            pimView = inferenceModelCache.get(request.getInformationModelId(),
+                    x -> new PimValidationView(ModelHelper.asOntModel(SymbioteModelsUtil.findInformationModelById(x), true, true)));
         } catch (IOException ex) {
             result.setSuccess(false);
             result.setMessage("enabling inference on PIM failed! Reason: " + ex.getMessage());
             return result;
         }
 
-        instances = ModelHelper.withInf(instances);
-
-        Map<org.apache.jena.rdf.model.Resource, Model> rdfResources = ValidationHelper.sepearteResources(instances, pim);
+        RequestDeadline.check(RequestDeadline.STAGE_CLOSURE);
+        Map<org.apache.jena.rdf.model.Resource, Model> rdfResources = ValidationHelper.sepearteResources(instances.getBaseModel(), pimView);
         if (rdfResources.isEmpty()) {
             result.setSuccess(false);
             result.setMessage("provided RDF does not contain any resource information");
             return result;
         }
+        // constraints compiled at registration time, if not available SPARQL queries are used
+        CardinalityConstraintIndex constraints = SymbioteModelsUtil.findCardinalityConstraintsById(request.getInformationModelId());
+        log.debug("Parsing resource map, size: " + rdfResources.size());
+        RequestDeadline.check(RequestDeadline.STAGE_CARDINALITY);
+        List<ResourceValidation> validations = validateResources(rdfResources, pimView, constraints, request.getRdfFormat());
         Map<String, CoreResource> resources = new HashMap<>();
         StringBuilder instanceResults = new StringBuilder();
-        log.debug("Parsing resource map, size: " + rdfResources.size());
-        for (Map.Entry<org.apache.jena.rdf.model.Resource, Model> entry : rdfResources.entrySet()) {
-            checkAndCreateId(entry.getKey());
-
-            StringBuilder instanceResult = new StringBuilder();
-            pim.addSubModel(entry.getValue());
-//            ValidityReport report = pim.validate();
-//            if (!report.isClean()) {
-//                instanceResult.append("errors during owl validation" + System.lineSeparator());
-//                instanceResult.append(
-//                        StreamHelper.stream(report.getReports())
-//                                .map(x -> x.toString())
-//                                .collect(Collectors.joining(System.lineSeparator())));
-//            }
-            List<String> cardinalityViolations = ValidationHelper.checkCardinalityViolations(entry.getKey(), pim, entry.getValue());
-            if (!cardinalityViolations.isEmpty()) {
-                log.debug("Found cardinality validation errors: " + String.join(System.lineSeparator(), cardinalityViolations));
-                instanceResult.append("errors during cardinality validation").append(System.lineSeparator());
-                instanceResult.append(String.join(System.lineSeparator(), cardinalityViolations));
-            } else {
-                log.debug("Cardinality validation fine");
-            }
-            pim.removeSubModel(entry.getValue());
-            // if resource has no error - create java representation for it
-            if (instanceResult.length() == 0) {
-                try {
-                    log.debug("Creating core resource object");
-                    CoreResource coreResource = RDFReader.createCoreResource(entry.getKey(), entry.getValue(), request.getRdfFormat());
-                    if( coreResource != null ) {
-                        log.debug("Core resource created: " + coreResource.getName() + " | id " + coreResource.getId());
-                        resources.put(entry.getKey().getURI(), coreResource);
-                    } else {
-                        log.debug("Returned core resource is null");
-                        instanceResult.append("Error creating resource object - resource is null").append(System.lineSeparator());
-                    }
-                } catch (RDFParsingError ex) {
-                    instanceResult.append("error creating CoreResource: ").append(ex);
-                }
+        for (ResourceValidation validation : validations) {
+            if (validation.coreResource != null) {
+                resources.put(validation.uri, validation.coreResource);
             }
-            if (instanceResult.length() > 0) {
-                instanceResults.append(String.format("errors validating RDF for resource '%s':%s", entry.getKey().getURI(), System.lineSeparator()));
-                instanceResults.append(instanceResult.toString()).append(System.lineSeparator());
+            if (validation.errors.length() > 0) {
+                instanceResults.append(String.format("errors validating RDF for resource '%s':%s", validation.uri, System.lineSeparator()));
+                instanceResults.append(validation.errors).append(System.lineSeparator());
             }
         }
         if (instanceResults.length() > 0) {
@@ -514,7 +717,10 @@ public class SemanticManager {
             result.setMessage("errors validating RDF for resources: " + System.lineSeparator() + String.join(System.lineSeparator(), instanceResults));
             return result;
         }
-        result.setModelValidatedAgainst(ModelHelper.writeModel(pim, request.getRdfFormat()));
+        OntModel pim = pimView.getModel();
+        synchronized (pim) {
+            result.setModelValidatedAgainst(ModelHelper.writeModel(pim, request.getRdfFormat()));
+        }
         result.setSuccess(true);
         log.debug("Resource parsing finished, found " + resources.size() + " resources");
         resources.values().stream().forEach( res -> res.setInterworkingServiceURL(request.getInterworkingServiceURL()));
@@ -522,9 +728,114 @@ public class SemanticManager {
         return result;
     }
 
+    /**
+     * Validates separated resources, in parallel if a validation pool is
+     * configured. Results are ordered by resource URI regardless of the mode.
+     */
+    private List<ResourceValidation> validateResources(Map<org.apache.jena.rdf.model.Resource, Model> rdfResources,
+                                                       PimValidationView pim,
+                                                       CardinalityConstraintIndex constraints,
+                                                       RDFFormat rdfFormat) {
+        List<ResourceValidation> result;
+        if (validationPool != null && rdfResources.size() > 1) {
+            log.debug("Validating " + rdfResources.size() + " resources with parallelism " + validationPool.getParallelism());
+            try {
+                result = validationPool.submit(() -> rdfResources.entrySet().parallelStream()
+                        .map(x -> validateResource(x.getKey(), x.getValue(), pim, constraints, rdfFormat))
+                        .collect(Collectors.toList()))
+                        .get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while validating resources", ex);
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ex.getCause();
+                }
+                throw new IllegalStateException("Error while validating resources", ex.getCause());
+            }
+        } else {
+            result = rdfResources.entrySet().stream()
+                    .map(x -> validateResource(x.getKey(), x.getValue(), pim, constraints, rdfFormat))
+                    .collect(Collectors.toList());
+        }
+        result.sort(Comparator.comparing(x -> x.uri));
+        return result;
+    }
+
+    /**
+     * Validates single resource and creates its java representation. Only the
+     * description of the resource is modified, so resources can be validated
+     * concurrently.
+     */
+    private ResourceValidation validateResource(org.apache.jena.rdf.model.Resource rdfResource,
+                                                Model resourceModel,
+                                                PimValidationView pim,
+                                                CardinalityConstraintIndex constraints,
+                                                RDFFormat rdfFormat) {
+        checkAndCreateId(rdfResource);
+
+        StringBuilder instanceResult = new StringBuilder();
+//        ValidityReport report = pim.validate();
+//        if (!report.isClean()) {
+//            instanceResult.append("errors during owl validation" + System.lineSeparator());
+//            instanceResult.append(
+//                    StreamHelper.stream(report.getReports())
+//                            .map(x -> x.toString())
+//                            .collect(Collectors.joining(System.lineSeparator())));
+//        }
+        List<String> cardinalityViolations;
+        if (constraints != null) {
+            cardinalityViolations = ValidationHelper.checkCardinalityViolations(rdfResource, constraints, resourceModel);
+        } else {
+            cardinalityViolations = ValidationHelper.checkCardinalityViolations(rdfResource, pim, resourceModel);
+        }
+        if (!cardinalityViolations.isEmpty()) {
+            log.debug("Found cardinality validation errors: " + String.join(System.lineSeparator(), cardinalityViolations));
+            instanceResult.append("errors during cardinality validation").append(System.lineSeparator());
+            instanceResult.append(String.join(System.lineSeparator(), cardinalityViolations));
+        } else {
+            log.debug("Cardinality validation fine");
+        }
+        // if resource has no error - create java representation for it
+        CoreResource coreResource = null;
+        if (instanceResult.length() == 0) {
+            try {
+                log.debug("Creating core resource object");
+                coreResource = RDFReader.createCoreResource(rdfResource, resourceModel, rdfFormat);
+                if( coreResource != null ) {
+                    log.debug("Core resource created: " + coreResource.getName() + " | id " + coreResource.getId());
+                } else {
+                    log.debug("Returned core resource is null");
+                    instanceResult.append("Error creating resource object - resource is null").append(System.lineSeparator());
+                }
+            } catch (RDFParsingError ex) {
+                instanceResult.append("error creating CoreResource: ").append(ex);
+            }
+        }
+        return new ResourceValidation(rdfResource.getURI(), coreResource, instanceResult.toString());
+    }
+
+    /**
+     * Outcome of validation of a single resource.
+     */
+    private static class ResourceValidation {
+        private final String uri;
+        private final CoreResource coreResource;
+        private final String errors;
+
+        private ResourceValidation(String uri, CoreResource coreResource, String errors) {
+            this.uri = uri;
+            this.coreResource = coreResource;
+            this.errors = errors;
+        }
+    }
+
     /**
      * Validates description of resources of BIM-compliant platform and
-     * translates them into RDF.
+     * translates them into RDF. Resources are translated in sub-batches, which
+     * are interleaved with sub-batches of other platforms and SSPs. Resources
+     * of a sub-batch may be translated in parallel, the result is the same as
+     * when they are translated sequentially.
      *
      * @param resources Map of resources, for which RDF will be created.
      * @param cloudId Id of the cloud entity registering the resources - id of the platform or id of the ssp.
@@ -532,6 +843,7 @@ public class SemanticManager {
      *
      * @return Validation result, containing information about the resources and
      * created RDF.
+     * @throws RequestExpiredException if the deadline of the request passed before an expensive stage
      */
     public ResourceInstanceValidationResult validateAndCreateBIMResourceToRDF(Map<String, Resource> resources, String cloudId, boolean cloudIsSsp) throws IOException, PropertyNotFoundException {
         log.info("Validating and creating RDF for resources");
@@ -547,59 +859,38 @@ public class SemanticManager {
             Map<String, CoreResource> resourceList = new HashMap<>();
 
 
-            ObjectMapper mapper = new ObjectMapper();
 //            Map<String, Resource> resources = null;
 //            resources = mapper.readValue(request.getBody(), new TypeReference<Map<String, Resource>>() {
 //            });
-            for (String resourcePairingId : resources.keySet()) {
-                Resource resource = resources.get(resourcePairingId);
-
-                //Verify that instance translatedDescription has all fields to create RDF
+            String tenant = (cloudIsSsp ? "ssp:" : "platform:") + cloudId;
+            // existing locations of the platform are loaded once for all resources
+            LocationResolver locationResolver = rdfGenerator.createLocationResolver(cloudId);
+            List<String> pairingIds = new ArrayList<>(resources.keySet());
+            int subBatchSize = translationSubBatchSize > 0 ? translationSubBatchSize : pairingIds.size();
+            for (int from = 0; from < pairingIds.size(); from += subBatchSize) {
+                List<String> subBatch = pairingIds.subList(from, Math.min(from + subBatchSize, pairingIds.size()));
                 try {
-                    verifyCompleteBIMResourceDescription(resource);
-
-                    //Copy all meta-information about the platform to the response
-                    CoreResource translatedResource = new CoreResource();
-                    translatedResource.setName(resource.getName());
-                    translatedResource.setDescription(resource.getDescription());
-                    translatedResource.setInterworkingServiceURL(resource.getInterworkingServiceURL());
-                    translatedResource.setType(SymbioteModelsUtil.getTypeForResource(resource));
-
-                    //TODO refactor generating IDs
-                    if (resource.getId() == null || resource.getId().isEmpty()) {
-                        translatedResource.setId(String.valueOf(ObjectId.get()));
-                        resource.setId(translatedResource.getId());
-                    } else {
-                        translatedResource.setId(resource.getId());
-                    }
-
-                    //Generate the rdf for the resource and save it into CoreResource
-                    GenerationResult generationResult = rdfGenerator.generateRDFForResource(resource, cloudId, cloudIsSsp );
-                    completeModel.add(generationResult.getModel());
-                    StringWriter stringWriter = new StringWriter();
-                    generationResult.getModel().write(stringWriter, DEFAULT_RDF_FORMAT.toString());
-
-                    translatedResource.setRdf(stringWriter.toString());
-                    translatedResource.setRdfFormat(DEFAULT_RDF_FORMAT);
-
-                    //Add rdfs to all subresources found during generation
-                    for (String subresPairingId : generationResult.getResources().keySet()) {
-                        CoreResource subres = generationResult.getResources().get(subresPairingId);
-                        subres.setRdf(translatedResource.getRdf());
-                        subres.setRdfFormat(translatedResource.getRdfFormat());
-                        resourceList.put(subresPairingId, subres);
+                    translationGate.acquire(tenant);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for translation of resources", ex);
+                }
+                try {
+                    for (ResourceTranslation translation : translateResources(subBatch, resources, cloudId, cloudIsSsp, locationResolver)) {
+                        if (translation.propertyNotFound != null) {
+                            throw translation.propertyNotFound;
+                        }
+                        if (translation.errors != null) {
+                            success = false;
+                            errorMessage.append(translation.errors + "\n");
+                            continue;
+                        }
+                        completeModel.add(translation.generationResult.getModel());
+                        resourceList.putAll(translation.generationResult.getResources());
+                        resourceList.put(translation.pairingId, translation.coreResource);
                     }
-
-                    resourceList.put(resourcePairingId, translatedResource);
-
-                } catch (IllegalArgumentException e) {
-                    log.error("Error occurred during verifying resource: " + resource.getName(), e);
-                    success = false;
-                    errorMessage.append(e.getMessage() + "\n");
-                } catch (RDFGenerationError e) {
-                    log.error("Error occurred during rdf generation: " + resource.getName(), e);
-                    success = false;
-                    errorMessage.append(e.getMessage() + "\n");
+                } finally {
+                    translationGate.release();
                 }
             }
 
@@ -620,6 +911,133 @@ public class SemanticManager {
         return result;
     }
 
+    /**
+     * Generates RDF for the resources of a sub-batch, in parallel if a
+     * translation pool is configured. Results are in the order of the pairing
+     * ids regardless of the mode, so they can be merged deterministically.
+     * <p>
+     * Translation stops at the first resource using an unknown property, as
+     * the whole registration is rejected then. In parallel mode resources
+     * following the first failed one are skipped and returned as
+     * <code>null</code>, resources preceding it are always translated, so the
+     * same exception is reported as in sequential mode.
+     */
+    private List<ResourceTranslation> translateResources(List<String> pairingIds, Map<String, Resource> resources,
+                                                         String cloudId, boolean cloudIsSsp,
+                                                         LocationResolver locationResolver) {
+        if (translationPool != null && pairingIds.size() > 1) {
+            // deadline is bound to the calling thread, so it is checked once for the whole sub-batch
+            RequestDeadline.check(RequestDeadline.STAGE_RDF_GENERATION);
+            log.debug("Generating RDF for " + pairingIds.size() + " resources with parallelism " + translationPool.getParallelism());
+            AtomicInteger firstPropertyNotFound = new AtomicInteger(Integer.MAX_VALUE);
+            try {
+                return translationPool.submit(() -> IntStream.range(0, pairingIds.size()).parallel()
+                        .mapToObj(i -> {
+                            if (i > firstPropertyNotFound.get()) {
+                                return null;
+                            }
+                            String pairingId = pairingIds.get(i);
+                            ResourceTranslation translation = translateResource(pairingId, resources.get(pairingId),
+                                    cloudId, cloudIsSsp, locationResolver);
+                            if (translation.propertyNotFound != null) {
+                                firstPropertyNotFound.accumulateAndGet(i, Math::min);
+                            }
+                            return translation;
+                        })
+                        .collect(Collectors.toList()))
+                        .get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while generating RDF for resources", ex);
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ex.getCause();
+                }
+                throw new IllegalStateException("Error while generating RDF for resources", ex.getCause());
+            }
+        }
+        List<ResourceTranslation> result = new ArrayList<>(pairingIds.size());
+        for (String pairingId : pairingIds) {
+            RequestDeadline.check(RequestDeadline.STAGE_RDF_GENERATION);
+            ResourceTranslation translation = translateResource(pairingId, resources.get(pairingId), cloudId, cloudIsSsp, locationResolver);
+            result.add(translation);
+            if (translation.propertyNotFound != null) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Verifies single resource and generates its RDF. Only the resource and
+     * its own model are modified, so resources can be translated concurrently.
+     */
+    private ResourceTranslation translateResource(String resourcePairingId, Resource resource, String cloudId, boolean cloudIsSsp,
+                                                  LocationResolver locationResolver) {
+        //Verify that instance translatedDescription has all fields to create RDF
+        try {
+            verifyCompleteBIMResourceDescription(resource);
+
+            //Copy all meta-information about the platform to the response
+            CoreResource translatedResource = new CoreResource();
+            translatedResource.setName(resource.getName());
+            translatedResource.setDescription(resource.getDescription());
+            translatedResource.setInterworkingServiceURL(resource.getInterworkingServiceURL());
+            translatedResource.setType(SymbioteModelsUtil.getTypeForResource(resource));
+
+            //TODO refactor generating IDs
+            if (resource.getId() == null || resource.getId().isEmpty()) {
+                translatedResource.setId(String.valueOf(ObjectId.get()));
+                resource.setId(translatedResource.getId());
+            } else {
+                translatedResource.setId(resource.getId());
+            }
+
+            //Generate the rdf for the resource and save it into CoreResource
+            GenerationResult generationResult = rdfGenerator.generateRDFForResource(resource, cloudId, cloudIsSsp, locationResolver);
+            StringWriter stringWriter = new StringWriter();
+            generationResult.getModel().write(stringWriter, DEFAULT_RDF_FORMAT.toString());
+
+            translatedResource.setRdf(stringWriter.toString());
+            translatedResource.setRdfFormat(DEFAULT_RDF_FORMAT);
+
+            //Add rdfs to all subresources found during generation
+            for (CoreResource subres : generationResult.getResources().values()) {
+                subres.setRdf(translatedResource.getRdf());
+                subres.setRdfFormat(translatedResource.getRdfFormat());
+            }
+            return new ResourceTranslation(resourcePairingId, translatedResource, generationResult, null, null);
+        } catch (IllegalArgumentException e) {
+            log.error("Error occurred during verifying resource: " + resource.getName(), e);
+            return new ResourceTranslation(resourcePairingId, null, null, e.getMessage(), null);
+        } catch (RDFGenerationError e) {
+            log.error("Error occurred during rdf generation: " + resource.getName(), e);
+            return new ResourceTranslation(resourcePairingId, null, null, e.getMessage(), null);
+        } catch (PropertyNotFoundException e) {
+            return new ResourceTranslation(resourcePairingId, null, null, null, e);
+        }
+    }
+
+    /**
+     * Outcome of translation of a single resource.
+     */
+    private static class ResourceTranslation {
+        private final String pairingId;
+        private final CoreResource coreResource;
+        private final GenerationResult generationResult;
+        private final String errors;
+        private final PropertyNotFoundException propertyNotFound;
+
+        private ResourceTranslation(String pairingId, CoreResource coreResource, GenerationResult generationResult,
+                                    String errors, PropertyNotFoundException propertyNotFound) {
+            this.pairingId = pairingId;
+            this.coreResource = coreResource;
+            this.generationResult = generationResult;
+            this.errors = errors;
+            this.propertyNotFound = propertyNotFound;
+        }
+    }
+
     private void verifyCompleteBIMInstanceDescription(PIMInstanceDescription pimInstanceDescription) throws IllegalArgumentException {
         if (pimInstanceDescription.getLabels() == null) {
             throw new IllegalArgumentException("Label must not be null");
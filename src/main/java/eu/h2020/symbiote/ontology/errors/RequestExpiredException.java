@@ -0,0 +1,22 @@
+package eu.h2020.symbiote.ontology.errors;
+
+/**
+ * Thrown when processing of a request is abandoned, because its caller has
+ * already stopped waiting for the response.
+ */
+public class RequestExpiredException extends RuntimeException {
+
+    private final String stage;
+
+    public RequestExpiredException(String stage, long overdueMillis) {
+        super("Request expired " + overdueMillis + " ms ago, processing abandoned before " + stage);
+        this.stage = stage;
+    }
+
+    /**
+     * @return name of the processing stage which was not started
+     */
+    public String getStage() {
+        return stage;
+    }
+}
@@ -0,0 +1,276 @@
+package eu.h2020.symbiote.ontology.utils;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Thread-safe cache holding at most <code>maxSize</code> entries. When the cache
+ * is full the least recently used entry is evicted. Optionally entries expire
+ * after a fixed time since they were stored.
+ * <p>
+ * Values are loaded outside of the cache lock, so a slow load of one key does
+ * not block access to other keys. If the key is invalidated or replaced, or the
+ * whole cache is invalidated, while a value is being loaded, the loaded value is
+ * returned but not stored. Invalidation of one key does not affect values being
+ * loaded for other keys.
+ *
+ * @param <K> type of the key
+ * @param <V> type of the cached value
+ */
+public class BoundedCache<K, V> {
+
+    /**
+     * Loads value for the key on cache miss.
+     */
+    @FunctionalInterface
+    public interface Loader<K, V, E extends Exception> {
+        V load(K key) throws E;
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long created;
+
+        private Entry(V value, long created) {
+            this.value = value;
+            this.created = created;
+        }
+    }
+
+    /**
+     * Generation of a key with values being loaded, tracked only while at least
+     * one load of the key is in progress.
+     */
+    private static class Loading {
+        private int count;
+        private long generation;
+    }
+
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Map<K, Loading> loading = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private int maxSize;
+    private long timeToLiveMillis;
+    private long epoch;
+
+    /**
+     * @param maxSize          maximum number of entries, values lower than 1 disable caching
+     * @param timeToLiveMillis time after which entries expire, values lower than 1 mean no expiration
+     */
+    public BoundedCache(int maxSize, long timeToLiveMillis) {
+        this.maxSize = maxSize;
+        this.timeToLiveMillis = timeToLiveMillis;
+    }
+
+    /**
+     * Returns cached value for the key, loading and storing it on miss.
+     *
+     * @param key    key of the value
+     * @param loader used to create value if it is not cached
+     * @return cached or loaded value
+     * @throws E if loading fails
+     */
+    public <E extends Exception> V get(K key, Loader<? super K, ? extends V, E> loader) throws E {
+        Loading load;
+        long generationBeforeLoad;
+        long epochBeforeLoad;
+        synchronized (this) {
+            V cached = getIfPresentInternal(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+            misses.incrementAndGet();
+            load = loading.computeIfAbsent(key, x -> new Loading());
+            load.count++;
+            generationBeforeLoad = load.generation;
+            epochBeforeLoad = epoch;
+        }
+        V value = null;
+        try {
+            value = loader.load(key);
+        } finally {
+            synchronized (this) {
+                if (value != null && load.generation == generationBeforeLoad && epoch == epochBeforeLoad) {
+                    putInternal(key, value);
+                }
+                if (--load.count == 0) {
+                    loading.remove(key);
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @param key key of the value
+     * @return cached value or <code>null</code> if not present or expired
+     */
+    public synchronized V getIfPresent(K key) {
+        V cached = getIfPresentInternal(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return cached;
+    }
+
+    public synchronized void put(K key, V value) {
+        putInternal(key, value);
+    }
+
+    /**
+     * Replaces value for the key with the value computed from the cached one,
+     * if present. Values being loaded at the time of the replacement are not
+     * stored, so they do not overwrite the replaced value. The replaced value
+     * expires at the same time as the cached one.
+     *
+     * @param key      key of the value
+     * @param function computes new value from the cached one
+     * @return <code>true</code> if the value was replaced
+     */
+    public synchronized boolean replaceIfPresent(K key, Function<? super V, ? extends V> function) {
+        if (getIfPresentInternal(key) == null) {
+            return false;
+        }
+        Entry<V> entry = entries.get(key);
+        invalidateLoading(key);
+        entries.put(key, new Entry<>(function.apply(entry.value), entry.created));
+        return true;
+    }
+
+    /**
+     * Removes value for the key and returns it, so that a value is handed over
+     * to at most one caller.
+     *
+     * @param key key of the value
+     * @return removed value or <code>null</code> if not present or expired
+     */
+    public synchronized V remove(K key) {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            entries.remove(key);
+        }
+        return cached;
+    }
+
+    /**
+     * Removes value for the key. Values being loaded at the time of the
+     * invalidation are not stored.
+     *
+     * @param key key of the value
+     */
+    public synchronized void invalidate(K key) {
+        invalidateLoading(key);
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        epoch++;
+        entries.clear();
+    }
+
+    /**
+     * Changes the maximum size, evicting least recently used entries if needed.
+     *
+     * @param maxSize maximum number of entries, values lower than 1 disable caching
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        evictOverflow();
+    }
+
+    public synchronized int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @param timeToLiveMillis time after which entries expire, values lower than 1 mean no expiration
+     */
+    public synchronized void setTimeToLiveMillis(long timeToLiveMillis) {
+        this.timeToLiveMillis = timeToLiveMillis;
+    }
+
+    public synchronized long getTimeToLiveMillis() {
+        return timeToLiveMillis;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return ratio of hits to all lookups, 0 if there was no lookup
+     */
+    public double getHitRate() {
+        long hitCount = hits.get();
+        long count = hitCount + misses.get();
+        return count == 0 ? 0 : (double) hitCount / count;
+    }
+
+    /**
+     * @return number of entries removed because the cache was full or they expired
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    private void invalidateLoading(K key) {
+        Loading load = loading.get(key);
+        if (load != null) {
+            load.generation++;
+        }
+    }
+
+    private V getIfPresentInternal(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry, System.currentTimeMillis())) {
+            entries.remove(key);
+            evictions.incrementAndGet();
+            return null;
+        }
+        return entry.value;
+    }
+
+    private void putInternal(K key, V value) {
+        if (maxSize < 1) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, System.currentTimeMillis()));
+        evictOverflow();
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return timeToLiveMillis > 0 && now - entry.created >= timeToLiveMillis;
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (entries.size() > Math.max(maxSize, 0) && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+}
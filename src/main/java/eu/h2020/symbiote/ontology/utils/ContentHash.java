@@ -0,0 +1,50 @@
+package eu.h2020.symbiote.ontology.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Creates keys identifying content of requests, e.g. RDF of an information
+ * model together with its format.
+ */
+public final class ContentHash {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private ContentHash() {
+    }
+
+    /**
+     * Computes SHA-256 hash of the parts. Every part is prefixed by its length,
+     * so moving characters between neighbouring parts changes the hash.
+     *
+     * @param parts strings to be hashed, may contain <code>null</code> values
+     * @return hex encoded hash
+     */
+    public static String sha256(String... parts) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+        for (String part : parts) {
+            if (part == null) {
+                digest.update(ByteBuffer.allocate(4).putInt(-1).array());
+                continue;
+            }
+            byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+            digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+            digest.update(bytes);
+        }
+        byte[] hash = digest.digest();
+        char[] result = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            result[2 * i] = HEX[(hash[i] >> 4) & 0xf];
+            result[2 * i + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(result);
+    }
+}
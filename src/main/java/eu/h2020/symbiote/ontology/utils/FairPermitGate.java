@@ -0,0 +1,138 @@
+package eu.h2020.symbiote.ontology.utils;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Limits number of concurrently processed work units and hands out permits
+ * fairly among tenants (e.g. platforms or SSPs).
+ * <p>
+ * If a permit is free and nobody is waiting, it is granted immediately, so a
+ * single tenant gets full throughput when there is no contention. Otherwise
+ * released permits are granted to waiting tenants in round-robin order, one
+ * work unit per tenant and turn, regardless of how many units the tenants are
+ * waiting with. Tenants splitting large batches into small units therefore do
+ * not delay small batches of other tenants by more than one unit per permit.
+ */
+public class FairPermitGate {
+
+    private final int permits;
+
+    private int available;
+
+    private final Map<String, Deque<Waiter>> waitersByTenant = new HashMap<>();
+
+    // tenants with waiting units in the order they are served
+    private final Deque<String> rotation = new ArrayDeque<>();
+
+    private int waiting;
+
+    private static class Waiter {
+        private boolean granted;
+    }
+
+    /**
+     * @param permits number of work units processed at the same time
+     */
+    public FairPermitGate(int permits) {
+        this.permits = Math.max(permits, 1);
+        this.available = this.permits;
+    }
+
+    /**
+     * Waits for the turn of the tenant and takes a permit.
+     *
+     * @param tenant id of the tenant the work unit belongs to
+     * @throws InterruptedException if interrupted while waiting, no permit is taken in that case
+     */
+    public synchronized void acquire(String tenant) throws InterruptedException {
+        if (available > 0 && waiting == 0) {
+            available--;
+            return;
+        }
+        Waiter waiter = new Waiter();
+        Deque<Waiter> waiters = waitersByTenant.get(tenant);
+        if (waiters == null) {
+            waiters = new ArrayDeque<>();
+            waitersByTenant.put(tenant, waiters);
+            rotation.addLast(tenant);
+        }
+        waiters.addLast(waiter);
+        waiting++;
+        try {
+            while (!waiter.granted) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            if (waiter.granted) {
+                // permit was granted at the same time, pass it on
+                release();
+            } else {
+                removeWaiter(tenant, waiter);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a permit, granting it to the next waiting tenant if there is any.
+     */
+    public synchronized void release() {
+        String tenant = rotation.pollFirst();
+        if (tenant == null) {
+            available = Math.min(available + 1, permits);
+            return;
+        }
+        Deque<Waiter> waiters = waitersByTenant.get(tenant);
+        Waiter waiter = waiters.pollFirst();
+        waiting--;
+        if (waiters.isEmpty()) {
+            waitersByTenant.remove(tenant);
+        } else {
+            rotation.addLast(tenant);
+        }
+        waiter.granted = true;
+        notifyAll();
+    }
+
+    private void removeWaiter(String tenant, Waiter waiter) {
+        Deque<Waiter> waiters = waitersByTenant.get(tenant);
+        if (waiters != null && waiters.remove(waiter)) {
+            waiting--;
+            if (waiters.isEmpty()) {
+                waitersByTenant.remove(tenant);
+                rotation.remove(tenant);
+            }
+        }
+    }
+
+    /**
+     * @return number of work units processed at the same time
+     */
+    public int getPermits() {
+        return permits;
+    }
+
+    /**
+     * @return number of free permits
+     */
+    public synchronized int getAvailable() {
+        return available;
+    }
+
+    /**
+     * @return number of work units waiting for a permit
+     */
+    public synchronized int getWaiting() {
+        return waiting;
+    }
+
+    /**
+     * @return number of tenants waiting for a permit
+     */
+    public synchronized int getWaitingTenants() {
+        return rotation.size();
+    }
+}
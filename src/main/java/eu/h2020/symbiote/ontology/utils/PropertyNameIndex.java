@@ -0,0 +1,92 @@
+package eu.h2020.symbiote.ontology.utils;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.util.iterator.ExtendedIterator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable index of names of properties defined by vocabularies (e.g. BIM
+ * properties and QU quantities) to their URIs.
+ * <p>
+ * A name is indexed if the URI formed by the namespace of the vocabulary and
+ * the name occurs anywhere in the model of the vocabulary. If the name occurs
+ * in more vocabularies, the URI from the vocabulary added first is used. The
+ * index contains all URIs of the namespaces, so a name which is not found is
+ * not defined by any of the vocabularies.
+ */
+public final class PropertyNameIndex {
+
+    private final Map<String, String> uris;
+
+    private final List<String> namespaces;
+
+    private PropertyNameIndex(Map<String, String> uris, List<String> namespaces) {
+        this.uris = uris;
+        this.namespaces = namespaces;
+    }
+
+    /**
+     * Builds the index.
+     *
+     * @param modelsByNamespace models of vocabularies keyed by their namespace, in order of precedence
+     * @return index of names defined by the vocabularies
+     */
+    public static PropertyNameIndex build(LinkedHashMap<String, Model> modelsByNamespace) {
+        Map<String, String> uris = new HashMap<>();
+        for (Map.Entry<String, Model> entry : modelsByNamespace.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            String namespace = entry.getKey();
+            ExtendedIterator<Triple> triples = entry.getValue().getGraph().find(Node.ANY, Node.ANY, Node.ANY);
+            try {
+                while (triples.hasNext()) {
+                    Triple triple = triples.next();
+                    index(uris, namespace, triple.getSubject());
+                    index(uris, namespace, triple.getPredicate());
+                    index(uris, namespace, triple.getObject());
+                }
+            } finally {
+                triples.close();
+            }
+        }
+        return new PropertyNameIndex(Collections.unmodifiableMap(uris),
+                Collections.unmodifiableList(new ArrayList<>(modelsByNamespace.keySet())));
+    }
+
+    private static void index(Map<String, String> uris, String namespace, Node node) {
+        if (node.isURI() && node.getURI().startsWith(namespace)) {
+            uris.putIfAbsent(node.getURI().substring(namespace.length()), node.getURI());
+        }
+    }
+
+    /**
+     * @param name name of the property
+     * @return URI of the property or <code>null</code> if none of the vocabularies defines it
+     */
+    public String find(String name) {
+        return uris.get(name);
+    }
+
+    /**
+     * @return namespaces of the indexed vocabularies, in order of precedence
+     */
+    public List<String> getNamespaces() {
+        return namespaces;
+    }
+
+    /**
+     * @return number of indexed names
+     */
+    public int size() {
+        return uris.size();
+    }
+}
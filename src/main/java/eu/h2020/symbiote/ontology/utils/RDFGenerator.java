@@ -13,6 +13,7 @@ import eu.h2020.symbiote.semantics.ontology.MIM;
 import eu.h2020.symbiote.semantics.ontology.WGS84;
 import eu.h2020.symbiote.utils.LocationInfo;
 import eu.h2020.symbiote.utils.LocationManager;
+import eu.h2020.symbiote.utils.LocationResolver;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.jena.rdf.model.Model;
@@ -27,7 +28,8 @@ import java.io.StringWriter;
 import java.util.*;
 
 /**
- * Helper class for generating RDF models from BIM objects.
+ * Helper class for generating RDF models from BIM objects. Every resource is
+ * generated into its own model, so resources can be generated concurrently.
  * <p>
  * Created by Szymon Mueller on 12/04/2017.
  */
@@ -51,6 +53,31 @@ public class RDFGenerator {
      * @return String containing resource description in RDF.
      */
     public GenerationResult generateRDFForResource(Resource resource, String platformId, boolean isSsp) throws PropertyNotFoundException, RDFGenerationError {
+        return generateRDFForResource(resource, platformId, isSsp, createLocationResolver(platformId));
+    }
+
+    /**
+     * Creates resolver of existing locations of the platform, which can be
+     * shared by all resources of a registration.
+     *
+     * @param platformId id of the platform or SSP
+     * @return resolver or <code>null</code> if existing locations are not looked up
+     */
+    public LocationResolver createLocationResolver(String platformId) {
+        return locationManager != null ? locationManager.createResolver(platformId) : null;
+    }
+
+    /**
+     * Generates and returns RDF for the resource, resolving its location
+     * against existing locations using the resolver.
+     *
+     * @param resource         Resource to be translated to RDF.
+     * @param platformId       id of the platform or SSP
+     * @param isSsp            <code>true</code> if the resource belongs to SSP
+     * @param locationResolver resolver of existing locations of the platform, may be <code>null</code>
+     * @return model of the resource
+     */
+    public GenerationResult generateRDFForResource(Resource resource, String platformId, boolean isSsp, LocationResolver locationResolver) throws PropertyNotFoundException, RDFGenerationError {
         log.debug("Generating model for resource " + resource.getId());
         // create an empty Model
         Model model = ModelFactory.createDefaultModel();
@@ -86,7 +113,7 @@ public class RDFGenerator {
                 }
             }
 
-            addLocationToModelResource(model, modelResource, locatedAt, platformId, isSsp);
+            addLocationToModelResource(model, modelResource, locatedAt, platformId, isSsp, locationResolver);
         }
         if (resource instanceof StationarySensor) {
             modelResource.addProperty(RDF.type, CIM.StationarySensor);
@@ -101,7 +128,7 @@ public class RDFGenerator {
                 }
             }
 
-            addLocationToModelResource(model, modelResource, locatedAt, platformId, isSsp);
+            addLocationToModelResource(model, modelResource, locatedAt, platformId, isSsp, locationResolver);
             addFoiToModelResource(model, modelResource, featureOfInterest);
         }
         if (resource instanceof Service) {
@@ -124,14 +151,15 @@ public class RDFGenerator {
             Location locatedAt = ((Actuator) resource).getLocatedAt();
             List<Capability> capabilities = ((Actuator) resource).getCapabilities();
 
-            addLocationToModelResource(model, modelResource, locatedAt, platformId, isSsp);
+            addLocationToModelResource(model, modelResource, locatedAt, platformId, isSsp, locationResolver);
             addCapabilitiesToModelResource(model, modelResource, capabilities);
         }
 
-        StringWriter writer = new StringWriter();
-        model.write(writer, RDFFormat.Turtle.toString());
-        String rdf = writer.toString();
-        log.debug("Generated following RDF: " + rdf);
+        if (log.isDebugEnabled()) {
+            StringWriter writer = new StringWriter();
+            model.write(writer, RDFFormat.Turtle.toString());
+            log.debug("Generated following RDF: " + writer.toString());
+        }
 
         GenerationResult result = new GenerationResult();
         result.setModel(model);
@@ -235,15 +263,16 @@ public class RDFGenerator {
         return dataPropertyResource;
     }
 
-    private void addLocationToModelResource(Model model, org.apache.jena.rdf.model.Resource modelResource, Location location, String platformId, boolean isSsp) throws RDFGenerationError {
+    private void addLocationToModelResource(Model model, org.apache.jena.rdf.model.Resource modelResource, Location location, String platformId, boolean isSsp, LocationResolver locationResolver) throws RDFGenerationError {
 
         verifyLocation(location);
 
         String locationURI = null;
+        LocationInfo existingLocation = null;
 
 //        LocationFinder locationFinder = LocationFinder.getSingleton();
 
-        if (locationManager != null) {
+        if (locationResolver != null) {
 //            try {
 //                log.debug("Fetching for location URI... ");
 //                locationURI = locationFinder.queryForLocationUri(location, platformId);
@@ -251,11 +280,19 @@ public class RDFGenerator {
 //            } catch (Exception e) {
 //                log.error("Could not contact search to retrieve location URI: " + e.getMessage(), e);
 //            }
+            Optional<LocationInfo> foundLoc = Optional.empty();
             if (location instanceof WGS84Location) {
-                Optional<LocationInfo> foundLoc = locationManager.findExistingLocation(location.getName(),
-                        platformId, ((WGS84Location) location).getLatitude(),
+                foundLoc = locationResolver.findExistingLocation(location.getName(),
+                        ((WGS84Location) location).getLatitude(),
                         ((WGS84Location) location).getLongitude(), ((WGS84Location) location).getAltitude());
-                if( foundLoc.isPresent() ) locationURI = foundLoc.get().getLocationUri();
+            } else if (location instanceof WKTLocation) {
+                foundLoc = locationResolver.findExistingWKTLocation(((WKTLocation) location).getValue());
+            } else if (location instanceof SymbolicLocation) {
+                foundLoc = locationResolver.findExistingSymbolicLocation(location.getName());
+            }
+            if( foundLoc.isPresent() ) {
+                existingLocation = foundLoc.get();
+                locationURI = existingLocation.getLocationUri();
             }
         }
 
@@ -268,8 +305,34 @@ public class RDFGenerator {
             }
 
             log.info("No existing locations have been found fulfilling criteria, created new location with ID: " + locationId + " and URI: <" + locationURI + ">");
+            if (locationResolver != null) {
+                String createdURI = locationURI;
+                LocationInfo claimedLocation = null;
+                if (location instanceof WGS84Location) {
+                    claimedLocation = locationResolver.claimLocation(((WGS84Location) location).getLatitude(),
+                            ((WGS84Location) location).getLongitude(), ((WGS84Location) location).getAltitude(), locationURI);
+                    locationURI = claimedLocation.getLocationUri();
+                } else if (location instanceof WKTLocation) {
+                    locationURI = locationResolver.claimNewWKTLocation(((WKTLocation) location).getValue(), locationURI);
+                } else if (location instanceof SymbolicLocation) {
+                    locationURI = locationResolver.claimNewSymbolicLocation(location.getName(), locationURI);
+                }
+                if (!createdURI.equals(locationURI)) {
+                    // claimed concurrently by another resource or registration, which describes it
+                    existingLocation = claimedLocation != null
+                            ? claimedLocation
+                            : new LocationInfo(locationURI, platformId, 0, 0, 0);
+                }
+            }
         }
         org.apache.jena.rdf.model.Resource locationResource = model.createResource(locationURI);
+        modelResource.addProperty(CIM.locatedAt, locationResource);
+        if (existingLocation != null) {
+            // reused location is described by its stored values only, as it may have been matched within
+            // tolerance or after normalization, so that the same URI never gets different geometries or names
+            addExistingLocationToModel(locationResource, location, existingLocation);
+            return;
+        }
 //            locationResource.addProperty(RDF.type, CoreInformationModel.Location);
         if (location.getName() != null) {
             locationResource.addProperty(CIM.name, location.getName());
@@ -292,9 +355,28 @@ public class RDFGenerator {
             locationResource.addProperty(RDF.type, CIM.WKTLocation)
                     .addProperty(RDF.value, ((WKTLocation) location).getValue());
         }
+    }
 
-        modelResource.addProperty(CIM.locatedAt, locationResource);
-
+    /**
+     * Describes location reused from the platform's stored or claimed locations. Only
+     * values kept with the stored location are added: coordinates of WGS84
+     * locations, otherwise just the type. Geometry of WKT locations and name of
+     * symbolic locations are stored normalized, so they are left to the
+     * description created together with the location.
+     */
+    private void addExistingLocationToModel(org.apache.jena.rdf.model.Resource locationResource, Location location, LocationInfo existingLocation) {
+        if (location instanceof WGS84Location) {
+            locationResource.addProperty(RDF.type, CIM.WGS84Location)
+                    .addProperty(WGS84.lat, Double.valueOf(existingLocation.getLatitude()).toString())
+                    .addProperty(WGS84.long_, Double.valueOf(existingLocation.getLongitude()).toString())
+                    .addProperty(WGS84.alt, Double.valueOf(existingLocation.getAltitude()).toString());
+        }
+        if (location instanceof SymbolicLocation) {
+            locationResource.addProperty(RDF.type, CIM.SymbolicLocation);
+        }
+        if (location instanceof WKTLocation) {
+            locationResource.addProperty(RDF.type, CIM.WKTLocation);
+        }
     }
 
     private void addFoiToModelResource(Model model, org.apache.jena.rdf.model.Resource modelResource, FeatureOfInterest featureOfInterest) throws PropertyNotFoundException {
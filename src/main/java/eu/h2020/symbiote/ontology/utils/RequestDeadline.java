@@ -0,0 +1,99 @@
+package eu.h2020.symbiote.ontology.utils;
+
+import eu.h2020.symbiote.ontology.errors.RequestExpiredException;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deadline of the request processed by the current thread.
+ * <p>
+ * Consumers set the deadline when they start processing a request and clear it
+ * when they are done. Expensive processing stages call {@link #check(String)}
+ * before they start, so requests whose callers have already given up are
+ * abandoned instead of wasting CPU. Threads without deadline are never
+ * interrupted. Abandoned stages are counted, so the amount of expired work can
+ * be monitored.
+ */
+public final class RequestDeadline {
+
+    public static final String STAGE_PARSE = "parse";
+    public static final String STAGE_INFERENCE = "inference";
+    public static final String STAGE_CLOSURE = "closure";
+    public static final String STAGE_CARDINALITY = "cardinality";
+    public static final String STAGE_RDF_GENERATION = "rdfGeneration";
+
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private static final AtomicLong expired = new AtomicLong();
+    private static final Map<String, AtomicLong> expiredByStage = new ConcurrentHashMap<>();
+
+    private RequestDeadline() {
+    }
+
+    /**
+     * Sets deadline of the request processed by the current thread.
+     *
+     * @param deadline time in milliseconds since epoch, values lower than 1 mean there is no deadline
+     */
+    public static void set(long deadline) {
+        if (deadline > 0) {
+            DEADLINE.set(deadline);
+        } else {
+            DEADLINE.remove();
+        }
+    }
+
+    /**
+     * Removes deadline of the current thread.
+     */
+    public static void clear() {
+        DEADLINE.remove();
+    }
+
+    /**
+     * @return <code>true</code> if the current thread has a deadline which has passed
+     */
+    public static boolean isExpired() {
+        Long deadline = DEADLINE.get();
+        return deadline != null && System.currentTimeMillis() > deadline;
+    }
+
+    /**
+     * Checks the deadline of the current thread before starting the stage.
+     *
+     * @param stage name of the stage to be started
+     * @throws RequestExpiredException if the deadline has passed
+     */
+    public static void check(String stage) {
+        Long deadline = DEADLINE.get();
+        if (deadline == null) {
+            return;
+        }
+        long overdue = System.currentTimeMillis() - deadline;
+        if (overdue > 0) {
+            expired.incrementAndGet();
+            expiredByStage.computeIfAbsent(stage, x -> new AtomicLong()).incrementAndGet();
+            throw new RequestExpiredException(stage, overdue);
+        }
+    }
+
+    /**
+     * @return number of requests abandoned because of passed deadline
+     */
+    public static long getExpired() {
+        return expired.get();
+    }
+
+    /**
+     * @return number of abandoned requests by the stage which was not started
+     */
+    public static Map<String, Long> getExpiredByStage() {
+        Map<String, Long> result = new TreeMap<>();
+        expiredByStage.forEach((stage, count) -> result.put(stage, count.get()));
+        return Collections.unmodifiableMap(result);
+    }
+}
@@ -4,6 +4,7 @@ import eu.h2020.symbiote.core.internal.CoreResourceType;
 import eu.h2020.symbiote.model.cim.*;
 import eu.h2020.symbiote.model.mim.InformationModel;
 import eu.h2020.symbiote.ontology.errors.PropertyNotFoundException;
+import eu.h2020.symbiote.ontology.validation.CardinalityConstraintIndex;
 import eu.h2020.symbiote.semantics.GraphHelper;
 import eu.h2020.symbiote.semantics.ModelHelper;
 import eu.h2020.symbiote.semantics.ontology.*;
@@ -12,16 +13,24 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.jena.query.Dataset;
 import org.apache.jena.query.DatasetFactory;
 import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.Resource;
-import org.apache.jena.rdf.model.ResourceFactory;
+import org.apache.jena.shared.Lock;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * Utility class to handle symbIoTe-defined models.
+ * <p>
+ * Lookups may be done concurrently, e.g. while generating RDF of resources in
+ * parallel. Registered information models are changed under the write lock of
+ * their dataset and looked up under its read lock.
  *
  * Created by Szymon Mueller on 02/05/2017.
  */
@@ -43,6 +52,13 @@ public class SymbioteModelsUtil {
     private static Dataset quRecDataset;
     private static Dataset pimDataset;
 
+    private static final Map<String, CardinalityConstraintIndex> cardinalityConstraints = new ConcurrentHashMap<>();
+
+    /**
+     * Names of BIM properties and QU quantities, rebuilt whenever BIM changes.
+     */
+    private static volatile PropertyNameIndex propertyIndex;
+
     private SymbioteModelsUtil() {
 
     }
@@ -75,13 +91,110 @@ public class SymbioteModelsUtil {
         loadBaseModel(BIM_PROPERTY.getURI(), ModelHelper.getInformationModelURI(BIM_ID), pimDataset);
         // should not be neccesarry if BIM is loaded with imports
         loadBaseModel(QU.getURI(), ModelHelper.getInformationModelURI(QU_ID), quRecDataset);
+
+        compileCardinalityConstraints(BIM_ID);
+        buildPropertyIndex();
+    }
+
+    /**
+     * Indexes names of BIM properties and QU quantities, BIM taking precedence.
+     */
+    private static void buildPropertyIndex() {
+        LinkedHashMap<String, Model> vocabularies = new LinkedHashMap<>();
+        PropertyNameIndex index;
+        pimDataset.getLock().enterCriticalSection(Lock.READ);
+        quRecDataset.getLock().enterCriticalSection(Lock.READ);
+        try {
+            vocabularies.put(BIM_PROPERTY_NAME, pimDataset.getNamedModel(ModelHelper.getInformationModelURI(BIM_ID)));
+            vocabularies.put(QU_QUANTITY_BASE_NAME, quRecDataset.getNamedModel(ModelHelper.getInformationModelURI(QU_ID)));
+            index = PropertyNameIndex.build(vocabularies);
+        } finally {
+            quRecDataset.getLock().leaveCriticalSection();
+            pimDataset.getLock().leaveCriticalSection();
+        }
+        propertyIndex = index;
+        log.debug("Indexed " + index.size() + " property names of symbIoTe models");
+    }
+
+    private static void modelChanged(String modelId) {
+        if (BIM_ID.equals(modelId)) {
+            buildPropertyIndex();
+        }
+    }
+
+    /**
+     * Extracts cardinality restrictions of the information model (including its
+     * imports) into the index used during resource validation. In case of
+     * failure no index is stored and validation falls back to SPARQL queries.
+     * The model is copied under the read lock, imports are loaded and the
+     * constraints compiled without holding it.
+     *
+     * @param modelId id of the information model
+     */
+    private static void compileCardinalityConstraints(String modelId) {
+        try {
+            Model model = copyInformationModel(modelId);
+            CardinalityConstraintIndex index = CardinalityConstraintIndex.compile(ModelHelper.asOntModel(model, false, true));
+            cardinalityConstraints.put(modelId, index);
+            log.debug("Compiled cardinality constraints of model " + modelId + " for " + index.size() + " classes");
+        } catch (IOException | RuntimeException ex) {
+            cardinalityConstraints.remove(modelId);
+            log.warn("Could not compile cardinality constraints of model " + modelId + ". Reason: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * @param modelId id of the information model
+     * @return copy of the registered information model, empty if there is no such model
+     */
+    private static Model copyInformationModel(String modelId) {
+        Model copy = ModelFactory.createDefaultModel();
+        pimDataset.getLock().enterCriticalSection(Lock.READ);
+        try {
+            Model model = pimDataset.getNamedModel(ModelHelper.getInformationModelURI(modelId));
+            copy.setNsPrefixes(model.getNsPrefixMap());
+            copy.add(model);
+        } finally {
+            pimDataset.getLock().leaveCriticalSection();
+        }
+        return copy;
+    }
+
+    private static void insertModel(InformationModel model, Model parsedModel, boolean replace) {
+        pimDataset.getLock().enterCriticalSection(Lock.WRITE);
+        try {
+            if (replace) {
+                GraphHelper.removeGraph(pimDataset, ModelHelper.getInformationModelURI(model.getId()));
+            }
+            if (parsedModel != null) {
+                GraphHelper.insertGraph(pimDataset, ModelHelper.getInformationModelURI(model.getId()), parsedModel);
+            } else {
+                GraphHelper.insertGraph(pimDataset, ModelHelper.getInformationModelURI(model.getId()), model.getRdf(), model.getRdfFormat());
+            }
+        } finally {
+            pimDataset.getLock().leaveCriticalSection();
+        }
     }
 
     public static void addModels(List<InformationModel> informationModels) {
+        addModels(informationModels, model -> null);
+    }
+
+    /**
+     * Adds information models, reusing models which were already parsed (e.g.
+     * during validation) instead of parsing their RDF again.
+     *
+     * @param informationModels models to be added
+     * @param parsedModels      returns parsed RDF of the model or <code>null</code> if it has to be parsed,
+     *                          returned models are stored and must not be used by the caller afterwards
+     */
+    public static void addModels(List<InformationModel> informationModels, Function<InformationModel, Model> parsedModels) {
         if (informationModels != null) {
             log.info("Adding " + informationModels.size() + " information models to Semantic Manager cache");
             for (InformationModel model : informationModels) {
-                GraphHelper.insertGraph(pimDataset, ModelHelper.getInformationModelURI(model.getId()), model.getRdf(), model.getRdfFormat());
+                insertModel(model, parsedModels.apply(model), false);
+                compileCardinalityConstraints(model.getId());
+                modelChanged(model.getId());
             }
             log.debug("Adding finished");
         } else {
@@ -90,11 +203,23 @@ public class SymbioteModelsUtil {
     }
 
     public static void modifyModels(List<InformationModel> informationModels) {
+        modifyModels(informationModels, model -> null);
+    }
+
+    /**
+     * Replaces information models, reusing models which were already parsed.
+     *
+     * @param informationModels models to be modified
+     * @param parsedModels      returns parsed RDF of the model or <code>null</code> if it has to be parsed
+     * @see #addModels(List, Function)
+     */
+    public static void modifyModels(List<InformationModel> informationModels, Function<InformationModel, Model> parsedModels) {
         if (informationModels != null) {
             log.info("Modifying " + informationModels.size() + " information models in Semantic Manager cache");
             for (InformationModel model : informationModels) {
-                GraphHelper.removeGraph(pimDataset, ModelHelper.getInformationModelURI(model.getId()));
-                GraphHelper.insertGraph(pimDataset, ModelHelper.getInformationModelURI(model.getId()), model.getRdf(), model.getRdfFormat());
+                insertModel(model, parsedModels.apply(model), true);
+                compileCardinalityConstraints(model.getId());
+                modelChanged(model.getId());
             }
             log.debug("Modifying finished");
         } else {
@@ -106,7 +231,14 @@ public class SymbioteModelsUtil {
         if (informationModels != null) {
             log.info("Removing " + informationModels.size() + " information models from Semantic Manager cache");
             for (InformationModel model : informationModels) {
-                GraphHelper.removeGraph(pimDataset, ModelHelper.getInformationModelURI(model.getId()));
+                pimDataset.getLock().enterCriticalSection(Lock.WRITE);
+                try {
+                    GraphHelper.removeGraph(pimDataset, ModelHelper.getInformationModelURI(model.getId()));
+                } finally {
+                    pimDataset.getLock().leaveCriticalSection();
+                }
+                cardinalityConstraints.remove(model.getId());
+                modelChanged(model.getId());
             }
             log.debug("Removing finished");
         } else {
@@ -116,64 +248,61 @@ public class SymbioteModelsUtil {
 
     /**
      * Checks if specified name is used in one of the symbIoTe Core models: BIM
-     * and CIM.
+     * and CIM. Names are looked up in an index built when the models are loaded.
      *
      * @param name Name to search for
-     * @return URI of the resource or <code>null</code> in case it couldn't be
-     * found in any of the models.
+     * @return URI of the resource
+     * @throws PropertyNotFoundException if the name is not used in any of the models
      */
     public static String findInSymbioteCoreModels(String name) throws eu.h2020.symbiote.ontology.errors.PropertyNotFoundException {
-        String uri = null;
-        List<eu.h2020.symbiote.ontology.errors.PropertyNotFoundException> propertyNotFoundExceptions = new ArrayList<>();
         log.debug("Checking for " + name + " in symbIoTe models");
-        //Check in BIM
-        try {
-//            Optional<Resource> result = ModelHelper.findResource(CIM.Property, name, BIM_ID, bimDataset);
-//            if (!result.isPresent()) {
-//                throw new PropertyNotFoundException(name, BIM.getURI());
-//            }
-            uri = findUriForNameInModel(name, ModelHelper.getInformationModelURI(BIM_ID), pimDataset, BIM_PROPERTY_NAME);
-        } catch (eu.h2020.symbiote.ontology.errors.PropertyNotFoundException e) {
-            log.error(e);
-            propertyNotFoundExceptions.add(e);
-        }
-
-        if (uri == null) {
-            try {
-                uri = findUriForNameInModel(name, ModelHelper.getInformationModelURI(QU_ID), quRecDataset, QU_QUANTITY_BASE_NAME);
-            } catch (eu.h2020.symbiote.ontology.errors.PropertyNotFoundException e) {
-                log.error(e);
-                propertyNotFoundExceptions.add(e);
-            }
-        }
-
+        PropertyNameIndex index = propertyIndex;
+        String uri = index.find(name);
         if (uri == null) {
             //Could not find it in any models, creating and returning aggregated error
             StringBuilder sb = new StringBuilder();
             int i = 0;
-            for (PropertyNotFoundException exc : propertyNotFoundExceptions) {
-                sb.append("[" + i++ + " " + exc.getSearchedModel() + "] ");
+            for (String namespace : index.getNamespaces()) {
+                sb.append("[" + i++ + " " + namespace + "] ");
             }
             throw new PropertyNotFoundException(name, sb.toString());
         }
-
         return uri;
     }
 
-    private static String findUriForNameInModel(String name, String modelUri, Dataset modelDataset, String modelBasename) throws eu.h2020.symbiote.ontology.errors.PropertyNotFoundException {
-        String uri;
-
-        Resource resourceToSearch = ResourceFactory.createResource(modelBasename + name);
-        if (modelDataset.getNamedModel(modelUri).containsResource(resourceToSearch)) {
-            uri = modelBasename + name;
-        } else {
-            throw new PropertyNotFoundException(name, modelBasename);
+    /**
+     * @param id id of the information model
+     * @return <code>true</code> if the information model is registered and not empty
+     */
+    public static boolean hasInformationModel(String id) {
+        pimDataset.getLock().enterCriticalSection(Lock.READ);
+        try {
+            return !pimDataset.getNamedModel(ModelHelper.getInformationModelURI(id)).isEmpty();
+        } finally {
+            pimDataset.getLock().leaveCriticalSection();
         }
-        return uri;
     }
 
+    /**
+     * Returns copy of the information model taken under the read lock, so it
+     * is not affected by later modifications of the model.
+     *
+     * @param id id of the information model
+     * @return copy of the information model, empty if there is no such model
+     */
     public static Model findInformationModelById(String id) {
-        return pimDataset.getNamedModel(ModelHelper.getInformationModelURI(id));
+        return copyInformationModel(id);
+    }
+
+    /**
+     * Returns cardinality constraints compiled when the information model was
+     * registered.
+     *
+     * @param id id of the information model
+     * @return compiled constraints or <code>null</code> if they are not available
+     */
+    public static CardinalityConstraintIndex findCardinalityConstraintsById(String id) {
+        return cardinalityConstraints.get(id);
     }
 
     public static CoreResourceType getTypeForResource(eu.h2020.symbiote.model.cim.Resource resource) {
@@ -0,0 +1,148 @@
+package eu.h2020.symbiote.ontology.validation;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.util.FmtUtils;
+
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * Single qualified cardinality restriction (<code>owl:qualifiedCardinality</code>,
+ * <code>owl:minQualifiedCardinality</code> or <code>owl:maxQualifiedCardinality</code>)
+ * extracted from an information model.
+ */
+public final class CardinalityConstraint {
+
+    /**
+     * Kind of the restriction, declared in the order in which violations are reported.
+     */
+    public enum Kind {
+        EXACT("exact"),
+        MIN("min"),
+        MAX("max");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    static final Comparator<CardinalityConstraint> REPORT_ORDER = Comparator
+            .comparing(CardinalityConstraint::getKind)
+            .thenComparing(x -> !x.isDataProperty())
+            .thenComparing(x -> x.getProperty().toString())
+            .thenComparing(x -> x.getType().toString())
+            .thenComparing(x -> x.getCardinalityNode().toString());
+
+    private final Kind kind;
+    private final boolean dataProperty;
+    private final Node property;
+    private final Node type;
+    private final Node cardinalityNode;
+    private final int cardinality;
+
+    /**
+     * @param cardinalityNode literal defining the cardinality, as stated in the information model
+     * @param cardinality     value of the literal
+     */
+    public CardinalityConstraint(Kind kind, boolean dataProperty, Node property, Node type, Node cardinalityNode, int cardinality) {
+        this.kind = kind;
+        this.dataProperty = dataProperty;
+        this.property = property;
+        this.type = type;
+        this.cardinalityNode = cardinalityNode;
+        this.cardinality = cardinality;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return <code>true</code> if restriction uses <code>owl:onDataRange</code>,
+     * <code>false</code> if it uses <code>owl:onClass</code>
+     */
+    public boolean isDataProperty() {
+        return dataProperty;
+    }
+
+    public Node getProperty() {
+        return property;
+    }
+
+    public Node getType() {
+        return type;
+    }
+
+    public Node getCardinalityNode() {
+        return cardinalityNode;
+    }
+
+    public int getCardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Checks if the number of values present for the property violates this constraint.
+     *
+     * @param presentCardinality number of distinct matching values
+     * @return <code>true</code> if the constraint is violated
+     */
+    public boolean isViolatedBy(int presentCardinality) {
+        switch (kind) {
+            case MIN:
+                return cardinality > presentCardinality;
+            case MAX:
+                return cardinality < presentCardinality;
+            default:
+                return cardinality != presentCardinality;
+        }
+    }
+
+    /**
+     * Creates violation message in the same format as the one produced by SPARQL-based validation.
+     *
+     * @param presentCardinality number of distinct matching values
+     * @return message describing the violation
+     */
+    public String createViolationMessage(int presentCardinality) {
+        return kind.getLabel() + " cardinaility for " + (dataProperty ? "data" : "object") + " property violated - "
+                + "( ?property = " + FmtUtils.stringForNode(property) + " ) "
+                + "( ?type = " + FmtUtils.stringForNode(type) + " ) "
+                + "( ?cardinality = " + FmtUtils.stringForNode(cardinalityNode) + " ) "
+                + "( ?presentCardinality = " + presentCardinality + " )";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CardinalityConstraint that = (CardinalityConstraint) o;
+        return dataProperty == that.dataProperty
+                && kind == that.kind
+                && property.equals(that.property)
+                && type.equals(that.type)
+                && cardinalityNode.equals(that.cardinalityNode);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, dataProperty, property, type, cardinalityNode);
+    }
+
+    @Override
+    public String toString() {
+        return "CardinalityConstraint{" +
+                "kind=" + kind +
+                ", dataProperty=" + dataProperty +
+                ", property=" + property +
+                ", type=" + type +
+                ", cardinality=" + cardinalityNode +
+                '}';
+    }
+}
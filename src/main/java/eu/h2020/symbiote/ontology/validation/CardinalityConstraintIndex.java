@@ -0,0 +1,230 @@
+package eu.h2020.symbiote.ontology.validation;
+
+import eu.h2020.symbiote.semantics.ontology.CIM;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.vocabulary.OWL2;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+
+import java.util.*;
+
+/**
+ * Cardinality restrictions of an information model compiled into an in-memory
+ * index keyed by class. The index is built once, when the model is registered,
+ * and allows checking resources without running the cardinality SPARQL queries
+ * against the inference-enabled model.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ */
+public final class CardinalityConstraintIndex {
+
+    private static final Node RESOURCE_CLASS = CIM.Resource.asNode();
+    private static final Node RDFS_LITERAL = RDFS.Literal.asNode();
+
+    private final TransitiveClosure subClassOf;
+    private final TransitiveClosure subPropertyOf;
+    private final Map<Node, Set<Node>> domains;
+    private final Map<Node, Set<Node>> ranges;
+    private final Map<Node, Set<CardinalityConstraint>> constraintsByClass;
+
+    private CardinalityConstraintIndex(TransitiveClosure subClassOf,
+                                       TransitiveClosure subPropertyOf,
+                                       Map<Node, Set<Node>> domains,
+                                       Map<Node, Set<Node>> ranges,
+                                       Map<Node, Set<CardinalityConstraint>> constraintsByClass) {
+        this.subClassOf = subClassOf;
+        this.subPropertyOf = subPropertyOf;
+        this.domains = domains;
+        this.ranges = ranges;
+        this.constraintsByClass = constraintsByClass;
+    }
+
+    /**
+     * Extracts all cardinality restrictions from the model. Model should contain
+     * the import closure of the information model (i.e. CIM), as restrictions
+     * are inherited through <code>rdfs:subClassOf</code>.
+     *
+     * @param model information model including its imports
+     * @return compiled index
+     */
+    public static CardinalityConstraintIndex compile(Model model) {
+        Graph graph = model.getGraph();
+
+        TransitiveClosure subClassOf = TransitiveClosure.compute(graph, RDFS.subClassOf.asNode());
+        TransitiveClosure subPropertyOf = TransitiveClosure.compute(graph, RDFS.subPropertyOf.asNode());
+
+        Map<Node, Set<CardinalityConstraint>> restrictions = readRestrictions(graph);
+        Map<Node, Set<CardinalityConstraint>> constraintsByClass = new HashMap<>();
+        for (Node clazz : subClassOf.getDescendants(RESOURCE_CLASS)) {
+            Set<CardinalityConstraint> constraints = new HashSet<>();
+            for (Node superClass : subClassOf.getAncestors(clazz)) {
+                constraints.addAll(restrictions.getOrDefault(superClass, Collections.emptySet()));
+            }
+            if (!constraints.isEmpty()) {
+                constraintsByClass.put(clazz, Collections.unmodifiableSet(constraints));
+            }
+        }
+
+        return new CardinalityConstraintIndex(
+                subClassOf,
+                subPropertyOf,
+                directEdges(graph, RDFS.domain.asNode()),
+                directEdges(graph, RDFS.range.asNode()),
+                constraintsByClass);
+    }
+
+    /**
+     * Checks cardinality restrictions for the resource.
+     *
+     * @param instance     resource to be checked
+     * @param instanceData model containing description of the resource
+     * @return list of violation messages, empty if resource is valid
+     */
+    public List<String> checkCardinalityViolations(Resource instance, Model instanceData) {
+        Node subject = instance.asNode();
+        Graph graph = instanceData.getGraph();
+
+        List<CardinalityConstraint> constraints = new ArrayList<>(getConstraints(inferTypes(subject, graph)));
+        constraints.sort(CardinalityConstraint.REPORT_ORDER);
+
+        List<String> result = new ArrayList<>();
+        for (CardinalityConstraint constraint : constraints) {
+            int presentCardinality = countValues(subject, graph, constraint);
+            if (constraint.isViolatedBy(presentCardinality)) {
+                result.add(constraint.createViolationMessage(presentCardinality));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param classes classes of the resource (including inferred ones)
+     * @return all constraints applicable to the resource
+     */
+    public Set<CardinalityConstraint> getConstraints(Set<Node> classes) {
+        Set<CardinalityConstraint> result = new HashSet<>();
+        for (Node clazz : classes) {
+            result.addAll(constraintsByClass.getOrDefault(clazz, Collections.emptySet()));
+        }
+        return result;
+    }
+
+    /**
+     * @return closure of <code>rdfs:subClassOf</code> of the information model and its imports
+     */
+    public TransitiveClosure getSubClassOf() {
+        return subClassOf;
+    }
+
+    /**
+     * @return number of classes having at least one cardinality constraint
+     */
+    public int size() {
+        return constraintsByClass.size();
+    }
+
+    private Set<Node> inferTypes(Node subject, Graph graph) {
+        Set<Node> asserted = new HashSet<>();
+        graph.find(subject, RDF.type.asNode(), Node.ANY)
+                .forEachRemaining(x -> asserted.add(x.getObject()));
+        graph.find(subject, Node.ANY, Node.ANY)
+                .forEachRemaining(x -> addForSuperProperties(x.getPredicate(), domains, asserted));
+        graph.find(Node.ANY, Node.ANY, subject)
+                .forEachRemaining(x -> addForSuperProperties(x.getPredicate(), ranges, asserted));
+
+        return subClassOf.getAncestors(asserted);
+    }
+
+    private void addForSuperProperties(Node property, Map<Node, Set<Node>> values, Set<Node> target) {
+        for (Node superProperty : subPropertyOf.getAncestors(property)) {
+            target.addAll(values.getOrDefault(superProperty, Collections.emptySet()));
+        }
+    }
+
+    private int countValues(Node subject, Graph graph, CardinalityConstraint constraint) {
+        Set<Node> values = new HashSet<>();
+        for (Node property : subPropertyOf.getDescendants(constraint.getProperty())) {
+            ExtendedIterator<Triple> it = graph.find(subject, property, Node.ANY);
+            try {
+                while (it.hasNext()) {
+                    Node value = it.next().getObject();
+                    // same semantics as the SPARQL check: datatype of non-literal values is unbound, so they always match
+                    if (!value.isLiteral() || isDatatypeOf(value.getLiteralDatatypeURI(), constraint.getType())) {
+                        values.add(value);
+                    }
+                }
+            } finally {
+                it.close();
+            }
+        }
+        return values.size();
+    }
+
+    private boolean isDatatypeOf(String datatypeUri, Node type) {
+        if (type.equals(RDFS_LITERAL)) {
+            return true;
+        }
+        return subClassOf.isBelow(NodeFactory.createURI(datatypeUri), type);
+    }
+
+    private static Map<Node, Set<CardinalityConstraint>> readRestrictions(Graph graph) {
+        Map<Node, Set<CardinalityConstraint>> result = new HashMap<>();
+        graph.find(Node.ANY, RDF.type.asNode(), OWL2.Restriction.asNode()).forEachRemaining(restrictionTriple -> {
+            Node restriction = restrictionTriple.getSubject();
+            Set<CardinalityConstraint> constraints = new HashSet<>();
+            for (Node property : objects(graph, restriction, OWL2.onProperty.asNode())) {
+                addConstraints(graph, restriction, property, CardinalityConstraint.Kind.EXACT, OWL2.qualifiedCardinality.asNode(), constraints);
+                addConstraints(graph, restriction, property, CardinalityConstraint.Kind.MIN, OWL2.minQualifiedCardinality.asNode(), constraints);
+                addConstraints(graph, restriction, property, CardinalityConstraint.Kind.MAX, OWL2.maxQualifiedCardinality.asNode(), constraints);
+            }
+            if (!constraints.isEmpty()) {
+                result.put(restriction, constraints);
+            }
+        });
+        return result;
+    }
+
+    private static void addConstraints(Graph graph, Node restriction, Node property, CardinalityConstraint.Kind kind,
+                                       Node cardinalityPredicate, Set<CardinalityConstraint> target) {
+        for (Node cardinalityNode : objects(graph, restriction, cardinalityPredicate)) {
+            Integer cardinality = asInteger(cardinalityNode);
+            if (cardinality == null) {
+                continue;
+            }
+            for (Node type : objects(graph, restriction, OWL2.onClass.asNode())) {
+                target.add(new CardinalityConstraint(kind, false, property, type, cardinalityNode, cardinality));
+            }
+            for (Node type : objects(graph, restriction, OWL2.onDataRange.asNode())) {
+                target.add(new CardinalityConstraint(kind, true, property, type, cardinalityNode, cardinality));
+            }
+        }
+    }
+
+    private static Integer asInteger(Node node) {
+        if (!node.isLiteral()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(node.getLiteralLexicalForm().trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static List<Node> objects(Graph graph, Node subject, Node predicate) {
+        return graph.find(subject, predicate, Node.ANY).mapWith(Triple::getObject).toList();
+    }
+
+    private static Map<Node, Set<Node>> directEdges(Graph graph, Node predicate) {
+        Map<Node, Set<Node>> result = new HashMap<>();
+        graph.find(Node.ANY, predicate, Node.ANY).forEachRemaining(
+                x -> result.computeIfAbsent(x.getSubject(), y -> new HashSet<>()).add(x.getObject()));
+        return result;
+    }
+}
@@ -0,0 +1,244 @@
+package eu.h2020.symbiote.ontology.validation;
+
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.sparql.algebra.Algebra;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.core.ResultBinding;
+import org.apache.jena.sparql.core.Substitute;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.QueryIterator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SPARQL queries checking qualified cardinality restrictions of a resource.
+ * Each query is parsed and its algebra compiled and optimized once, the
+ * resource is bound to the compiled algebra on every execution.
+ * <p>
+ * Constants are declared in the order in which violations are reported.
+ */
+public enum CardinalityQuery {
+
+    EXACT_DATA_PROPERTY(Queries.QUERY_CARDINALITY_EXACTLY_DATA_PROPERTY, "exact cardinaility for data property violated - "),
+    EXACT_OBJECT_PROPERTY(Queries.QUERY_CARDINALITY_EXACTLY_OBJECT_PROPERTY, "exact cardinaility for object property violated - "),
+    MIN_DATA_PROPERTY(Queries.QUERY_CARDINALITY_MIN_DATA_PROPERTY, "min cardinaility for data property violated - "),
+    MIN_OBJECT_PROPERTY(Queries.QUERY_CARDINALITY_MIN_OBJECT_PROPERTY, "min cardinaility for object property violated - "),
+    MAX_DATA_PROPERTY(Queries.QUERY_CARDINALITY_MAX_DATA_PROPERTY, "max cardinaility for data property violated - "),
+    MAX_OBJECT_PROPERTY(Queries.QUERY_CARDINALITY_MAX_OBJECT_PROPERTY, "max cardinaility for object property violated - ");
+
+    /**
+     * Variable standing for the checked resource in all queries.
+     */
+    public static final String TAG_RESOURCE_URI = Queries.TAG_RESOURCE_URI;
+
+    private static final Var RESOURCE_VAR = Var.alloc(TAG_RESOURCE_URI.substring(1));
+
+    private final String queryString;
+    private final String violationMessagePrefix;
+    private final Query query;
+    private final Op op;
+
+    CardinalityQuery(String queryString, String violationMessagePrefix) {
+        this.queryString = queryString;
+        this.violationMessagePrefix = violationMessagePrefix;
+        this.query = QueryFactory.create(queryString);
+        this.op = Algebra.optimize(Algebra.compile(query));
+    }
+
+    /**
+     * @return query text, using {@link #TAG_RESOURCE_URI} for the checked resource
+     */
+    public String getQueryString() {
+        return queryString;
+    }
+
+    public String getViolationMessagePrefix() {
+        return violationMessagePrefix;
+    }
+
+    /**
+     * Executes the query for the resource.
+     *
+     * @param model    model containing information model and description of the resource
+     * @param resource checked resource
+     * @return violation messages, one per violated restriction
+     */
+    public List<String> findViolations(Model model, Resource resource) {
+        Op boundOp = Substitute.substitute(op, RESOURCE_VAR, resource.asNode());
+        List<String> result = new ArrayList<>();
+        QueryIterator it = Algebra.exec(boundOp, model.getGraph());
+        try {
+            while (it.hasNext()) {
+                result.add(violationMessagePrefix + new ResultBinding(model, it.next()));
+            }
+        } finally {
+            it.close();
+        }
+        return result;
+    }
+
+    /**
+     * Query texts, kept in a nested class as enum constants can not refer to
+     * static fields of the enum.
+     */
+    private static final class Queries {
+
+        static final String TAG_RESOURCE_URI = "?RESOURCE_URI";
+        static final String QUERY_PREFIXES
+                = "PREFIX rdf: <http://www.w3.org/1999/02/22-rdf-syntax-ns#> \n"
+                + "PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#> \n"
+                + "PREFIX owl: <http://www.w3.org/2002/07/owl#> \n"
+                + "PREFIX xsd: <http://www.w3.org/2001/XMLSchema#> \n"
+                + "PREFIX core: <http://www.symbiote-h2020.eu/ontology/core#> \n"
+                + "\n";
+
+        static final String QUERY_CARDINALITY_EXACTLY_OBJECT_PROPERTY
+                = QUERY_PREFIXES
+                + "SELECT  ?property ?cardinality ?type (COUNT(DISTINCT ?value) AS ?presentCardinality)\n"
+                + "WHERE\n"
+                + "{ \n"
+                + "	" + TAG_RESOURCE_URI + " a ?class .\n"
+                + "	?class rdfs:subClassOf* core:Resource .\n"
+                + "	?class  rdfs:subClassOf* [\n"
+                + "		rdf:type owl:Restriction ;\n"
+                + "		owl:onProperty ?property ;\n"
+                + "		owl:qualifiedCardinality ?cardinality ;\n"
+                + "		owl:onClass ?type \n"
+                + "	]\n"
+                + "	OPTIONAL\n"
+                + "	{ \n"
+                + "		" + TAG_RESOURCE_URI + " a  ?class ;\n"
+                + "		?property  ?value\n"
+                + "		BIND (datatype(?value) as ?x)\n"
+                + "		FILTER EXISTS {?x rdfs:subClassOf* ?type }\n"
+                + "	}\n"
+                + "}\n"
+                + "GROUP BY ?property ?cardinality ?type\n"
+                + "HAVING(?cardinality != ?presentCardinality)\n"
+                + "";
+
+        static final String QUERY_CARDINALITY_EXACTLY_DATA_PROPERTY
+                = QUERY_PREFIXES
+                + "SELECT  ?property ?cardinality ?type (COUNT(DISTINCT ?value) AS ?presentCardinality)\n"
+                + "WHERE\n"
+                + "  { \n"
+                + "	" + TAG_RESOURCE_URI + " a ?class .\n"
+                + "	?class rdfs:subClassOf* core:Resource .\n"
+                + "	?class  rdfs:subClassOf* [\n"
+                + "		   a owl:Restriction ;\n"
+                + "            owl:onProperty ?property ;\n"
+                + "            owl:qualifiedCardinality ?cardinality ;\n"
+                + "            owl:onDataRange ?type \n"
+                + "		]\n"
+                + "    OPTIONAL\n"
+                + "	{ \n"
+                + "		" + TAG_RESOURCE_URI + "  a  ?class ;\n"
+                + "			  ?property  ?value\n"
+                + "		BIND (datatype(?value) as ?x)\n"
+                + "		FILTER EXISTS {?x rdfs:subClassOf* ?type }\n"
+                + "	}\n"
+                + "  }\n"
+                + "GROUP BY ?property ?cardinality ?type\n"
+                + "HAVING(?cardinality != ?presentCardinality)";
+
+        static final String QUERY_CARDINALITY_MIN_OBJECT_PROPERTY
+                = QUERY_PREFIXES
+                + "SELECT  ?property ?cardinality ?type (COUNT(DISTINCT ?value) AS ?presentCardinality)\n"
+                + "WHERE\n"
+                + "{ \n"
+                + "	" + TAG_RESOURCE_URI + " a ?class .\n"
+                + "	?class rdfs:subClassOf* core:Resource .\n"
+                + "	?class  rdfs:subClassOf* [\n"
+                + "		rdf:type owl:Restriction ;\n"
+                + "		owl:onProperty ?property ;\n"
+                + "		owl:minQualifiedCardinality ?cardinality ;\n"
+                + "		owl:onClass ?type \n"
+                + "	]\n"
+                + "	OPTIONAL\n"
+                + "	{ \n"
+                + "		" + TAG_RESOURCE_URI + " a  ?class ;\n"
+                + "		?property  ?value\n"
+                + "		BIND (datatype(?value) as ?x)\n"
+                + "		FILTER EXISTS {?x rdfs:subClassOf* ?type }\n"
+                + "	}\n"
+                + "}\n"
+                + "GROUP BY ?property ?cardinality ?type\n"
+                + "HAVING(?cardinality > ?presentCardinality)";
+
+        static final String QUERY_CARDINALITY_MIN_DATA_PROPERTY
+                = QUERY_PREFIXES
+                + "SELECT  ?property ?cardinality ?type (COUNT(DISTINCT ?value) AS ?presentCardinality)\n"
+                + "WHERE\n"
+                + "{ \n"
+                + "	" + TAG_RESOURCE_URI + " a ?class .\n"
+                + "	?class rdfs:subClassOf* core:Resource .\n"
+                + "	?class  rdfs:subClassOf* [\n"
+                + "		rdf:type owl:Restriction ;\n"
+                + "		owl:onProperty ?property ;\n"
+                + "		owl:minQualifiedCardinality ?cardinality ;\n"
+                + "		owl:onDataRange ?type \n"
+                + "	]\n"
+                + "	OPTIONAL\n"
+                + "	{ \n"
+                + "		" + TAG_RESOURCE_URI + " a  ?class ;\n"
+                + "		?property  ?value\n"
+                + "		BIND (datatype(?value) as ?x)\n"
+                + "		FILTER EXISTS {?x rdfs:subClassOf* ?type }\n"
+                + "	}\n"
+                + "}\n"
+                + "GROUP BY ?property ?cardinality ?type\n"
+                + "HAVING(?cardinality > ?presentCardinality)";
+
+        static final String QUERY_CARDINALITY_MAX_OBJECT_PROPERTY
+                = QUERY_PREFIXES
+                + "SELECT  ?property ?cardinality ?type (COUNT(DISTINCT ?value) AS ?presentCardinality)\n"
+                + "WHERE\n"
+                + "{ \n"
+                + "	" + TAG_RESOURCE_URI + " a ?class .\n"
+                + "	?class rdfs:subClassOf* core:Resource .\n"
+                + "	?class  rdfs:subClassOf* [\n"
+                + "		rdf:type owl:Restriction ;\n"
+                + "		owl:onProperty ?property ;\n"
+                + "		owl:maxQualifiedCardinality ?cardinality ;\n"
+                + "		owl:onClass ?type \n"
+                + "	]\n"
+                + "	OPTIONAL\n"
+                + "	{ \n"
+                + "		" + TAG_RESOURCE_URI + " a  ?class ;\n"
+                + "		?property  ?value\n"
+                + "		BIND (datatype(?value) as ?x)\n"
+                + "		FILTER EXISTS {?x rdfs:subClassOf* ?type }\n"
+                + "	}\n"
+                + "}\n"
+                + "GROUP BY ?property ?cardinality ?type\n"
+                + "HAVING(?cardinality < ?presentCardinality)";
+
+        static final String QUERY_CARDINALITY_MAX_DATA_PROPERTY
+                = QUERY_PREFIXES
+                + "SELECT  ?property ?cardinality ?type (COUNT(DISTINCT ?value) AS ?presentCardinality)\n"
+                + "WHERE\n"
+                + "{ \n"
+                + "	" + TAG_RESOURCE_URI + " a ?class .\n"
+                + "	?class rdfs:subClassOf* core:Resource .\n"
+                + "	?class  rdfs:subClassOf* [\n"
+                + "		rdf:type owl:Restriction ;\n"
+                + "		owl:onProperty ?property ;\n"
+                + "		owl:maxQualifiedCardinality ?cardinality ;\n"
+                + "		owl:onDataRange ?type \n"
+                + "	]\n"
+                + "	OPTIONAL\n"
+                + "	{ \n"
+                + "		" + TAG_RESOURCE_URI + " a  ?class ;\n"
+                + "		?property  ?value\n"
+                + "		BIND (datatype(?value) as ?x)\n"
+                + "		FILTER EXISTS {?x rdfs:subClassOf* ?type }\n"
+                + "	}\n"
+                + "}\n"
+                + "GROUP BY ?property ?cardinality ?type\n"
+                + "HAVING(?cardinality < ?presentCardinality)";
+    }
+}
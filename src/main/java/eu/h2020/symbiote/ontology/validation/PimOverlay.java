@@ -0,0 +1,47 @@
+package eu.h2020.symbiote.ontology.validation;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.sparql.graph.GraphReadOnly;
+
+/**
+ * Read-only view of an information model together with description of a single
+ * resource. The view is created by {@link PimValidationView#overlay(Model)} and
+ * should be used within try-with-resources block.
+ * <p>
+ * Neither the information model nor the resource description are modified by
+ * the view, closing it only releases statements inferred for the resource.
+ */
+public class PimOverlay implements AutoCloseable {
+
+    private final Model model;
+
+    PimOverlay(Model model) {
+        this.model = model;
+    }
+
+    /**
+     * @return model containing statements (and inferences) of both information model and resource description
+     */
+    public Model getModel() {
+        return model;
+    }
+
+    @Override
+    public void close() {
+        model.close();
+    }
+
+    /**
+     * Protects the graph from modifications. Closing is ignored as well, as
+     * the graph is shared with other overlays or owned by the caller.
+     */
+    static Graph protect(Graph graph) {
+        return new GraphReadOnly(graph) {
+            @Override
+            public void close() {
+                // graph is shared or owned by the caller
+            }
+        };
+    }
+}
@@ -0,0 +1,187 @@
+package eu.h2020.symbiote.ontology.validation;
+
+import eu.h2020.symbiote.semantics.ontology.CIM;
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.GraphUtil;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.graph.compose.MultiUnion;
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.reasoner.ReasonerFactory;
+import org.apache.jena.reasoner.rulesys.RDFSRuleReasonerFactory;
+import org.apache.jena.sparql.graph.GraphFactory;
+import org.apache.jena.util.iterator.ExtendedIterator;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inference-enabled information model prepared for validation of resources.
+ * <p>
+ * All statements of the model, including the inferred ones, are materialized
+ * once, when the view is created. Super-classes, super-properties, domains and
+ * ranges are indexed at the same time, as well as resources defined by the
+ * information model itself. An overlay for a resource description
+ * is a read-only union of the materialized model, the description and the
+ * statements inferred for the description from the index, so creating it
+ * costs the same regardless of the size of the information model.
+ * <p>
+ * Statements inferred for the description this way are those of the RDFS
+ * reasoner. If the information model uses any other reasoner, e.g. an OWL one
+ * entailing statements from <code>owl:inverseOf</code> or
+ * <code>owl:hasValue</code>, the overlay applies that reasoner to the union of
+ * the information model and the description instead, so the results are the
+ * same as those of the inference model, at the cost of inference per overlay.
+ * <p>
+ * The view is immutable, so overlays can be created and queried concurrently
+ * without any synchronization.
+ */
+public class PimValidationView {
+
+    private static final Node TYPE = RDF.type.asNode();
+
+    private final OntModel model;
+    private final boolean rdfsEquivalent;
+    private final Graph closure;
+    private final Map<Node, Set<Node>> superClasses;
+    private final Map<Node, Set<Node>> superProperties;
+    private final Map<Node, Set<Node>> domains;
+    private final Map<Node, Set<Node>> ranges;
+    private final Set<Node> resources;
+
+    /**
+     * @param model inference-enabled information model, must not be modified afterwards
+     */
+    public PimValidationView(OntModel model) {
+        this.model = model;
+        this.rdfsEquivalent = isRdfsEquivalent(model.getSpecification());
+        this.closure = GraphFactory.createGraphMem();
+        GraphUtil.addInto(closure, model.getGraph());
+        this.superClasses = index(closure, RDFS.subClassOf.asNode());
+        this.superProperties = index(closure, RDFS.subPropertyOf.asNode());
+        this.domains = index(closure, RDFS.domain.asNode());
+        this.ranges = index(closure, RDFS.range.asNode());
+        this.resources = Collections.unmodifiableSet(GraphUtil.listSubjects(closure, TYPE, CIM.Resource.asNode()).toSet());
+    }
+
+    private static boolean isRdfsEquivalent(OntModelSpec spec) {
+        ReasonerFactory factory = spec.getReasonerFactory();
+        return factory == null || factory instanceof RDFSRuleReasonerFactory;
+    }
+
+    private static Map<Node, Set<Node>> index(Graph graph, Node predicate) {
+        Map<Node, Set<Node>> result = new HashMap<>();
+        ExtendedIterator<Triple> it = graph.find(Node.ANY, predicate, Node.ANY);
+        try {
+            while (it.hasNext()) {
+                Triple triple = it.next();
+                result.computeIfAbsent(triple.getSubject(), x -> new HashSet<>()).add(triple.getObject());
+            }
+        } finally {
+            it.close();
+        }
+        return result;
+    }
+
+    /**
+     * @return underlying inference model, not used by overlays; it is shared between requests, so code querying
+     * it directly has to synchronize on it
+     */
+    public OntModel getModel() {
+        return model;
+    }
+
+    /**
+     * @return instances of <code>core:Resource</code> defined by the information model
+     */
+    public Set<Node> getResources() {
+        return resources;
+    }
+
+    /**
+     * Creates read-only view of the information model and the resource description.
+     *
+     * @param instanceData description of the resource
+     * @return overlay to be closed after use
+     */
+    public PimOverlay overlay(Model instanceData) {
+        Graph instanceGraph = instanceData.getGraph();
+        if (!rdfsEquivalent) {
+            MultiUnion data = new MultiUnion(new Graph[]{
+                    PimOverlay.protect(instanceGraph),
+                    PimOverlay.protect(model.getRawModel().getGraph())});
+            return new PimOverlay(ModelFactory.createInfModel(model.getSpecification().getReasoner(), ModelFactory.createModelForGraph(data)));
+        }
+        MultiUnion union = new MultiUnion(new Graph[]{
+                PimOverlay.protect(instanceGraph),
+                infer(instanceGraph),
+                PimOverlay.protect(closure)});
+        return new PimOverlay(ModelFactory.createModelForGraph(union));
+    }
+
+    /**
+     * Infers RDFS statements about the resource description using the indexed
+     * super-properties, domains, ranges and super-classes.
+     */
+    private Graph infer(Graph instanceGraph) {
+        Graph inferred = GraphFactory.createGraphMem();
+        Deque<Triple> types = new ArrayDeque<>();
+        ExtendedIterator<Triple> it = instanceGraph.find(Node.ANY, Node.ANY, Node.ANY);
+        try {
+            while (it.hasNext()) {
+                Triple triple = it.next();
+                Node subject = triple.getSubject();
+                Node object = triple.getObject();
+                if (triple.getPredicate().equals(TYPE)) {
+                    types.add(triple);
+                }
+                Set<Node> properties = new HashSet<>(superProperties.getOrDefault(triple.getPredicate(), Collections.emptySet()));
+                properties.add(triple.getPredicate());
+                for (Node property : properties) {
+                    if (!property.equals(triple.getPredicate())) {
+                        add(inferred, types, Triple.create(subject, property, object));
+                    }
+                    for (Node domain : domains.getOrDefault(property, Collections.emptySet())) {
+                        add(inferred, types, Triple.create(subject, TYPE, domain));
+                    }
+                    if (!object.isLiteral()) {
+                        for (Node range : ranges.getOrDefault(property, Collections.emptySet())) {
+                            add(inferred, types, Triple.create(object, TYPE, range));
+                        }
+                    }
+                }
+            }
+        } finally {
+            it.close();
+        }
+        while (!types.isEmpty()) {
+            Triple type = types.poll();
+            for (Node superClass : superClasses.getOrDefault(type.getObject(), Collections.emptySet())) {
+                Triple inferredType = Triple.create(type.getSubject(), TYPE, superClass);
+                if (!instanceGraph.contains(inferredType) && !inferred.contains(inferredType)) {
+                    inferred.add(inferredType);
+                }
+            }
+        }
+        return inferred;
+    }
+
+    private static void add(Graph inferred, Deque<Triple> types, Triple triple) {
+        if (!inferred.contains(triple)) {
+            inferred.add(triple);
+        }
+        if (triple.getPredicate().equals(TYPE)) {
+            types.add(triple);
+        }
+    }
+}
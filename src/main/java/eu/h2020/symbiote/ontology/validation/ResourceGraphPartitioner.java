@@ -0,0 +1,178 @@
+package eu.h2020.symbiote.ontology.validation;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.util.iterator.ExtendedIterator;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Splits instance data into descriptions of single resources. Description of a
+ * resource consists of all triples whose subject is reachable from the resource
+ * by following statements in forward direction (the resource itself included).
+ * <p>
+ * The graph is read only once. Nodes reaching each other are grouped into
+ * strongly connected components, which form a directed acyclic graph. The
+ * closure of a component is its own triples together with closures of its
+ * successors. Only closures of requested components are kept, so they are
+ * computed once and reused by requested components reaching them, e.g. by
+ * resources referencing other resources, while components only passed
+ * through (e.g. links of a long chain) are never materialized.
+ * <p>
+ * The components are immutable and computed closures are published atomically,
+ * so a single partitioner can be used by any number of threads concurrently.
+ * Every closure is collected into a new model. The indexed graph is not
+ * referenced after construction.
+ */
+public class ResourceGraphPartitioner {
+
+    private final Map<Node, Integer> components;
+    private final List<List<Triple>> ownTriples;
+    private final int[][] successors;
+    private final AtomicReferenceArray<List<Triple>> closures;
+
+    /**
+     * Indexes all triples of the graph by subject and computes strongly
+     * connected components of the subjects.
+     *
+     * @param graph instance data
+     */
+    public ResourceGraphPartitioner(Graph graph) {
+        Map<Node, Integer> ids = new HashMap<>();
+        List<List<Triple>> triplesBySubject = new ArrayList<>();
+        ExtendedIterator<Triple> it = graph.find(Node.ANY, Node.ANY, Node.ANY);
+        try {
+            while (it.hasNext()) {
+                Triple triple = it.next();
+                Integer id = ids.get(triple.getSubject());
+                if (id == null) {
+                    id = triplesBySubject.size();
+                    ids.put(triple.getSubject(), id);
+                    triplesBySubject.add(new ArrayList<>());
+                }
+                triplesBySubject.get(id).add(triple);
+            }
+        } finally {
+            it.close();
+        }
+
+        int size = triplesBySubject.size();
+        int[][] edges = new int[size][];
+        for (int i = 0; i < size; i++) {
+            Set<Integer> targets = new LinkedHashSet<>();
+            for (Triple triple : triplesBySubject.get(i)) {
+                Integer target = triple.getObject().isLiteral() ? null : ids.get(triple.getObject());
+                if (target != null) {
+                    targets.add(target);
+                }
+            }
+            edges[i] = targets.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        int[] component = StronglyConnectedComponents.compute(edges);
+        int count = StronglyConnectedComponents.count(component);
+        List<List<Triple>> own = new ArrayList<>(count);
+        List<Set<Integer>> componentSuccessors = new ArrayList<>(count);
+        for (int c = 0; c < count; c++) {
+            own.add(new ArrayList<>());
+            componentSuccessors.add(new LinkedHashSet<>());
+        }
+        for (int i = 0; i < size; i++) {
+            own.get(component[i]).addAll(triplesBySubject.get(i));
+            for (int target : edges[i]) {
+                if (component[target] != component[i]) {
+                    componentSuccessors.get(component[i]).add(component[target]);
+                }
+            }
+        }
+        int[][] succ = new int[count][];
+        for (int c = 0; c < count; c++) {
+            own.set(c, Collections.unmodifiableList(own.get(c)));
+            succ[c] = componentSuccessors.get(c).stream().mapToInt(Integer::intValue).toArray();
+        }
+        Map<Node, Integer> nodeComponents = new HashMap<>(ids.size() * 2);
+        ids.forEach((node, id) -> nodeComponents.put(node, component[id]));
+
+        this.components = Collections.unmodifiableMap(nodeComponents);
+        this.ownTriples = own;
+        this.successors = succ;
+        this.closures = new AtomicReferenceArray<>(count);
+    }
+
+    /**
+     * Creates descriptions for all given resources.
+     *
+     * @param graph     instance data
+     * @param resources resources to create descriptions for, must be URI resources
+     * @return map of resource to its description, resource keys belong to the description model
+     */
+    public static Map<Resource, Model> partition(Graph graph, Collection<? extends Resource> resources) {
+        ResourceGraphPartitioner partitioner = new ResourceGraphPartitioner(graph);
+        Map<Resource, Model> result = new HashMap<>();
+        for (Resource resource : resources) {
+            Model closure = partitioner.getClosure(resource.asNode());
+            result.put(closure.getResource(resource.getURI()), closure);
+        }
+        return result;
+    }
+
+    /**
+     * @param start node to start from
+     * @return model containing all triples reachable from the node
+     */
+    public Model getClosure(Node start) {
+        Graph closure = ModelFactory.createDefaultModel().getGraph();
+        Integer component = components.get(start);
+        if (component != null) {
+            for (Triple triple : closure(component)) {
+                closure.add(triple);
+            }
+        }
+        return ModelFactory.createModelForGraph(closure);
+    }
+
+    /**
+     * Returns closure of the component. Components it reaches are visited
+     * once, using kept closures of previously requested components instead of
+     * visiting their successors again. Only the closure of the requested
+     * component is kept.
+     */
+    private List<Triple> closure(int component) {
+        List<Triple> computed = closures.get(component);
+        if (computed != null) {
+            return computed;
+        }
+        // own triples of components are disjoint, kept closures may overlap them
+        Collection<Triple> triples = new ArrayList<>();
+        BitSet visited = new BitSet();
+        Deque<Integer> toVisit = new ArrayDeque<>();
+        toVisit.add(component);
+        visited.set(component);
+        while (!toVisit.isEmpty()) {
+            int c = toVisit.poll();
+            triples.addAll(ownTriples.get(c));
+            for (int successor : successors[c]) {
+                if (visited.get(successor)) {
+                    continue;
+                }
+                visited.set(successor);
+                List<Triple> kept = closures.get(successor);
+                if (kept == null) {
+                    toVisit.add(successor);
+                } else {
+                    if (!(triples instanceof Set)) {
+                        triples = new LinkedHashSet<>(triples);
+                    }
+                    triples.addAll(kept);
+                }
+            }
+        }
+        closures.compareAndSet(component, null, Collections.unmodifiableList(new ArrayList<>(triples)));
+        return closures.get(component);
+    }
+}
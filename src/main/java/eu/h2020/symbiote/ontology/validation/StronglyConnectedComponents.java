@@ -0,0 +1,89 @@
+package eu.h2020.symbiote.ontology.validation;
+
+import java.util.Arrays;
+
+/**
+ * Strongly connected components of a directed graph given as adjacency lists,
+ * computed by iterative Tarjan's algorithm.
+ */
+final class StronglyConnectedComponents {
+
+    private StronglyConnectedComponents() {
+    }
+
+    /**
+     * Components are numbered in reverse topological order, so successors of
+     * a component have lower numbers.
+     *
+     * @param edges successors of every node
+     * @return component of every node
+     */
+    static int[] compute(int[][] edges) {
+        int size = edges.length;
+        int[] index = new int[size];
+        int[] low = new int[size];
+        int[] component = new int[size];
+        boolean[] onStack = new boolean[size];
+        int[] stack = new int[size];
+        int[] callStack = new int[size];
+        int[] edgePosition = new int[size];
+        Arrays.fill(index, -1);
+        int counter = 0;
+        int components = 0;
+        int stackSize = 0;
+        for (int root = 0; root < size; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            int depth = 0;
+            index[root] = low[root] = counter++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            callStack[depth] = root;
+            edgePosition[depth++] = 0;
+            while (depth > 0) {
+                int node = callStack[depth - 1];
+                if (edgePosition[depth - 1] < edges[node].length) {
+                    int target = edges[node][edgePosition[depth - 1]++];
+                    if (index[target] < 0) {
+                        index[target] = low[target] = counter++;
+                        stack[stackSize++] = target;
+                        onStack[target] = true;
+                        callStack[depth] = target;
+                        edgePosition[depth++] = 0;
+                    } else if (onStack[target]) {
+                        low[node] = Math.min(low[node], index[target]);
+                    }
+                } else {
+                    depth--;
+                    if (low[node] == index[node]) {
+                        int member;
+                        do {
+                            member = stack[--stackSize];
+                            onStack[member] = false;
+                            component[member] = components;
+                        } while (member != node);
+                        components++;
+                    }
+                    if (depth > 0) {
+                        int parent = callStack[depth - 1];
+                        low[parent] = Math.min(low[parent], low[node]);
+                    }
+                }
+            }
+        }
+        return component;
+    }
+
+    /**
+     * @param component component of every node, as returned by {@link #compute(int[][])}
+     * @return number of components
+     */
+    static int count(int[] component) {
+        int count = 0;
+        for (int c : component) {
+            count = Math.max(count, c + 1);
+        }
+        return count;
+    }
+}
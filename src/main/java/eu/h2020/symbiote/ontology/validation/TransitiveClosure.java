@@ -0,0 +1,234 @@
+package eu.h2020.symbiote.ontology.validation;
+
+import org.apache.jena.graph.Graph;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.util.iterator.ExtendedIterator;
+
+import java.util.*;
+
+/**
+ * Reflexive-transitive closure of a hierarchy predicate (e.g.
+ * <code>rdfs:subClassOf</code> or <code>rdfs:subPropertyOf</code>) materialized
+ * when an information model is registered.
+ * <p>
+ * Every node taking part in the hierarchy gets an integer id. Nodes in a cycle
+ * are grouped into strongly connected components, and ancestors of every
+ * component are computed once from ancestors of its parent components and
+ * stored as a sorted array of ids shared by all members of the component.
+ * Only the ancestors are materialized, so the memory used is proportional to
+ * the size of the closure. Checking if one node is below another one is a
+ * binary search, descendants are collected on request by walking the direct
+ * sub-nodes. Nodes not present in the hierarchy are only related to themselves.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ */
+public final class TransitiveClosure {
+
+    private final Map<Node, Integer> ids;
+    private final Node[] nodes;
+    private final int[][] ancestors;
+    private final int[][] children;
+
+    private TransitiveClosure(Map<Node, Integer> ids, Node[] nodes, int[][] ancestors, int[][] children) {
+        this.ids = ids;
+        this.nodes = nodes;
+        this.ancestors = ancestors;
+        this.children = children;
+    }
+
+    /**
+     * Computes closure of all statements with the predicate.
+     *
+     * @param graph     graph containing the hierarchy, including imports
+     * @param predicate hierarchy predicate, subject is considered to be below object
+     * @return computed closure
+     */
+    public static TransitiveClosure compute(Graph graph, Node predicate) {
+        Map<Node, Integer> ids = new HashMap<>();
+        List<Node> nodes = new ArrayList<>();
+        List<int[]> edges = new ArrayList<>();
+        ExtendedIterator<Triple> it = graph.find(Node.ANY, predicate, Node.ANY);
+        try {
+            while (it.hasNext()) {
+                Triple triple = it.next();
+                edges.add(new int[]{id(triple.getSubject(), ids, nodes), id(triple.getObject(), ids, nodes)});
+            }
+        } finally {
+            it.close();
+        }
+
+        int size = nodes.size();
+        int[][] parents = adjacency(edges, size, 0);
+        int[] component = StronglyConnectedComponents.compute(parents);
+        int[][] members = members(component, StronglyConnectedComponents.count(component));
+        // parents of a component have lower numbers, so their ancestors are already computed
+        int[][] componentAncestors = new int[members.length][];
+        int[] visited = new int[members.length];
+        List<int[]> parentAncestors = new ArrayList<>();
+        for (int c = 0; c < members.length; c++) {
+            parentAncestors.clear();
+            int length = members[c].length;
+            for (int member : members[c]) {
+                for (int parent : parents[member]) {
+                    int parentComponent = component[parent];
+                    if (parentComponent != c && visited[parentComponent] != c + 1) {
+                        visited[parentComponent] = c + 1;
+                        parentAncestors.add(componentAncestors[parentComponent]);
+                        length += componentAncestors[parentComponent].length;
+                    }
+                }
+            }
+            componentAncestors[c] = merge(members[c], parentAncestors, length);
+        }
+        int[][] ancestors = new int[size][];
+        for (int i = 0; i < size; i++) {
+            ancestors[i] = componentAncestors[component[i]];
+        }
+        return new TransitiveClosure(
+                Collections.unmodifiableMap(ids),
+                nodes.toArray(new Node[size]),
+                ancestors,
+                adjacency(edges, size, 1));
+    }
+
+    /**
+     * @return <code>true</code> if node equals ancestor or is (transitively) below it
+     */
+    public boolean isBelow(Node node, Node ancestor) {
+        if (node.equals(ancestor)) {
+            return true;
+        }
+        Integer nodeId = ids.get(node);
+        Integer ancestorId = ids.get(ancestor);
+        return nodeId != null && ancestorId != null && Arrays.binarySearch(ancestors[nodeId], ancestorId) >= 0;
+    }
+
+    /**
+     * @return the node and all nodes it is (transitively) below
+     */
+    public Set<Node> getAncestors(Node node) {
+        Integer id = ids.get(node);
+        if (id == null) {
+            return Collections.singleton(node);
+        }
+        Set<Node> result = new HashSet<>(ancestors[id].length * 2);
+        addNodes(ancestors[id], result);
+        return result;
+    }
+
+    /**
+     * @return the node and all nodes (transitively) below it
+     */
+    public Set<Node> getDescendants(Node node) {
+        Integer id = ids.get(node);
+        if (id == null) {
+            return Collections.singleton(node);
+        }
+        Set<Node> result = new HashSet<>();
+        BitSet visited = new BitSet();
+        Deque<Integer> toVisit = new ArrayDeque<>();
+        visited.set(id);
+        toVisit.add(id);
+        while (!toVisit.isEmpty()) {
+            int current = toVisit.poll();
+            result.add(nodes[current]);
+            for (int child : children[current]) {
+                if (!visited.get(child)) {
+                    visited.set(child);
+                    toVisit.add(child);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the nodes and all nodes they are (transitively) below
+     */
+    public Set<Node> getAncestors(Collection<Node> nodes) {
+        Set<Node> result = new HashSet<>();
+        for (Node node : nodes) {
+            Integer id = ids.get(node);
+            if (id == null) {
+                result.add(node);
+            } else {
+                addNodes(ancestors[id], result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return number of nodes taking part in the hierarchy
+     */
+    public int size() {
+        return nodes.length;
+    }
+
+    private void addNodes(int[] related, Set<Node> result) {
+        for (int i : related) {
+            result.add(nodes[i]);
+        }
+    }
+
+    private static int id(Node node, Map<Node, Integer> ids, List<Node> nodes) {
+        return ids.computeIfAbsent(node, x -> {
+            nodes.add(x);
+            return nodes.size() - 1;
+        });
+    }
+
+    private static int[][] adjacency(List<int[]> edges, int size, int from) {
+        int[] counts = new int[size];
+        for (int[] edge : edges) {
+            counts[edge[from]]++;
+        }
+        int[][] result = new int[size][];
+        for (int i = 0; i < size; i++) {
+            result[i] = new int[counts[i]];
+        }
+        for (int[] edge : edges) {
+            result[edge[from]][--counts[edge[from]]] = edge[1 - from];
+        }
+        return result;
+    }
+
+    private static int[][] members(int[] component, int count) {
+        int[] counts = new int[count];
+        for (int c : component) {
+            counts[c]++;
+        }
+        int[][] result = new int[count][];
+        for (int c = 0; c < count; c++) {
+            result[c] = new int[counts[c]];
+        }
+        for (int i = component.length - 1; i >= 0; i--) {
+            result[component[i]][--counts[component[i]]] = i;
+        }
+        return result;
+    }
+
+    /**
+     * @return sorted ids of the members and all ancestors of the parents, without duplicates
+     */
+    private static int[] merge(int[] members, List<int[]> parentAncestors, int length) {
+        if (parentAncestors.isEmpty()) {
+            return members;
+        }
+        int[] result = Arrays.copyOf(members, length);
+        int position = members.length;
+        for (int[] ancestors : parentAncestors) {
+            System.arraycopy(ancestors, 0, result, position, ancestors.length);
+            position += ancestors.length;
+        }
+        Arrays.sort(result);
+        int unique = 0;
+        for (int i = 0; i < result.length; i++) {
+            if (i == 0 || result[i] != result[i - 1]) {
+                result[unique++] = result[i];
+            }
+        }
+        return unique == result.length ? result : Arrays.copyOf(result, unique);
+    }
+}
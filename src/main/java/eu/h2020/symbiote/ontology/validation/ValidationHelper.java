@@ -11,23 +11,21 @@ import eu.h2020.symbiote.semantics.ontology.CIM;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.jena.graph.GraphUtil;
+import org.apache.jena.graph.Node;
 import org.apache.jena.ontology.Individual;
 import org.apache.jena.ontology.OntModel;
-import org.apache.jena.query.ParameterizedSparqlString;
-import org.apache.jena.query.QueryExecution;
-import org.apache.jena.query.QueryExecutionFactory;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.rdf.model.Statement;
 import org.apache.jena.rdf.model.StmtIterator;
+import org.apache.jena.util.iterator.ExtendedIterator;
 import org.apache.jena.vocabulary.RDF;
 import org.apache.jena.vocabulary.RDFS;
 
@@ -42,185 +40,6 @@ public class ValidationHelper {
     private static final Log log = LogFactory.getLog(ValidationHelper.class);
     private static ValidationHelper instance;
 
-    private static final String TAG_RESOURCE_URI = "?RESOURCE_URI";
-    private static final String QUERY_PREFIXES
-            = "PREFIX rdf: <http://www.w3.org/1999/02/22-rdf-syntax-ns#> \n"
-            + "PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#> \n"
-            + "PREFIX owl: <http://www.w3.org/2002/07/owl#> \n"
-            + "PREFIX xsd: <http://www.w3.org/2001/XMLSchema#> \n"
-            + "PREFIX core: <http://www.symbiote-h2020.eu/ontology/core#> \n"
-            + "\n";
-
-    private static final String QUERY_CARDINALITY_EXACTLY_OBJECT_PROPERTY
-            = QUERY_PREFIXES
-            + "SELECT  ?property ?cardinality ?type (COUNT(DISTINCT ?value) AS ?presentCardinality)\n"
-            + "WHERE\n"
-            + "{ \n"
-            + "	" + TAG_RESOURCE_URI + " a ?class .\n"
-            + "	?class rdfs:subClassOf* core:Resource .\n"
-            + "	?class  rdfs:subClassOf* [\n"
-            + "		rdf:type owl:Restriction ;\n"
-            + "		owl:onProperty ?property ;\n"
-            + "		owl:qualifiedCardinality ?cardinality ;\n"
-            + "		owl:onClass ?type \n"
-            + "	]\n"
-            + "	OPTIONAL\n"
-            + "	{ \n"
-            + "		" + TAG_RESOURCE_URI + " a  ?class ;\n"
-            + "		?property  ?value\n"
-            + "		BIND (datatype(?value) as ?x)\n"
-            + "		FILTER EXISTS {?x rdfs:subClassOf* ?type }\n"
-            + "	}\n"
-            + "}\n"
-            + "GROUP BY ?property ?cardinality ?type\n"
-            + "HAVING(?cardinality != ?presentCardinality)\n"
-            + "";
-
-    private static final String QUERY_CARDINALITY_EXACTLY_DATA_PROPERTY
-            = QUERY_PREFIXES
-            + "SELECT  ?property ?cardinality ?type (COUNT(DISTINCT ?value) AS ?presentCardinality)\n"
-            + "WHERE\n"
-            + "  { \n"
-            + "	" + TAG_RESOURCE_URI + " a ?class .\n"
-            + "	?class rdfs:subClassOf* core:Resource .\n"
-            + "	?class  rdfs:subClassOf* [\n"
-            + "		   a owl:Restriction ;\n"
-            + "            owl:onProperty ?property ;\n"
-            + "            owl:qualifiedCardinality ?cardinality ;\n"
-            + "            owl:onDataRange ?type \n"
-            + "		]\n"
-            + "    OPTIONAL\n"
-            + "	{ \n"
-            + "		" + TAG_RESOURCE_URI + "  a  ?class ;\n"
-            + "			  ?property  ?value\n"
-            + "		BIND (datatype(?value) as ?x)\n"
-            + "		FILTER EXISTS {?x rdfs:subClassOf* ?type }\n"
-            + "	}\n"
-            + "  }\n"
-            + "GROUP BY ?property ?cardinality ?type\n"
-            + "HAVING(?cardinality != ?presentCardinality)";
-
-    private static final String QUERY_CARDINALITY_MIN_OBJECT_PROPERTY
-            = QUERY_PREFIXES
-            + "SELECT  ?property ?cardinality ?type (COUNT(DISTINCT ?value) AS ?presentCardinality)\n"
-            + "WHERE\n"
-            + "{ \n"
-            + "	" + TAG_RESOURCE_URI + " a ?class .\n"
-            + "	?class rdfs:subClassOf* core:Resource .\n"
-            + "	?class  rdfs:subClassOf* [\n"
-            + "		rdf:type owl:Restriction ;\n"
-            + "		owl:onProperty ?property ;\n"
-            + "		owl:minQualifiedCardinality ?cardinality ;\n"
-            + "		owl:onClass ?type \n"
-            + "	]\n"
-            + "	OPTIONAL\n"
-            + "	{ \n"
-            + "		" + TAG_RESOURCE_URI + " a  ?class ;\n"
-            + "		?property  ?value\n"
-            + "		BIND (datatype(?value) as ?x)\n"
-            + "		FILTER EXISTS {?x rdfs:subClassOf* ?type }\n"
-            + "	}\n"
-            + "}\n"
-            + "GROUP BY ?property ?cardinality ?type\n"
-            + "HAVING(?cardinality > ?presentCardinality)";
-
-    private static final String QUERY_CARDINALITY_MIN_DATA_PROPERTY
-            = QUERY_PREFIXES
-            + "SELECT  ?property ?cardinality ?type (COUNT(DISTINCT ?value) AS ?presentCardinality)\n"
-            + "WHERE\n"
-            + "{ \n"
-            + "	" + TAG_RESOURCE_URI + " a ?class .\n"
-            + "	?class rdfs:subClassOf* core:Resource .\n"
-            + "	?class  rdfs:subClassOf* [\n"
-            + "		rdf:type owl:Restriction ;\n"
-            + "		owl:onProperty ?property ;\n"
-            + "		owl:minQualifiedCardinality ?cardinality ;\n"
-            + "		owl:onDataRange ?type \n"
-            + "	]\n"
-            + "	OPTIONAL\n"
-            + "	{ \n"
-            + "		" + TAG_RESOURCE_URI + " a  ?class ;\n"
-            + "		?property  ?value\n"
-            + "		BIND (datatype(?value) as ?x)\n"
-            + "		FILTER EXISTS {?x rdfs:subClassOf* ?type }\n"
-            + "	}\n"
-            + "}\n"
-            + "GROUP BY ?property ?cardinality ?type\n"
-            + "HAVING(?cardinality > ?presentCardinality)";
-
-    private static final String QUERY_CARDINALITY_MAX_OBJECT_PROPERTY
-            = QUERY_PREFIXES
-            + "SELECT  ?property ?cardinality ?type (COUNT(DISTINCT ?value) AS ?presentCardinality)\n"
-            + "WHERE\n"
-            + "{ \n"
-            + "	" + TAG_RESOURCE_URI + " a ?class .\n"
-            + "	?class rdfs:subClassOf* core:Resource .\n"
-            + "	?class  rdfs:subClassOf* [\n"
-            + "		rdf:type owl:Restriction ;\n"
-            + "		owl:onProperty ?property ;\n"
-            + "		owl:maxQualifiedCardinality ?cardinality ;\n"
-            + "		owl:onClass ?type \n"
-            + "	]\n"
-            + "	OPTIONAL\n"
-            + "	{ \n"
-            + "		" + TAG_RESOURCE_URI + " a  ?class ;\n"
-            + "		?property  ?value\n"
-            + "		BIND (datatype(?value) as ?x)\n"
-            + "		FILTER EXISTS {?x rdfs:subClassOf* ?type }\n"
-            + "	}\n"
-            + "}\n"
-            + "GROUP BY ?property ?cardinality ?type\n"
-            + "HAVING(?cardinality < ?presentCardinality)";
-
-    private static final String QUERY_CARDINALITY_MAX_DATA_PROPERTY
-            = QUERY_PREFIXES
-            + "SELECT  ?property ?cardinality ?type (COUNT(DISTINCT ?value) AS ?presentCardinality)\n"
-            + "WHERE\n"
-            + "{ \n"
-            + "	" + TAG_RESOURCE_URI + " a ?class .\n"
-            + "	?class rdfs:subClassOf* core:Resource .\n"
-            + "	?class  rdfs:subClassOf* [\n"
-            + "		rdf:type owl:Restriction ;\n"
-            + "		owl:onProperty ?property ;\n"
-            + "		owl:maxQualifiedCardinality ?cardinality ;\n"
-            + "		owl:onDataRange ?type \n"
-            + "	]\n"
-            + "	OPTIONAL\n"
-            + "	{ \n"
-            + "		" + TAG_RESOURCE_URI + " a  ?class ;\n"
-            + "		?property  ?value\n"
-            + "		BIND (datatype(?value) as ?x)\n"
-            + "		FILTER EXISTS {?x rdfs:subClassOf* ?type }\n"
-            + "	}\n"
-            + "}\n"
-            + "GROUP BY ?property ?cardinality ?type\n"
-            + "HAVING(?cardinality < ?presentCardinality)";
-
-    private static final ParameterizedSparqlString GET_RESOURCE_CLOSURE = new ParameterizedSparqlString(
-            "CONSTRUCT {\n"
-            + "	?s ?p ?o.\n"
-            + "}\n"
-            + "{\n"
-            + "	SELECT DISTINCT ?s ?p ?o\n"
-            + "	{\n"
-            + "		{\n"
-            + "			SELECT *\n"
-            + "			{\n"
-            + "				" + TAG_RESOURCE_URI + " ?p ?o.\n"
-            + "				BIND( " + TAG_RESOURCE_URI + " as ?s)\n"
-            + "			}\n"
-            + "		}\n"
-            + "		UNION\n"
-            + "		{\n"
-            + "			SELECT *\n"
-            + "			WHERE {\n"
-            + "				" + TAG_RESOURCE_URI + " (a|!a)+ ?s . \n"
-            + "				?s ?p ?o.\n"
-            + "			}\n"
-            + "		}\n"
-            + "	}\n"
-            + "}");
-
     private ValidationHelper() {
     }
 
@@ -286,20 +105,43 @@ public class ValidationHelper {
     }
 
     public static Map<Resource, Model> sepearteResources(OntModel instances, Model pim) {
-        Map<Resource, Model> result = new HashMap<>();
+        Set<Individual> resourceIndividuals;
         instances.addSubModel(pim);
-        Set<Individual> resourcesDefinedInPIM = ModelHelper.withInf(pim).listIndividuals(CIM.Resource).toSet();
-        Set<Individual> resourceIndividuals = instances.listIndividuals(CIM.Resource).toSet();
-        resourceIndividuals.removeAll(resourcesDefinedInPIM);
-        instances.removeSubModel(pim);
-        for (Individual resource : resourceIndividuals) {
-            GET_RESOURCE_CLOSURE.setIri(TAG_RESOURCE_URI, resource.getURI());
-            try (QueryExecution qexec = QueryExecutionFactory.create(GET_RESOURCE_CLOSURE.asQuery(), instances.getRawModel())) {
-                Model resourceClosure = qexec.execConstruct();
-                result.put(resourceClosure.getResource(resource.getURI()), resourceClosure);
+        try {
+            Set<Individual> resourcesDefinedInPIM = ModelHelper.withInf(pim).listIndividuals(CIM.Resource).toSet();
+            resourceIndividuals = instances.listIndividuals(CIM.Resource).toSet();
+            resourceIndividuals.removeAll(resourcesDefinedInPIM);
+        } finally {
+            instances.removeSubModel(pim);
+        }
+        return ResourceGraphPartitioner.partition(instances.getRawModel().getGraph(), resourceIndividuals);
+    }
+
+    /**
+     * Separates descriptions of resources which are not defined by the
+     * information model itself. Types of the resources are inferred on an
+     * overlay, neither the instance data nor the information model are modified.
+     *
+     * @param instances instance data without inference
+     * @param pim information model prepared for validation
+     * @return map of resource to its description
+     */
+    public static Map<Resource, Model> sepearteResources(Model instances, PimValidationView pim) {
+        Set<Resource> resourceIndividuals = new HashSet<>();
+        try (PimOverlay overlay = pim.overlay(instances)) {
+            ExtendedIterator<Node> it = GraphUtil.listSubjects(overlay.getModel().getGraph(), RDF.type.asNode(), CIM.Resource.asNode());
+            try {
+                while (it.hasNext()) {
+                    Node node = it.next();
+                    if (!pim.getResources().contains(node)) {
+                        resourceIndividuals.add(instances.wrapAsResource(node));
+                    }
+                }
+            } finally {
+                it.close();
             }
         }
-        return result;
+        return ResourceGraphPartitioner.partition(instances.getGraph(), resourceIndividuals);
     }
 
     public static Set<String> getDefinedResourcesInNamespace(OntModel model, String namespace) {
@@ -318,38 +160,60 @@ public class ValidationHelper {
         return result;
     }
 
-    private static String setResourceUri(String source, Resource resource) {
-        return source.replace(TAG_RESOURCE_URI, "<" + resource.getURI() + ">");
+    /**
+     * Checks cardinality restrictions of the resource using constraints
+     * compiled when the information model was registered.
+     *
+     * @param instance resource to be checked
+     * @param constraints compiled constraints of the information model
+     * @param instanceData model containing description of the resource
+     * @return list of violation messages, empty if resource is valid
+     */
+    public static List<String> checkCardinalityViolations(Resource instance, CardinalityConstraintIndex constraints, Model instanceData) {
+        return constraints.checkCardinalityViolations(instance, instanceData);
     }
 
+    /**
+     * Checks cardinality restrictions of the resource directly on the
+     * information model. The description is added to the model as a sub-model
+     * for the time of the check, so callers sharing the model have to
+     * synchronize on it.
+     *
+     * @param instance resource to be checked
+     * @param pim inference-enabled information model
+     * @param instanceData model containing description of the resource
+     * @return list of violation messages, empty if resource is valid
+     */
     public static List<String> checkCardinalityViolations(Resource instance, OntModel pim, Model instanceData) {
         List<String> result = new ArrayList<>();
         pim.addSubModel(instanceData);
-        result.addAll(ModelHelper.executeSelectAsList(pim, setResourceUri(QUERY_CARDINALITY_EXACTLY_DATA_PROPERTY, instance))
-                .stream()
-                .map(x -> "exact cardinaility for data property violated - " + x)
-                .collect(Collectors.toList()));
-        result.addAll(ModelHelper.executeSelectAsList(pim, setResourceUri(QUERY_CARDINALITY_EXACTLY_OBJECT_PROPERTY, instance))
-                .stream()
-                .map(x -> "exact cardinaility for object property violated - " + x)
-                .collect(Collectors.toList()));
-        result.addAll(ModelHelper.executeSelectAsList(pim, setResourceUri(QUERY_CARDINALITY_MIN_DATA_PROPERTY, instance))
-                .stream()
-                .map(x -> "min cardinaility for data property violated - " + x)
-                .collect(Collectors.toList()));
-        result.addAll(ModelHelper.executeSelectAsList(pim, setResourceUri(QUERY_CARDINALITY_MIN_OBJECT_PROPERTY, instance))
-                .stream()
-                .map(x -> "min cardinaility for object property violated - " + x)
-                .collect(Collectors.toList()));
-        result.addAll(ModelHelper.executeSelectAsList(pim, setResourceUri(QUERY_CARDINALITY_MAX_DATA_PROPERTY, instance))
-                .stream()
-                .map(x -> "max cardinaility for data property violated - " + x)
-                .collect(Collectors.toList()));
-        result.addAll(ModelHelper.executeSelectAsList(pim, setResourceUri(QUERY_CARDINALITY_MAX_OBJECT_PROPERTY, instance))
-                .stream()
-                .map(x -> "max cardinaility for object property violated - " + x)
-                .collect(Collectors.toList()));
-        pim.removeSubModel(instanceData);
+        try {
+            for (CardinalityQuery query : CardinalityQuery.values()) {
+                result.addAll(query.findViolations(pim, instance));
+            }
+        } finally {
+            pim.removeSubModel(instanceData);
+        }
+        return result;
+    }
+
+    /**
+     * Checks cardinality restrictions of the resource using SPARQL queries
+     * executed on read-only overlay of the information model and description of
+     * the resource.
+     *
+     * @param instance resource to be checked
+     * @param pim information model prepared for validation, not modified
+     * @param instanceData model containing description of the resource
+     * @return list of violation messages, empty if resource is valid
+     */
+    public static List<String> checkCardinalityViolations(Resource instance, PimValidationView pim, Model instanceData) {
+        List<String> result = new ArrayList<>();
+        try (PimOverlay overlay = pim.overlay(instanceData)) {
+            for (CardinalityQuery query : CardinalityQuery.values()) {
+                result.addAll(query.findViolations(overlay.getModel(), instance));
+            }
+        }
         return result;
     }
 }
@@ -1,6 +1,7 @@
 package eu.h2020.symbiote.utils;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 /**
@@ -9,6 +10,7 @@ import org.springframework.data.mongodb.core.mapping.Document;
  * Created by Szymon Mueller on 28/06/2018.
  */
 @Document
+@CompoundIndex(name = "platform_location", def = "{'platformId': 1, 'latitude': 1, 'longitude': 1, 'altitude': 1, 'wktHash': 1, 'symbolicName': 1}", unique = true)
 public class LocationInfo {
 
     @Id
@@ -22,6 +24,12 @@ public class LocationInfo {
 
     private double altitude;
 
+    // hash of normalized geometry of WKT location, null for other locations
+    private String wktHash;
+
+    // normalized name of symbolic location, null for other locations
+    private String symbolicName;
+
     public LocationInfo() {
     }
 
@@ -73,6 +81,22 @@ public class LocationInfo {
         this.altitude = altitude;
     }
 
+    public String getWktHash() {
+        return wktHash;
+    }
+
+    public void setWktHash(String wktHash) {
+        this.wktHash = wktHash;
+    }
+
+    public String getSymbolicName() {
+        return symbolicName;
+    }
+
+    public void setSymbolicName(String symbolicName) {
+        this.symbolicName = symbolicName;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -84,6 +108,8 @@ public class LocationInfo {
         if (Double.compare(that.longitude, longitude) != 0) return false;
         if (Double.compare(that.altitude, altitude) != 0) return false;
         if (locationUri != null ? !locationUri.equals(that.locationUri) : that.locationUri != null) return false;
+        if (wktHash != null ? !wktHash.equals(that.wktHash) : that.wktHash != null) return false;
+        if (symbolicName != null ? !symbolicName.equals(that.symbolicName) : that.symbolicName != null) return false;
         return platformId != null ? platformId.equals(that.platformId) : that.platformId == null;
 
     }
@@ -100,6 +126,8 @@ public class LocationInfo {
         result = 31 * result + (int) (temp ^ (temp >>> 32));
         temp = Double.doubleToLongBits(altitude);
         result = 31 * result + (int) (temp ^ (temp >>> 32));
+        result = 31 * result + (wktHash != null ? wktHash.hashCode() : 0);
+        result = 31 * result + (symbolicName != null ? symbolicName.hashCode() : 0);
         return result;
     }
 
@@ -111,6 +139,8 @@ public class LocationInfo {
                 ", latitude=" + latitude +
                 ", longitude=" + longitude +
                 ", altitude=" + altitude +
+                ", wktHash='" + wktHash + '\'' +
+                ", symbolicName='" + symbolicName + '\'' +
                 '}';
     }
 }
@@ -1,5 +1,6 @@
 package eu.h2020.symbiote.utils;
 
+import eu.h2020.symbiote.ontology.utils.BoundedCache;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,9 +8,12 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.parsing.Location;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by Szymon Mueller on 29/06/2018.
@@ -21,29 +25,150 @@ public class LocationManager {
 
     private final boolean insertWholeLocation;
     private final LocationRepository locationRepo;
+    private final LocationWriter locationWriter;
+
+    // WGS84 locations closer than the tolerances in meters are matched, 0 means coordinates must be equal
+    @Value("${semantic.location.match.distanceTolerance:0}")
+    private double distanceTolerance = 0;
+    @Value("${semantic.location.match.altitudeTolerance:0}")
+    private double altitudeTolerance = 0;
+
+    // locations of platforms are cached between registrations, can be disabled e.g. for tests
+    @Value("${semantic.location.cache.enabled:true}")
+    private boolean cacheEnabled = true;
+
+    // maximum number of platforms with cached locations
+    @Value("${semantic.location.cache.size:1000}")
+    private int cacheSize = 1000;
+
+    // time in milliseconds after which cached locations of a platform are loaded again
+    @Value("${semantic.location.cache.ttl:300000}")
+    private long cacheTtl = 300000;
+
+    private final BoundedCache<String, List<LocationInfo>> locationCache = new BoundedCache<>(cacheSize, cacheTtl);
+
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLoadLatencyNanos = new AtomicLong();
 
-    @Autowired
 //    public LocationManager(@Value("semantic.insert.whole.location.for.existing") boolean insertWholeLocation,
     public LocationManager(
                            LocationRepository locationRepo) {
+        this(locationRepo, null);
+    }
+
+    /**
+     * @param locationRepo   repository of stored locations
+     * @param locationWriter stores locations created during generation of RDF, may be <code>null</code>
+     */
+    @Autowired
+    public LocationManager(LocationRepository locationRepo, LocationWriter locationWriter) {
 //        this.insertWholeLocation = insertWholeLocation;
         this.insertWholeLocation = true;
         this.locationRepo = locationRepo;
+        this.locationWriter = locationWriter;
+        if (locationWriter != null) {
+            locationWriter.addListener(this::locationsWritten);
+        }
     }
 
+    @PostConstruct
+    public void init() {
+        locationCache.setMaxSize(cacheSize);
+        locationCache.setTimeToLiveMillis(cacheTtl);
+    }
 
+
+    /**
+     * Finds existing location of the platform matching the coordinates. Loads all locations of the platform,
+     * so resolvers created by {@link #createResolver(String)} should be used when resolving more locations.
+     */
     public Optional<LocationInfo> findExistingLocation(String name, String platformId, double latitude, double longitude, double altitude) {
-        List<LocationInfo> platformLocationsList = locationRepo.findByPlatformId(platformId);
-        List<LocationInfo> equalLocations = platformLocationsList.stream().filter(locationInfo -> locationDetailsAreEqual(locationInfo, new LocationInfo(null, platformId, latitude, longitude, altitude))).collect(Collectors.toList());
-        switch (equalLocations.size()) {
-            case 1: return Optional.of(equalLocations.get(0));
-            default: if(equalLocations.size() > 1 ) {
-                log.debug("Size of location entries fulfilling the equality is more than 1: " + equalLocations.size() + ". Returning first one found.");
-                return Optional.of(equalLocations.get(0));
-            } else {
-                return Optional.empty();
-            }
+        return createResolver(platformId).findExistingLocation(name, latitude, longitude, altitude);
+    }
+
+    /**
+     * Creates resolver of locations of the platform, loading its locations once for all resolved locations.
+     *
+     * @param platformId id of the platform or SSP
+     * @return resolver to be used for a single registration
+     */
+    public LocationResolver createResolver(String platformId) {
+        return new LocationResolver(platformId, this::getLocations, locationWriter, distanceTolerance, altitudeTolerance);
+    }
+
+    private List<LocationInfo> getLocations(String platformId) {
+        if (!cacheEnabled) {
+            return loadLocations(platformId);
         }
+        return locationCache.get(platformId, this::loadLocations);
+    }
+
+    private List<LocationInfo> loadLocations(String platformId) {
+        long start = System.nanoTime();
+        List<LocationInfo> locations = locationRepo.findByPlatformId(platformId);
+        long latency = System.nanoTime() - start;
+        loads.incrementAndGet();
+        loadLatencyNanos.addAndGet(latency);
+        maxLoadLatencyNanos.accumulateAndGet(latency, Math::max);
+        return locations != null ? Collections.unmodifiableList(new ArrayList<>(locations)) : Collections.emptyList();
+    }
+
+    /**
+     * Adds inserted locations to the cached locations of their platforms. Platforms with locations which were
+     * not inserted are loaded again, as the stored locations may have different URIs than the claimed ones.
+     */
+    private void locationsWritten(List<LocationInfo> inserted, List<LocationInfo> notInserted) {
+        for (LocationInfo location : notInserted) {
+            locationCache.invalidate(location.getPlatformId());
+        }
+        for (LocationInfo location : inserted) {
+            locationCache.replaceIfPresent(location.getPlatformId(), locations -> {
+                List<LocationInfo> updated = new ArrayList<>(locations.size() + 1);
+                updated.addAll(locations);
+                updated.add(location);
+                return Collections.unmodifiableList(updated);
+            });
+        }
+    }
+
+    /**
+     * Removes cached locations of the platform, e.g. when its locations are changed or it is removed.
+     *
+     * @param platformId id of the platform or SSP
+     */
+    public void invalidateLocations(String platformId) {
+        locationCache.invalidate(platformId);
+    }
+
+    public void invalidateAllLocations() {
+        locationCache.invalidateAll();
+    }
+
+    public BoundedCache<String, List<LocationInfo>> getLocationCache() {
+        return locationCache;
+    }
+
+    /**
+     * @return number of loads of locations of a platform from the repository
+     */
+    public long getLocationLoads() {
+        return loads.get();
+    }
+
+    /**
+     * @return average time in milliseconds of loading locations of a platform from the repository
+     */
+    public double getAverageLoadLatency() {
+        long count = loads.get();
+        return count == 0 ? 0 : loadLatencyNanos.get() / 1e6 / count;
+    }
+
+    /**
+     * @return maximum time in milliseconds of loading locations of a platform from the repository
+     */
+    public double getMaxLoadLatency() {
+        return maxLoadLatencyNanos.get() / 1e6;
     }
 
     public boolean locationDetailsAreEqual( LocationInfo location1, LocationInfo location2 ) {
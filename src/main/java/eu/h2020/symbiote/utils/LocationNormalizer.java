@@ -0,0 +1,88 @@
+package eu.h2020.symbiote.utils;
+
+import eu.h2020.symbiote.ontology.utils.ContentHash;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Creates keys of WKT and symbolic locations, under which equal locations
+ * are matched regardless of their formatting.
+ */
+public final class LocationNormalizer {
+
+    private static final Pattern WKT_TOKEN = Pattern.compile(
+            "([-+]?(?:\\d+\\.?\\d*|\\.\\d+)(?:[eE][-+]?\\d+)?)|([A-Za-z_]+)|(\\S)");
+
+    private LocationNormalizer() {
+    }
+
+    /**
+     * Normalizes WKT geometry: keywords are upper-cased, numbers are written
+     * in canonical form (e.g. <code>10.50</code> as <code>10.5</code>) and
+     * whitespace is reduced to single spaces between neighbouring numbers or
+     * keywords. Order of coordinates is kept.
+     *
+     * @param wkt geometry in WKT
+     * @return normalized geometry or <code>null</code> if there is no geometry
+     */
+    public static String normalizeWkt(String wkt) {
+        if (wkt == null || wkt.trim().isEmpty()) {
+            return null;
+        }
+        StringBuilder result = new StringBuilder(wkt.length());
+        boolean previousIsWord = false;
+        Matcher matcher = WKT_TOKEN.matcher(wkt);
+        while (matcher.find()) {
+            String token;
+            boolean word = true;
+            if (matcher.group(1) != null) {
+                token = normalizeNumber(matcher.group(1));
+            } else if (matcher.group(2) != null) {
+                token = matcher.group(2).toUpperCase(Locale.ROOT);
+            } else {
+                token = matcher.group(3);
+                word = false;
+            }
+            if (word && previousIsWord) {
+                result.append(' ');
+            }
+            result.append(token);
+            previousIsWord = word;
+        }
+        return result.toString();
+    }
+
+    private static String normalizeNumber(String number) {
+        BigDecimal value = new BigDecimal(number);
+        if (value.signum() == 0) {
+            return "0";
+        }
+        return value.stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * @param wkt geometry in WKT
+     * @return hash of the normalized geometry or <code>null</code> if there is no geometry
+     */
+    public static String wktHash(String wkt) {
+        String normalized = normalizeWkt(wkt);
+        return normalized != null ? ContentHash.sha256(normalized) : null;
+    }
+
+    /**
+     * Normalizes name of symbolic location: surrounding whitespace is removed,
+     * inner whitespace is reduced to single spaces and the name is lower-cased.
+     *
+     * @param name name of the location
+     * @return normalized name or <code>null</code> if the name is empty
+     */
+    public static String normalizeSymbolicName(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return null;
+        }
+        return name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,414 @@
+package eu.h2020.symbiote.utils;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Resolves locations of resources registered by a single platform or SSP
+ * against its existing locations.
+ * <p>
+ * Locations of the platform are loaded once, when the first location is
+ * resolved, and indexed, so all resources of a registration are resolved with
+ * a single query. WGS84 locations are indexed by their coordinates, or in a
+ * grid of cells as large as the distance tolerance if a tolerance is set, so
+ * only the cells around the resolved coordinates are searched. WKT locations
+ * are indexed by hash of their normalized geometry and symbolic locations by
+ * their normalized name.
+ * <p>
+ * The resolver is meant to be used for one registration only, locations stored
+ * in the meantime are not visible to it, except the ones created during
+ * generation of RDF and claimed. Locations claimed using the resolver are
+ * indexed in the same way as the loaded ones, so resources of the registration
+ * located within the tolerance of each other share a single location. Locations
+ * claimed by other registrations are matched exactly. The resolver may be used
+ * by multiple threads.
+ */
+public class LocationResolver {
+
+    private static final Log log = LogFactory.getLog(LocationResolver.class);
+
+    // mean radius of the Earth
+    private static final double EARTH_RADIUS = 6371008.8;
+
+    private static final double METERS_PER_DEGREE = EARTH_RADIUS * Math.PI / 180;
+
+    private final String platformId;
+
+    private final Function<String, List<LocationInfo>> loader;
+
+    private final LocationWriter writer;
+
+    private final double distanceTolerance;
+
+    private final double altitudeTolerance;
+
+    private volatile Index index;
+
+    // locations claimed using this resolver, guarded by itself
+    private final Index claimed;
+
+    /**
+     * @param platformId id of the platform or SSP
+     * @param loader     loads all locations of the platform or SSP
+     */
+    public LocationResolver(String platformId, Function<String, List<LocationInfo>> loader) {
+        this(platformId, loader, null);
+    }
+
+    /**
+     * @param platformId id of the platform or SSP
+     * @param loader     loads all locations of the platform or SSP
+     * @param writer     stores newly created locations, may be <code>null</code>
+     */
+    public LocationResolver(String platformId, Function<String, List<LocationInfo>> loader, LocationWriter writer) {
+        this(platformId, loader, writer, 0, 0);
+    }
+
+    /**
+     * @param platformId        id of the platform or SSP
+     * @param loader            loads all locations of the platform or SSP
+     * @param writer            stores newly created locations, may be <code>null</code>
+     * @param distanceTolerance maximum horizontal distance in meters of matching WGS84 locations,
+     *                          0 means coordinates must be equal
+     * @param altitudeTolerance maximum difference in meters of altitudes of matching WGS84 locations,
+     *                          0 means altitudes must be equal
+     */
+    public LocationResolver(String platformId, Function<String, List<LocationInfo>> loader, LocationWriter writer,
+                            double distanceTolerance, double altitudeTolerance) {
+        this.platformId = platformId;
+        this.loader = loader;
+        this.writer = writer;
+        this.distanceTolerance = Math.max(distanceTolerance, 0);
+        this.altitudeTolerance = Math.max(altitudeTolerance, 0);
+        this.claimed = new Index(this.distanceTolerance > 0 || this.altitudeTolerance > 0);
+    }
+
+    /**
+     * Finds existing WGS84 location of the platform with the same coordinates,
+     * or the nearest one within the tolerances.
+     *
+     * @param name      name of the location
+     * @param latitude  latitude of the location
+     * @param longitude longitude of the location
+     * @param altitude  altitude of the location
+     * @return existing location or empty if the platform has no location matching the coordinates
+     */
+    public Optional<LocationInfo> findExistingLocation(String name, double latitude, double longitude, double altitude) {
+        LocationInfo location = getIndex().find(latitude, longitude, altitude);
+        if (location == null) {
+            synchronized (claimed) {
+                location = claimed.find(latitude, longitude, altitude);
+            }
+        }
+        if (location == null && writer != null) {
+            return writer.findClaimed(new LocationInfo(null, platformId, latitude, longitude, altitude));
+        }
+        return Optional.ofNullable(location);
+    }
+
+    /**
+     * Finds existing WKT location of the platform with the same geometry.
+     *
+     * @param wkt geometry of the location
+     * @return existing location or empty if the platform has no location with the geometry
+     */
+    public Optional<LocationInfo> findExistingWKTLocation(String wkt) {
+        return findByKey(getIndex().wktHashes, createWKTLocation(null, wkt));
+    }
+
+    /**
+     * Finds existing symbolic location of the platform with the same name.
+     *
+     * @param name name of the location
+     * @return existing location or empty if the platform has no location with the name
+     */
+    public Optional<LocationInfo> findExistingSymbolicLocation(String name) {
+        return findByKey(getIndex().symbolicNames, createSymbolicLocation(null, name));
+    }
+
+    private Optional<LocationInfo> findByKey(Map<String, LocationInfo> keys, LocationInfo probe) {
+        String key = probe.getWktHash() != null ? probe.getWktHash() : probe.getSymbolicName();
+        if (key == null) {
+            return Optional.empty();
+        }
+        LocationInfo location = keys.get(key);
+        if (location == null) {
+            synchronized (claimed) {
+                location = (probe.getWktHash() != null ? claimed.wktHashes : claimed.symbolicNames).get(key);
+            }
+        }
+        if (location == null && writer != null) {
+            return writer.findClaimed(probe);
+        }
+        return Optional.ofNullable(location);
+    }
+
+    /**
+     * Claims WGS84 location created for coordinates, which were not found, so that it is stored.
+     *
+     * @param latitude    latitude of the location
+     * @param longitude   longitude of the location
+     * @param altitude    altitude of the location
+     * @param locationUri URI of the created location
+     * @return URI to be used for the location, differs from the created one if the location was created concurrently
+     */
+    public String claimNewLocation(double latitude, double longitude, double altitude, String locationUri) {
+        return claimLocation(latitude, longitude, altitude, locationUri).getLocationUri();
+    }
+
+    /**
+     * Claims WGS84 location created for coordinates, which were not found, so that it is stored. If a location
+     * within the tolerances has been claimed in the meantime using this resolver, that one is returned instead.
+     *
+     * @param latitude    latitude of the location
+     * @param longitude   longitude of the location
+     * @param altitude    altitude of the location
+     * @param locationUri URI of the created location
+     * @return location to be used, differs from the created one if a matching location was claimed concurrently
+     */
+    public LocationInfo claimLocation(double latitude, double longitude, double altitude, String locationUri) {
+        synchronized (claimed) {
+            LocationInfo location = claimed.find(latitude, longitude, altitude);
+            return location != null ? location : claim(new LocationInfo(locationUri, platformId, latitude, longitude, altitude));
+        }
+    }
+
+    /**
+     * Claims WKT location created for geometry, which was not found, so that it is stored.
+     *
+     * @param wkt         geometry of the location
+     * @param locationUri URI of the created location
+     * @return URI to be used for the location, differs from the created one if the location was created concurrently
+     */
+    public String claimNewWKTLocation(String wkt, String locationUri) {
+        LocationInfo location = createWKTLocation(locationUri, wkt);
+        if (location.getWktHash() == null) {
+            return locationUri;
+        }
+        synchronized (claimed) {
+            return claim(location).getLocationUri();
+        }
+    }
+
+    /**
+     * Claims symbolic location created for name, which was not found, so that it is stored.
+     *
+     * @param name        name of the location
+     * @param locationUri URI of the created location
+     * @return URI to be used for the location, differs from the created one if the location was created concurrently
+     */
+    public String claimNewSymbolicLocation(String name, String locationUri) {
+        LocationInfo location = createSymbolicLocation(locationUri, name);
+        if (location.getSymbolicName() == null) {
+            return locationUri;
+        }
+        synchronized (claimed) {
+            return claim(location).getLocationUri();
+        }
+    }
+
+    /**
+     * Claims the location and indexes the claimed one, must be called holding lock of the claimed locations.
+     */
+    private LocationInfo claim(LocationInfo location) {
+        LocationInfo result = writer != null ? writer.claim(location) : location;
+        claimed.add(result);
+        return result;
+    }
+
+    private LocationInfo createWKTLocation(String locationUri, String wkt) {
+        LocationInfo location = new LocationInfo(locationUri, platformId, 0, 0, 0);
+        location.setWktHash(LocationNormalizer.wktHash(wkt));
+        return location;
+    }
+
+    private LocationInfo createSymbolicLocation(String locationUri, String name) {
+        LocationInfo location = new LocationInfo(locationUri, platformId, 0, 0, 0);
+        location.setSymbolicName(LocationNormalizer.normalizeSymbolicName(name));
+        return location;
+    }
+
+    private Index getIndex() {
+        Index result = index;
+        if (result == null) {
+            synchronized (this) {
+                result = index;
+                if (result == null) {
+                    result = buildIndex();
+                    index = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private Index buildIndex() {
+        Index result = new Index(distanceTolerance > 0 || altitudeTolerance > 0);
+        List<LocationInfo> locations = loader.apply(platformId);
+        if (locations == null) {
+            return result;
+        }
+        int duplicates = 0;
+        for (LocationInfo location : locations) {
+            if (location == null || (platformId != null ? !platformId.equals(location.getPlatformId()) : location.getPlatformId() != null)) {
+                continue;
+            }
+            // the first location found is used if there are more with the same key
+            if (!result.add(location)) {
+                duplicates++;
+            }
+        }
+        if (duplicates > 0) {
+            log.debug("Platform " + platformId + " has " + duplicates + " location entries matching another entry");
+        }
+        log.debug("Indexed " + locations.size() + " locations of platform " + platformId);
+        return result;
+    }
+
+    /**
+     * Locations of the platform indexed by their kind.
+     */
+    private class Index {
+        private final Map<Coordinates, LocationInfo> coordinates = new HashMap<>();
+        private final Map<Long, List<LocationInfo>> grid;
+        private final double cellSize;
+        private final long longitudeCells;
+        private final Map<String, LocationInfo> wktHashes = new HashMap<>();
+        private final Map<String, LocationInfo> symbolicNames = new HashMap<>();
+
+        private Index(boolean tolerant) {
+            grid = tolerant ? new HashMap<>() : null;
+            // cells are at least 1 meter large, so that their number stays reasonable
+            cellSize = Math.max(distanceTolerance, 1) / METERS_PER_DEGREE;
+            longitudeCells = (long) Math.ceil(360 / cellSize);
+        }
+
+        private boolean add(LocationInfo location) {
+            if (location.getWktHash() != null) {
+                return wktHashes.putIfAbsent(location.getWktHash(), location) == null;
+            }
+            if (location.getSymbolicName() != null) {
+                return symbolicNames.putIfAbsent(location.getSymbolicName(), location) == null;
+            }
+            if (coordinates.putIfAbsent(new Coordinates(location.getLatitude(), location.getLongitude(), location.getAltitude()), location) != null) {
+                return false;
+            }
+            if (grid != null) {
+                grid.computeIfAbsent(cell(latitudeCell(location.getLatitude()), longitudeCell(location.getLongitude())), x -> new ArrayList<>())
+                        .add(location);
+            }
+            return true;
+        }
+
+        private LocationInfo find(double latitude, double longitude, double altitude) {
+            return grid != null
+                    ? findNearest(latitude, longitude, altitude)
+                    : coordinates.get(new Coordinates(latitude, longitude, altitude));
+        }
+
+        private long latitudeCell(double latitude) {
+            return (long) Math.floor((latitude + 90) / cellSize);
+        }
+
+        private long longitudeCell(double longitude) {
+            long cell = (long) Math.floor((longitude + 180) / cellSize) % longitudeCells;
+            return cell < 0 ? cell + longitudeCells : cell;
+        }
+
+        private Long cell(long latitudeCell, long longitudeCell) {
+            return (latitudeCell << 32) | (longitudeCell & 0xffffffffL);
+        }
+
+        /**
+         * Searches the cells around the coordinates for the nearest location within the tolerances.
+         */
+        private LocationInfo findNearest(double latitude, double longitude, double altitude) {
+            LocationInfo exact = coordinates.get(new Coordinates(latitude, longitude, altitude));
+            if (exact != null) {
+                return exact;
+            }
+            double cosLatitude = Math.max(Math.cos(Math.toRadians(latitude)), 0.01);
+            long latitudeRange = 1;
+            long longitudeRange = Math.min((long) Math.ceil(distanceTolerance / METERS_PER_DEGREE / cosLatitude / cellSize) + 1,
+                    longitudeCells / 2);
+            long latitudeCell = latitudeCell(latitude);
+            long longitudeCell = longitudeCell(longitude);
+            LocationInfo nearest = null;
+            double nearestDistance = Double.MAX_VALUE;
+            for (long i = latitudeCell - latitudeRange; i <= latitudeCell + latitudeRange; i++) {
+                for (long j = longitudeCell - longitudeRange; j <= longitudeCell + longitudeRange; j++) {
+                    long wrapped = ((j % longitudeCells) + longitudeCells) % longitudeCells;
+                    List<LocationInfo> candidates = grid.get(cell(i, wrapped));
+                    if (candidates == null) {
+                        continue;
+                    }
+                    for (LocationInfo candidate : candidates) {
+                        if (Math.abs(candidate.getAltitude() - altitude) > altitudeTolerance) {
+                            continue;
+                        }
+                        double distance = distance(latitude, longitude, candidate.getLatitude(), candidate.getLongitude());
+                        if (distance <= distanceTolerance && distance < nearestDistance) {
+                            nearest = candidate;
+                            nearestDistance = distance;
+                        }
+                    }
+                }
+            }
+            return nearest;
+        }
+    }
+
+    /**
+     * Computes distance in meters between two points using equirectangular
+     * projection, which is precise enough for tolerances of location matching.
+     */
+    static double distance(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double longitudeDifference = Math.abs(longitude1 - longitude2);
+        if (longitudeDifference > 180) {
+            longitudeDifference = 360 - longitudeDifference;
+        }
+        double x = Math.toRadians(longitudeDifference) * Math.cos(Math.toRadians((latitude1 + latitude2) / 2));
+        double y = Math.toRadians(latitude1 - latitude2);
+        return Math.sqrt(x * x + y * y) * EARTH_RADIUS;
+    }
+
+    /**
+     * Exact coordinates of a location, compared in the same way as {@link Double#compare(double, double)}.
+     */
+    private static final class Coordinates {
+        private final double latitude;
+        private final double longitude;
+        private final double altitude;
+
+        private Coordinates(double latitude, double longitude, double altitude) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.altitude = altitude;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Coordinates)) return false;
+            Coordinates that = (Coordinates) o;
+            return Double.compare(latitude, that.latitude) == 0
+                    && Double.compare(longitude, that.longitude) == 0
+                    && Double.compare(altitude, that.altitude) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Double.hashCode(latitude);
+            result = 31 * result + Double.hashCode(longitude);
+            result = 31 * result + Double.hashCode(altitude);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package eu.h2020.symbiote.utils;
+
+import com.mongodb.BulkWriteError;
+import com.mongodb.BulkWriteResult;
+import com.mongodb.BulkWriteUpsert;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stores locations created during generation of RDF, so that resources
+ * registered later at the same coordinates reuse them.
+ * <p>
+ * Created locations are claimed in memory first. If a location with the same
+ * platform and coordinates (or WKT geometry or symbolic name) is already claimed, the claimed one is returned,
+ * so concurrent registrations do not create duplicates either. Claimed
+ * locations are written in the background in bulk upserts keyed by platform
+ * and coordinates, which are unique in the collection. If the location has
+ * already been stored (e.g. by another instance), the stored one is kept.
+ * Registered {@link Listener}s are notified about written locations before
+ * they stop being claimed.
+ */
+@Component
+public class LocationWriter {
+
+    private static final Log log = LogFactory.getLog(LocationWriter.class);
+
+    // duplicate key error of MongoDB
+    private static final int DUPLICATE_KEY = 11000;
+
+    /**
+     * Notified about written claimed locations.
+     */
+    public interface Listener {
+        /**
+         * @param inserted    locations inserted with their URI
+         * @param notInserted locations which had already been stored, possibly with a different URI
+         */
+        void locationsWritten(List<LocationInfo> inserted, List<LocationInfo> notInserted);
+    }
+
+    @Value("${semantic.location.writeBehind.enabled:true}")
+    private boolean enabled = true;
+
+    // maximum number of locations written in one bulk operation
+    @Value("${semantic.location.writeBehind.batchSize:500}")
+    private int batchSize = 500;
+
+    // time in milliseconds between writes of claimed locations
+    @Value("${semantic.location.writeBehind.flushInterval:1000}")
+    private long flushInterval = 1000;
+
+    // maximum number of claimed locations waiting for write, further locations are not stored
+    @Value("${semantic.location.writeBehind.maxPending:10000}")
+    private int maxPending = 10000;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Map<String, LocationInfo> pending = new ConcurrentHashMap<>();
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public LocationWriter(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "location-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::flushQuietly, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(flushInterval, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushQuietly();
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Claims newly created location for its platform and coordinates.
+     *
+     * @param location location created during generation of RDF
+     * @return location to be used, the passed one or the one claimed before with the same platform and coordinates
+     */
+    public LocationInfo claim(LocationInfo location) {
+        if (!enabled) {
+            return location;
+        }
+        LocationInfo existing = pending.get(key(location));
+        if (existing != null) {
+            return existing;
+        }
+        if (pending.size() >= maxPending) {
+            dropped.incrementAndGet();
+            log.warn("Too many locations waiting to be stored, location " + location.getLocationUri() + " is not stored");
+            return location;
+        }
+        LocationInfo claimed = pending.putIfAbsent(key(location), location);
+        if (claimed != null) {
+            return claimed;
+        }
+        if (pending.size() >= batchSize && scheduler != null && flushScheduled.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(() -> {
+                    flushScheduled.set(false);
+                    flushQuietly();
+                });
+            } catch (RejectedExecutionException e) {
+                // shutting down, claimed locations are written on shutdown
+                flushScheduled.set(false);
+            }
+        }
+        return location;
+    }
+
+    /**
+     * Finds location claimed, but not stored yet.
+     *
+     * @param location location with the platform and coordinates, WKT geometry hash or symbolic name to find
+     * @return claimed location with the same platform and coordinates, WKT geometry hash or symbolic name
+     */
+    public Optional<LocationInfo> findClaimed(LocationInfo location) {
+        return Optional.ofNullable(pending.get(key(location)));
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Failed to store created locations, they will be retried: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes all claimed locations. Locations which could not be written stay claimed and are retried later.
+     */
+    public synchronized void flush() {
+        List<Map.Entry<String, LocationInfo>> batch = new ArrayList<>(batchSize);
+        for (Map.Entry<String, LocationInfo> entry : pending.entrySet()) {
+            batch.add(entry);
+            if (batch.size() >= batchSize) {
+                write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private void write(List<Map.Entry<String, LocationInfo>> batch) {
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LocationInfo.class);
+        for (Map.Entry<String, LocationInfo> entry : batch) {
+            LocationInfo location = entry.getValue();
+            Query query = new Query(Criteria.where("platformId").is(location.getPlatformId())
+                    .and("latitude").is(location.getLatitude())
+                    .and("longitude").is(location.getLongitude())
+                    .and("altitude").is(location.getAltitude())
+                    .and("wktHash").is(location.getWktHash())
+                    .and("symbolicName").is(location.getSymbolicName()));
+            operations.upsert(query, new Update().setOnInsert("_id", location.getLocationUri()));
+        }
+        BulkWriteResult result;
+        try {
+            result = operations.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    // write of all locations is retried, upserts of the stored ones have no effect
+                    failedWrites.incrementAndGet();
+                    throw e;
+                }
+            }
+            // locations inserted concurrently by another writer are kept
+            log.debug(e.getErrors().size() + " created locations were already stored");
+            result = e.getResult();
+        } catch (RuntimeException e) {
+            failedWrites.incrementAndGet();
+            throw e;
+        }
+        notifyListeners(batch, result);
+        for (Map.Entry<String, LocationInfo> entry : batch) {
+            pending.remove(entry.getKey(), entry.getValue());
+        }
+        written.addAndGet(batch.size());
+        log.debug("Stored " + batch.size() + " created locations");
+    }
+
+    private void notifyListeners(List<Map.Entry<String, LocationInfo>> batch, BulkWriteResult result) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        // upserts which matched a stored location or failed on duplicate key did not insert the claimed location
+        Set<Integer> insertedIndexes = new HashSet<>();
+        if (result != null && result.isAcknowledged()) {
+            for (BulkWriteUpsert upsert : result.getUpserts()) {
+                insertedIndexes.add(upsert.getIndex());
+            }
+        }
+        List<LocationInfo> inserted = new ArrayList<>();
+        List<LocationInfo> notInserted = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            (insertedIndexes.contains(i) ? inserted : notInserted).add(batch.get(i).getValue());
+        }
+        for (Listener listener : listeners) {
+            try {
+                listener.locationsWritten(inserted, notInserted);
+            } catch (RuntimeException e) {
+                log.warn("Listener failed to process written locations: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static String key(LocationInfo location) {
+        return location.getPlatformId() + "|" + location.getLatitude() + "|" + location.getLongitude() + "|" + location.getAltitude()
+                + "|" + location.getWktHash() + "|" + location.getSymbolicName();
+    }
+
+    /**
+     * @return number of claimed locations waiting to be stored
+     */
+    public int getPending() {
+        return pending.size();
+    }
+
+    /**
+     * @return number of stored locations, including the ones which had already been stored
+     */
+    public long getWritten() {
+        return written.get();
+    }
+
+    /**
+     * @return number of failed bulk writes
+     */
+    public long getFailedWrites() {
+        return failedWrites.get();
+    }
+
+    /**
+     * @return number of created locations which were not stored, because too many were waiting
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+}
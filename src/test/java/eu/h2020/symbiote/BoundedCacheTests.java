@@ -0,0 +1,117 @@
+package eu.h2020.symbiote;
+
+import eu.h2020.symbiote.ontology.utils.BoundedCache;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the bounded LRU cache used for inference models.
+ */
+public class BoundedCacheTests {
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2, 0);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        assertEquals("A", cache.getIfPresent("a"));
+        cache.put("c", "C");
+
+        assertEquals(2, cache.size());
+        assertNull("Least recently used entry should be evicted", cache.getIfPresent("b"));
+        assertEquals("A", cache.getIfPresent("a"));
+        assertEquals("C", cache.getIfPresent("c"));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testLoadedOnceAndInvalidated() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2, 0);
+        int[] loads = new int[1];
+        BoundedCache.Loader<String, String, RuntimeException> loader = key -> {
+            loads[0]++;
+            return key.toUpperCase();
+        };
+
+        assertEquals("A", cache.get("a", loader));
+        assertEquals("A", cache.get("a", loader));
+        assertEquals(1, loads[0]);
+
+        cache.invalidate("a");
+        assertEquals("A", cache.get("a", loader));
+        assertEquals(2, loads[0]);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testValueLoadedDuringInvalidationNotStored() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2, 0);
+        String value = cache.get("a", key -> {
+            cache.invalidate(key);
+            return "stale";
+        });
+
+        assertEquals("stale", value);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testValueLoadedDuringInvalidationOfOtherKeyStored() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2, 0);
+        cache.put("b", "B");
+        String value = cache.get("a", key -> {
+            cache.invalidate("b");
+            cache.replaceIfPresent("c", x -> x);
+            return "A";
+        });
+
+        assertEquals("A", value);
+        assertEquals("Invalidating other key should not prevent storing", "A", cache.getIfPresent("a"));
+        assertNull(cache.getIfPresent("b"));
+
+        value = cache.get("c", key -> {
+            cache.invalidateAll();
+            return "C";
+        });
+        assertEquals("C", value);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testExpiredEntryEvicted() throws InterruptedException {
+        BoundedCache<String, String> cache = new BoundedCache<>(2, 1);
+        cache.put("a", "A");
+        Thread.sleep(5);
+
+        assertNull(cache.getIfPresent("a"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testShrinkEvictsEntries() {
+        BoundedCache<String, String> cache = new BoundedCache<>(3, 0);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        cache.setMaxSize(1);
+
+        assertEquals(1, cache.size());
+        assertEquals("C", cache.getIfPresent("c"));
+    }
+
+    @Test
+    public void testRemoveHandsOverValueOnce() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2, 0);
+        cache.put("a", "A");
+
+        assertEquals("A", cache.remove("a"));
+        assertNull("Value should be handed over only once", cache.remove("a"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+}
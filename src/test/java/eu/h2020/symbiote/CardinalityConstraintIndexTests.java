@@ -0,0 +1,243 @@
+package eu.h2020.symbiote;
+
+import eu.h2020.symbiote.ontology.validation.CardinalityConstraintIndex;
+import eu.h2020.symbiote.ontology.validation.PimValidationView;
+import eu.h2020.symbiote.ontology.validation.TransitiveClosure;
+import eu.h2020.symbiote.ontology.validation.ValidationHelper;
+import eu.h2020.symbiote.semantics.ModelHelper;
+import eu.h2020.symbiote.semantics.ontology.CIM;
+import org.apache.jena.graph.Node;
+import org.apache.jena.ontology.OntModel;
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.apache.jena.vocabulary.RDFS;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for cardinality constraints compiled from the information model.
+ */
+public class CardinalityConstraintIndexTests {
+
+    private static final String PREFIXES = ""
+            + "@prefix rdf: <http://www.w3.org/1999/02/22-rdf-syntax-ns#> .\n"
+            + "@prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#> .\n"
+            + "@prefix owl: <http://www.w3.org/2002/07/owl#> .\n"
+            + "@prefix xsd: <http://www.w3.org/2001/XMLSchema#> .\n"
+            + "@prefix core: <http://www.symbiote-h2020.eu/ontology/core#> .\n"
+            + "@prefix : <http://www.example.com/pim#> .\n";
+
+    private static final String PIM = PREFIXES
+            + ":Device rdfs:subClassOf core:Resource ,\n"
+            + "    [ a owl:Restriction ; owl:onProperty :name ; owl:qualifiedCardinality \"1\"^^xsd:nonNegativeInteger ; owl:onDataRange xsd:string ] ,\n"
+            + "    [ a owl:Restriction ; owl:onProperty :locatedAt ; owl:maxQualifiedCardinality \"1\"^^xsd:nonNegativeInteger ; owl:onClass :Location ] .\n"
+            + ":Sensor rdfs:subClassOf :Device ,\n"
+            + "    [ a owl:Restriction ; owl:onProperty :observes ; owl:minQualifiedCardinality \"1\"^^xsd:nonNegativeInteger ; owl:onClass :Property ] .\n"
+            + ":NotAResource rdfs:subClassOf\n"
+            + "    [ a owl:Restriction ; owl:onProperty :name ; owl:qualifiedCardinality \"2\"^^xsd:nonNegativeInteger ; owl:onDataRange xsd:string ] .\n"
+            + ":label rdfs:subPropertyOf :name .\n"
+            + ":observes rdfs:domain :Sensor .\n";
+
+    private CardinalityConstraintIndex index;
+
+    @Before
+    public void init() {
+        index = CardinalityConstraintIndex.compile(readModel(PIM));
+    }
+
+    @Test
+    public void testValidResource() {
+        Model instance = readModel(PREFIXES + ":s1 a :Sensor ; :name \"s1\" ; :observes :temperature ; :locatedAt :room1 .");
+        assertTrue(check(instance, "s1").isEmpty());
+    }
+
+    @Test
+    public void testInheritedConstraintsViolated() {
+        Model instance = readModel(PREFIXES + ":s1 a :Sensor ; :locatedAt :room1 , :room2 .");
+        List<String> violations = check(instance, "s1");
+        assertEquals("Should find exact, min and max violations", 3, violations.size());
+        assertTrue(violations.get(0).startsWith("exact cardinaility for data property violated"));
+        assertTrue(violations.get(1).startsWith("min cardinaility for object property violated"));
+        assertTrue(violations.get(2).startsWith("max cardinaility for object property violated"));
+    }
+
+    @Test
+    public void testLiteralOfOtherDatatypeNotCounted() {
+        Model instance = readModel(PREFIXES + ":d1 a :Device ; :name 5 .");
+        List<String> violations = check(instance, "d1");
+        assertEquals(1, violations.size());
+        assertTrue(violations.get(0).contains("?presentCardinality = 0"));
+    }
+
+    @Test
+    public void testSubPropertyValuesCounted() {
+        Model instance = readModel(PREFIXES + ":d1 a :Device ; :name \"a\" ; :label \"b\" .");
+        List<String> violations = check(instance, "d1");
+        assertEquals(1, violations.size());
+        assertTrue(violations.get(0).contains("?presentCardinality = 2"));
+    }
+
+    @Test
+    public void testTypeInferredFromDomain() {
+        Model instance = readModel(PREFIXES + ":d1 a :Device ; :name \"d1\" ; :observes :temperature .");
+        assertTrue(check(instance, "d1").isEmpty());
+        Model untyped = readModel(PREFIXES + ":x :observes :temperature .");
+        assertEquals("Should require name of sensor inferred from domain", 1, check(untyped, "x").size());
+    }
+
+    @Test
+    public void testClassNotBeingResourceIgnored() {
+        Model instance = readModel(PREFIXES + ":n1 a :NotAResource .");
+        assertTrue(check(instance, "n1").isEmpty());
+    }
+
+    @Test
+    public void testSparqlOnOverlayMatchesIndex() {
+        OntModel pim = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM_MICRO_RULE_INF, readModel(PIM));
+        long pimSize = pim.size();
+        PimValidationView view = new PimValidationView(pim);
+        for (String description : Arrays.asList(
+                ":s1 a :Sensor ; :name \"s1\" ; :observes :temperature ; :locatedAt :room1 .",
+                ":s1 a :Sensor ; :locatedAt :room1 , :room2 .",
+                ":s1 a :Device ; :name \"a\" ; :label \"b\" .",
+                ":s1 :observes :temperature .")) {
+            Model instance = readModel(PREFIXES + description);
+            long instanceSize = instance.size();
+            Resource resource = instance.getResource("http://www.example.com/pim#s1");
+
+            List<String> expected = new ArrayList<>(check(instance, "s1"));
+            List<String> actual = new ArrayList<>(ValidationHelper.checkCardinalityViolations(resource, view, instance));
+            Collections.sort(expected);
+            Collections.sort(actual);
+
+            assertEquals(description, expected, actual);
+            assertEquals("Resource description should not be modified", instanceSize, instance.size());
+        }
+        assertEquals("PIM should not be modified", pimSize, pim.size());
+    }
+
+    @Test
+    public void testOverlayMatchesInferenceModelForOwlConstructs() {
+        String pimData = PREFIXES
+                + ":Room rdfs:subClassOf core:Resource ,\n"
+                + "    [ a owl:Restriction ; owl:onProperty :contains ; owl:minQualifiedCardinality \"1\"^^xsd:nonNegativeInteger ; owl:onClass :Device ] ,\n"
+                + "    [ a owl:Restriction ; owl:onProperty :adjacentTo ; owl:maxQualifiedCardinality \"1\"^^xsd:nonNegativeInteger ; owl:onClass :Room ] ,\n"
+                + "    [ a owl:Restriction ; owl:onProperty :partOf ; owl:maxQualifiedCardinality \"1\"^^xsd:nonNegativeInteger ; owl:onClass :Room ] .\n"
+                + ":isIn owl:inverseOf :contains .\n"
+                + ":adjacentTo a owl:SymmetricProperty .\n"
+                + ":partOf a owl:TransitiveProperty .\n"
+                + ":Office owl:equivalentClass [ a owl:Restriction ; owl:onProperty :usage ; owl:hasValue :work ] .\n"
+                + ":Office rdfs:subClassOf :Room .\n";
+        List<String> descriptions = Arrays.asList(
+                ":r1 a :Room . :d1 :isIn :r1 .",
+                ":r1 a :Room ; :contains :d1 . :r2 :adjacentTo :r1 . :r3 :adjacentTo :r1 .",
+                ":r1 a :Room ; :contains :d1 ; :partOf :r2 . :r2 :partOf :r3 .",
+                ":r1 :usage :work ; :contains :d1 ; :adjacentTo :r2 , :r3 .");
+        for (OntModelSpec spec : Arrays.asList(
+                ModelHelper.withInf(ModelFactory.createDefaultModel()).getSpecification(),
+                OntModelSpec.OWL_MEM_RDFS_INF,
+                OntModelSpec.OWL_MEM_MICRO_RULE_INF,
+                OntModelSpec.OWL_MEM_MINI_RULE_INF)) {
+            PimValidationView view = new PimValidationView(ModelFactory.createOntologyModel(spec, readModel(pimData)));
+            for (String description : descriptions) {
+                Model instance = readModel(PREFIXES + description);
+                Resource resource = instance.getResource("http://www.example.com/pim#r1");
+
+                OntModel pim = ModelFactory.createOntologyModel(spec, readModel(pimData));
+                List<String> expected = new ArrayList<>(ValidationHelper.checkCardinalityViolations(resource, pim, instance));
+                List<String> actual = new ArrayList<>(ValidationHelper.checkCardinalityViolations(resource, view, instance));
+                Collections.sort(expected);
+                Collections.sort(actual);
+
+                assertEquals(description, expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testResourcesSeparatedOnOverlay() {
+        OntModel pim = ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM_MICRO_RULE_INF, readModel(PIM + ":pimDevice a :Device ."));
+        long pimSize = pim.size();
+        PimValidationView view = new PimValidationView(pim);
+        Model instances = readModel(PREFIXES + ":s1 a :Sensor ; :locatedAt :room1 . :x :observes :temperature . "
+                + ":pimDevice :name \"a\" . :room1 a :Location .");
+        long instancesSize = instances.size();
+
+        Map<Resource, Model> resources = ValidationHelper.sepearteResources(instances, view);
+
+        Set<String> uris = new HashSet<>();
+        resources.keySet().forEach(x -> uris.add(x.getLocalName()));
+        assertEquals("Resources defined by PIM should be skipped", new HashSet<>(Arrays.asList("s1", "x")), uris);
+        assertEquals(instancesSize, instances.size());
+        assertEquals(pimSize, pim.size());
+    }
+
+    @Test
+    public void testSubClassClosure() {
+        Model model = readModel(PIM + ":A rdfs:subClassOf :B . :B rdfs:subClassOf :A .");
+        TransitiveClosure subClassOf = CardinalityConstraintIndex.compile(model).getSubClassOf();
+        Node resource = CIM.Resource.asNode();
+        Node device = model.getResource("http://www.example.com/pim#Device").asNode();
+        Node sensor = model.getResource("http://www.example.com/pim#Sensor").asNode();
+        Node a = model.getResource("http://www.example.com/pim#A").asNode();
+        Node b = model.getResource("http://www.example.com/pim#B").asNode();
+        Node unknown = model.getResource("http://www.example.com/pim#Unknown").asNode();
+
+        assertTrue(subClassOf.isBelow(sensor, resource));
+        assertTrue(subClassOf.isBelow(sensor, sensor));
+        assertFalse(subClassOf.isBelow(device, sensor));
+        assertTrue("Cycles should be handled", subClassOf.isBelow(a, b) && subClassOf.isBelow(b, a));
+        assertTrue(subClassOf.isBelow(unknown, unknown));
+        assertFalse(subClassOf.isBelow(unknown, resource));
+        assertEquals(new HashSet<>(Arrays.asList(resource, device, sensor)), subClassOf.getDescendants(resource));
+        assertEquals(Collections.singleton(unknown), subClassOf.getAncestors(unknown));
+    }
+
+    @Test
+    public void testClosureOfChainsAndDiamonds() {
+        Model model = readModel("@prefix : <http://www.example.com/pim#> .\n"
+                + "@prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#> .\n"
+                + ":A rdfs:subClassOf :B , :C . :B rdfs:subClassOf :D . :C rdfs:subClassOf :D .\n"
+                + ":D rdfs:subClassOf :E . :E rdfs:subClassOf :F . :F rdfs:subClassOf :E .");
+        TransitiveClosure closure = TransitiveClosure.compute(model.getGraph(), RDFS.subClassOf.asNode());
+        Node a = model.getResource("http://www.example.com/pim#A").asNode();
+        Node b = model.getResource("http://www.example.com/pim#B").asNode();
+        Node c = model.getResource("http://www.example.com/pim#C").asNode();
+        Node d = model.getResource("http://www.example.com/pim#D").asNode();
+        Node e = model.getResource("http://www.example.com/pim#E").asNode();
+        Node f = model.getResource("http://www.example.com/pim#F").asNode();
+
+        assertEquals(new HashSet<>(Arrays.asList(a, b, c, d, e, f)), closure.getAncestors(a));
+        assertEquals(new HashSet<>(Arrays.asList(c, d, e, f)), closure.getAncestors(c));
+        assertEquals(new HashSet<>(Arrays.asList(e, f)), closure.getAncestors(f));
+        assertEquals(new HashSet<>(Arrays.asList(a, b, c, d, e, f)), closure.getDescendants(e));
+        assertEquals(new HashSet<>(Arrays.asList(a, c)), closure.getDescendants(c));
+        assertEquals(new HashSet<>(Arrays.asList(b, c, d, e, f)), closure.getAncestors(Arrays.asList(b, c)));
+        assertTrue(closure.isBelow(a, f));
+        assertFalse(closure.isBelow(b, c));
+        assertEquals(6, closure.size());
+    }
+
+    private List<String> check(Model instance, String localName) {
+        return index.checkCardinalityViolations(instance.getResource("http://www.example.com/pim#" + localName), instance);
+    }
+
+    private static Model readModel(String turtle) {
+        Model model = ModelFactory.createDefaultModel();
+        model.read(new StringReader(turtle), null, "TURTLE");
+        return model;
+    }
+}
@@ -0,0 +1,98 @@
+package eu.h2020.symbiote;
+
+import eu.h2020.symbiote.ontology.validation.CardinalityQuery;
+import eu.h2020.symbiote.ontology.validation.PimOverlay;
+import eu.h2020.symbiote.ontology.validation.PimValidationView;
+import eu.h2020.symbiote.semantics.ModelHelper;
+import org.apache.jena.ontology.OntModelSpec;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares execution of the cardinality queries with the resource substituted
+ * into the query text (parsed on every execution) against the precompiled
+ * queries with the resource bound to the algebra.
+ * <p>
+ * Run with <code>gradle jmh</code> or using the main method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardinalityQueryBenchmark {
+
+    private static final String PREFIXES = ""
+            + "@prefix rdf: <http://www.w3.org/1999/02/22-rdf-syntax-ns#> .\n"
+            + "@prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#> .\n"
+            + "@prefix owl: <http://www.w3.org/2002/07/owl#> .\n"
+            + "@prefix xsd: <http://www.w3.org/2001/XMLSchema#> .\n"
+            + "@prefix core: <http://www.symbiote-h2020.eu/ontology/core#> .\n"
+            + "@prefix : <http://www.example.com/pim#> .\n";
+
+    private static final String PIM = PREFIXES
+            + ":Device rdfs:subClassOf core:Resource ,\n"
+            + "    [ a owl:Restriction ; owl:onProperty :name ; owl:qualifiedCardinality \"1\"^^xsd:nonNegativeInteger ; owl:onDataRange xsd:string ] ,\n"
+            + "    [ a owl:Restriction ; owl:onProperty :locatedAt ; owl:maxQualifiedCardinality \"1\"^^xsd:nonNegativeInteger ; owl:onClass :Location ] .\n"
+            + ":Sensor rdfs:subClassOf :Device ,\n"
+            + "    [ a owl:Restriction ; owl:onProperty :observes ; owl:minQualifiedCardinality \"1\"^^xsd:nonNegativeInteger ; owl:onClass :Property ] .\n";
+
+    private static final String RESOURCE = PREFIXES
+            + ":s1 a :Sensor ; :name \"s1\" ; :observes :temperature , :humidity ; :locatedAt :room1 , :room2 .";
+
+    private PimOverlay overlay;
+    private Resource resource;
+
+    @Setup
+    public void setup() {
+        PimValidationView view = new PimValidationView(
+                ModelFactory.createOntologyModel(OntModelSpec.OWL_MEM_MICRO_RULE_INF, readModel(PIM)));
+        Model instance = readModel(RESOURCE);
+        resource = instance.getResource("http://www.example.com/pim#s1");
+        overlay = view.overlay(instance);
+    }
+
+    @TearDown
+    public void tearDown() {
+        overlay.close();
+    }
+
+    @Benchmark
+    public void stringReplace(Blackhole blackhole) {
+        for (CardinalityQuery query : CardinalityQuery.values()) {
+            String queryString = query.getQueryString()
+                    .replace(CardinalityQuery.TAG_RESOURCE_URI, "<" + resource.getURI() + ">");
+            blackhole.consume(ModelHelper.executeSelectAsList(overlay.getModel(), queryString));
+        }
+    }
+
+    @Benchmark
+    public void precompiled(Blackhole blackhole) {
+        for (CardinalityQuery query : CardinalityQuery.values()) {
+            blackhole.consume(query.findViolations(overlay.getModel(), resource));
+        }
+    }
+
+    private static Model readModel(String turtle) {
+        Model model = ModelFactory.createDefaultModel();
+        model.read(new StringReader(turtle), null, "TURTLE");
+        return model;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CardinalityQueryBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
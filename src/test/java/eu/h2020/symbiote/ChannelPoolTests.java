@@ -0,0 +1,140 @@
+package eu.h2020.symbiote;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
+import com.rabbitmq.client.Connection;
+import eu.h2020.symbiote.messaging.ChannelPool;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for reuse of publishing channels and tracking of publisher confirms.
+ */
+public class ChannelPoolTests {
+
+    private Connection connection;
+    private List<Channel> createdChannels;
+
+    @Before
+    public void setup() throws IOException {
+        connection = mock(Connection.class);
+        createdChannels = new ArrayList<>();
+        when(connection.createChannel()).thenAnswer(invocation -> {
+            Channel channel = mock(Channel.class);
+            when(channel.isOpen()).thenReturn(true);
+            synchronized (createdChannels) {
+                createdChannels.add(channel);
+            }
+            return channel;
+        });
+    }
+
+    @Test
+    public void testChannelReused() throws Exception {
+        ChannelPool pool = new ChannelPool(connection, 4, false, 1000);
+        for (int i = 0; i < 10; i++) {
+            pool.publish("exchange", "rk", null, new byte[0]);
+        }
+        assertEquals("Sequential publishing should use a single channel", 1, createdChannels.size());
+        verify(createdChannels.get(0), times(10)).basicPublish(eq("exchange"), eq("rk"), any(), any());
+        verify(createdChannels.get(0), never()).close();
+        assertEquals(10, pool.getPublished());
+        assertEquals(0, pool.getBorrowed());
+    }
+
+    @Test
+    public void testPoolBounded() throws Exception {
+        ChannelPool pool = new ChannelPool(connection, 2, false, 5000);
+        CountDownLatch publishing = new CountDownLatch(2);
+        CountDownLatch blocked = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            Channel channel = mock(Channel.class);
+            when(channel.isOpen()).thenReturn(true);
+            doAnswer(publish -> {
+                publishing.countDown();
+                blocked.await(5, TimeUnit.SECONDS);
+                return null;
+            }).when(channel).basicPublish(anyString(), anyString(), any(), any());
+            synchronized (createdChannels) {
+                createdChannels.add(channel);
+            }
+            return channel;
+        }).when(connection).createChannel();
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() -> {
+                    pool.publish("exchange", "rk", null, new byte[0]);
+                    return null;
+                }));
+            }
+            assertTrue(publishing.await(5, TimeUnit.SECONDS));
+            Thread.sleep(200);
+            assertEquals(2, pool.getBorrowed());
+            assertEquals("Third publisher should wait for a channel", 1, pool.getBorrowWaits());
+            blocked.countDown();
+            for (Future<?> result : results) {
+                result.get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(2, createdChannels.size());
+            assertEquals(3, pool.getPublished());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testClosedChannelReplaced() throws IOException {
+        ChannelPool pool = new ChannelPool(connection, 1, false, 1000);
+        pool.publish("exchange", "rk", null, new byte[0]);
+        when(createdChannels.get(0).isOpen()).thenReturn(false);
+        pool.publish("exchange", "rk", null, new byte[0]);
+        pool.publish("exchange", "rk", null, new byte[0]);
+        assertEquals(2, createdChannels.size());
+        assertEquals(2, pool.getChannelsCreated());
+        verify(createdChannels.get(1), times(1)).basicPublish(anyString(), anyString(), any(), any());
+    }
+
+    @Test
+    public void testConfirmsHandledInBatches() throws Exception {
+        ChannelPool pool = new ChannelPool(connection, 1, true, 1000);
+        pool.publish("exchange", "rk", null, new byte[0]);
+        Channel channel = createdChannels.get(0);
+        when(channel.getNextPublishSeqNo()).thenReturn(1L, 2L, 3L);
+        for (int i = 0; i < 3; i++) {
+            pool.publish("exchange", "rk", null, new byte[0]);
+        }
+        verify(channel).confirmSelect();
+        ArgumentCaptor<ConfirmListener> listener = ArgumentCaptor.forClass(ConfirmListener.class);
+        verify(channel).addConfirmListener(listener.capture());
+        assertEquals(4, pool.getOutstandingConfirms());
+        assertFalse(pool.awaitConfirms(10));
+
+        // sequence numbers of the mock start at 0
+        listener.getValue().handleAck(2, true);
+        assertEquals(3, pool.getConfirmed());
+        assertEquals(1, pool.getOutstandingConfirms());
+        listener.getValue().handleNack(3, false);
+        assertEquals(1, pool.getNacked());
+
+        assertTrue(pool.awaitConfirms(10));
+        assertTrue(pool.getMaxConfirmLatency() >= pool.getAverageConfirmLatency());
+    }
+}
@@ -0,0 +1,88 @@
+package eu.h2020.symbiote;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import eu.h2020.symbiote.messaging.DeliveryFailurePolicy;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for acknowledging, retrying and rejecting of deliveries.
+ */
+public class DeliveryFailurePolicyTests {
+
+    private static final long DELIVERY_TAG = 7;
+
+    private Channel channel;
+    private Envelope envelope;
+    private DeliveryFailurePolicy policy;
+
+    @Before
+    public void setup() {
+        channel = mock(Channel.class);
+        envelope = new Envelope(DELIVERY_TAG, false, "exchange", "rk");
+        policy = new DeliveryFailurePolicy(2, 1, 10);
+    }
+
+    @Test
+    public void testSuccessAcknowledged() throws IOException {
+        policy.handle(channel, envelope, "Test", () -> { });
+        verify(channel).basicAck(DELIVERY_TAG, false);
+        verify(channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+        assertEquals(0, policy.getRetries());
+    }
+
+    @Test
+    public void testTransientFailureRetried() throws IOException {
+        AtomicInteger attempts = new AtomicInteger();
+        policy.handle(channel, envelope, "Test", () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IOException("Temporary failure");
+            }
+        });
+        assertEquals(2, attempts.get());
+        verify(channel).basicAck(DELIVERY_TAG, false);
+        assertEquals(1, policy.getRetries());
+        assertEquals(1, policy.getRecovered());
+        assertEquals(1L, (long) policy.getFailures().get(DeliveryFailurePolicy.FailureType.IO));
+    }
+
+    @Test
+    public void testParseFailureRejectedWithoutRetry() throws IOException {
+        AtomicInteger attempts = new AtomicInteger();
+        policy.handle(channel, envelope, "Test", () -> {
+            attempts.incrementAndGet();
+            throw new JsonParseException(null, "Unexpected character");
+        });
+        assertEquals(1, attempts.get());
+        verify(channel).basicNack(DELIVERY_TAG, false, false);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+        assertEquals(1L, (long) policy.getFailures().get(DeliveryFailurePolicy.FailureType.PARSE));
+        assertEquals(1, policy.getDeadLettered());
+    }
+
+    @Test
+    public void testRejectedAfterRetries() throws IOException {
+        AtomicInteger attempts = new AtomicInteger();
+        policy.handle(channel, envelope, "Test", () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("Permanent failure");
+        });
+        assertEquals("Delivery should be tried once and retried twice", 3, attempts.get());
+        verify(channel).basicNack(DELIVERY_TAG, false, false);
+        verify(channel, never()).basicAck(anyLong(), anyBoolean());
+        assertEquals(2, policy.getRetries());
+        assertEquals(0, policy.getRecovered());
+        assertEquals(3L, (long) policy.getFailures().get(DeliveryFailurePolicy.FailureType.PROCESSING));
+        assertEquals(1, policy.getDeadLettered());
+    }
+}
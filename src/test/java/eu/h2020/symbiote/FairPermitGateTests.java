@@ -0,0 +1,93 @@
+package eu.h2020.symbiote;
+
+import eu.h2020.symbiote.ontology.utils.FairPermitGate;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for round-robin scheduling of work units among tenants.
+ */
+public class FairPermitGateTests {
+
+    @Test
+    public void testPermitsGrantedImmediatelyWithoutContention() throws InterruptedException {
+        FairPermitGate gate = new FairPermitGate(2);
+        gate.acquire("big");
+        gate.acquire("big");
+        assertEquals(0, gate.getAvailable());
+        gate.release();
+        gate.release();
+        assertEquals(2, gate.getAvailable());
+    }
+
+    @Test
+    public void testTenantsServedInRoundRobin() throws InterruptedException {
+        FairPermitGate gate = new FairPermitGate(1);
+        gate.acquire("big");
+
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        // big tenant queues three units before the small one arrives
+        for (String tenant : Arrays.asList("big", "big", "big", "small")) {
+            Thread thread = new Thread(() -> {
+                try {
+                    gate.acquire(tenant);
+                    order.add(tenant);
+                    gate.release();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            threads.add(thread);
+            int waiting = gate.getWaiting();
+            thread.start();
+            awaitWaiting(gate, waiting + 1);
+        }
+        assertEquals(2, gate.getWaitingTenants());
+
+        gate.release();
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+        assertEquals(Arrays.asList("big", "small", "big", "big"), order);
+        assertEquals(1, gate.getAvailable());
+        assertEquals(0, gate.getWaiting());
+    }
+
+    @Test
+    public void testInterruptedWaiterRemoved() throws InterruptedException {
+        FairPermitGate gate = new FairPermitGate(1);
+        gate.acquire("big");
+        Thread waiter = new Thread(() -> {
+            try {
+                gate.acquire("small");
+                fail("Permit should not be granted");
+            } catch (InterruptedException e) {
+                // expected
+            }
+        });
+        waiter.start();
+        awaitWaiting(gate, 1);
+        waiter.interrupt();
+        waiter.join(5000);
+
+        assertEquals(0, gate.getWaiting());
+        assertEquals(0, gate.getWaitingTenants());
+        gate.release();
+        assertEquals(1, gate.getAvailable());
+    }
+
+    private static void awaitWaiting(FairPermitGate gate, int waiting) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (gate.getWaiting() < waiting) {
+            assertTrue("Work unit should be waiting", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+}
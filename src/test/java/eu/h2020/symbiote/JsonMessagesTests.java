@@ -0,0 +1,72 @@
+package eu.h2020.symbiote;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import eu.h2020.symbiote.core.internal.DescriptionType;
+import eu.h2020.symbiote.messaging.JsonMessages;
+import eu.h2020.symbiote.model.cim.Resource;
+import eu.h2020.symbiote.model.cim.StationarySensor;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static eu.h2020.symbiote.TestSetupConfig.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for parsing of messages using shared readers.
+ */
+public class JsonMessagesTests {
+
+    @Test
+    public void testStreamingParseMatchesTwoStepParse() throws IOException {
+        Map<String, Resource> resources = new HashMap<>();
+        for (int i = 0; i < 3; i++) {
+            StationarySensor sensor = new StationarySensor();
+            sensor.setId(STATIONARY1_ID + i);
+            sensor.setName(STATIONARY1_LABEL + " \"" + i + "\"");
+            sensor.setInterworkingServiceURL(STATIONARY1_URL);
+            resources.put("res_id" + i, sensor);
+        }
+        String body = JsonMessages.WRITER.forType(new TypeReference<Map<String, Resource>>() {
+        }).writeValueAsString(resources);
+        byte[] message = createMessage("platform_id", DescriptionType.BASIC, body);
+
+        JsonMessages.ResourceRegistryRequest expected = JsonMessages.readResourceRegistryRequest(message);
+        JsonMessages.ResourceRegistryRequest actual = JsonMessages.streamResourceRegistryRequest(message);
+
+        assertEquals("platform_id", actual.getPlatformId());
+        assertEquals(DescriptionType.BASIC, actual.getDescriptionType());
+        assertEquals(expected.getResources().keySet(), actual.getResources().keySet());
+        for (String id : resources.keySet()) {
+            assertEquals(resources.get(id).getName(), actual.getResources().get(id).getName());
+            assertEquals(expected.getResources().get(id).getId(), actual.getResources().get(id).getId());
+        }
+    }
+
+    @Test
+    public void testStreamingParseOfNonBasicRequest() throws IOException {
+        byte[] message = createMessage("platform_id", DescriptionType.RDF, "<http://a> <http://b> <http://c> .");
+        JsonMessages.ResourceRegistryRequest request = JsonMessages.streamResourceRegistryRequest(message);
+        assertEquals(DescriptionType.RDF, request.getDescriptionType());
+        assertNull(request.getResources());
+    }
+
+    @Test(expected = IOException.class)
+    public void testStreamingParseOfInvalidBody() throws IOException {
+        JsonMessages.streamResourceRegistryRequest(createMessage("platform_id", DescriptionType.BASIC, "{ not json"));
+    }
+
+    private static byte[] createMessage(String platformId, DescriptionType descriptionType, String body) throws IOException {
+        // body first, so that it is parsed before the description type is known
+        ObjectNode message = JsonNodeFactory.instance.objectNode();
+        message.put("body", body);
+        message.putObject("filteringPolicies");
+        message.put("descriptionType", descriptionType.name());
+        message.put("platformId", platformId);
+        return JsonMessages.WRITER.writeValueAsBytes(message);
+    }
+}
@@ -0,0 +1,100 @@
+package eu.h2020.symbiote;
+
+import com.mongodb.BulkWriteResult;
+import com.mongodb.BulkWriteUpsert;
+import eu.h2020.symbiote.utils.LocationInfo;
+import eu.h2020.symbiote.utils.LocationManager;
+import eu.h2020.symbiote.utils.LocationRepository;
+import eu.h2020.symbiote.utils.LocationWriter;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for cache of locations of platforms.
+ */
+public class LocationCacheTests {
+
+    private static final String PLATFORM_ID = "platform1";
+
+    private LocationRepository repository;
+    private BulkOperations bulkOperations;
+    private LocationWriter writer;
+    private LocationManager locationManager;
+
+    @Before
+    public void setup() {
+        repository = mock(LocationRepository.class);
+        when(repository.findByPlatformId(PLATFORM_ID)).thenReturn(new ArrayList<>(Collections.singletonList(
+                new LocationInfo("http://location/1", PLATFORM_ID, 52.5, 13.4, 30.0))));
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        bulkOperations = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LocationInfo.class)).thenReturn(bulkOperations);
+        writer = new LocationWriter(mongoTemplate);
+        locationManager = new LocationManager(repository, writer);
+    }
+
+    @Test
+    public void testLocationsLoadedOnce() {
+        assertTrue(locationManager.createResolver(PLATFORM_ID).findExistingLocation("Location", 52.5, 13.4, 30.0).isPresent());
+        assertTrue(locationManager.createResolver(PLATFORM_ID).findExistingLocation("Location", 52.5, 13.4, 30.0).isPresent());
+        verify(repository, times(1)).findByPlatformId(PLATFORM_ID);
+        assertEquals(1, locationManager.getLocationLoads());
+        assertEquals(0.5, locationManager.getLocationCache().getHitRate(), 0.0);
+
+        locationManager.invalidateLocations(PLATFORM_ID);
+        locationManager.createResolver(PLATFORM_ID).findExistingLocation("Location", 52.5, 13.4, 30.0);
+        verify(repository, times(2)).findByPlatformId(PLATFORM_ID);
+    }
+
+    @Test
+    public void testInsertedLocationWrittenThrough() {
+        locationManager.createResolver(PLATFORM_ID).findExistingLocation("Location", 52.5, 13.4, 30.0);
+        assertEquals("http://location/2", locationManager.createResolver(PLATFORM_ID).claimNewLocation(10.0, 20.0, 0.0, "http://location/2"));
+        assertEquals("http://location/3", locationManager.createResolver(PLATFORM_ID).claimNewLocation(11.0, 21.0, 0.0, "http://location/3"));
+        BulkWriteResult result = mock(BulkWriteResult.class);
+        when(result.isAcknowledged()).thenReturn(true);
+        when(result.getUpserts()).thenReturn(Arrays.asList(new BulkWriteUpsert(0, null), new BulkWriteUpsert(1, null)));
+        when(bulkOperations.execute()).thenReturn(result);
+        writer.flush();
+
+        assertEquals(0, writer.getPending());
+        assertEquals("http://location/2",
+                locationManager.createResolver(PLATFORM_ID).findExistingLocation("Location", 10.0, 20.0, 0.0).get().getLocationUri());
+        assertEquals("http://location/3",
+                locationManager.createResolver(PLATFORM_ID).findExistingLocation("Location", 11.0, 21.0, 0.0).get().getLocationUri());
+        verify(repository, times(1)).findByPlatformId(PLATFORM_ID);
+    }
+
+    @Test
+    public void testLocationsReloadedIfNotInserted() {
+        locationManager.createResolver(PLATFORM_ID).findExistingLocation("Location", 52.5, 13.4, 30.0);
+        locationManager.createResolver(PLATFORM_ID).claimNewLocation(10.0, 20.0, 0.0, "http://location/2");
+        BulkWriteResult result = mock(BulkWriteResult.class);
+        when(result.isAcknowledged()).thenReturn(true);
+        when(result.getUpserts()).thenReturn(Collections.emptyList());
+        when(bulkOperations.execute()).thenReturn(result);
+        writer.flush();
+
+        locationManager.createResolver(PLATFORM_ID).findExistingLocation("Location", 52.5, 13.4, 30.0);
+        verify(repository, times(2)).findByPlatformId(PLATFORM_ID);
+    }
+
+    @Test
+    public void testCacheDisabled() {
+        ReflectionTestUtils.setField(locationManager, "cacheEnabled", false);
+        locationManager.createResolver(PLATFORM_ID).findExistingLocation("Location", 52.5, 13.4, 30.0);
+        locationManager.createResolver(PLATFORM_ID).findExistingLocation("Location", 52.5, 13.4, 30.0);
+        verify(repository, times(2)).findByPlatformId(PLATFORM_ID);
+        assertEquals(0, locationManager.getLocationCache().size());
+    }
+}
@@ -0,0 +1,161 @@
+package eu.h2020.symbiote;
+
+import eu.h2020.symbiote.model.cim.MobileSensor;
+import eu.h2020.symbiote.model.cim.SymbolicLocation;
+import eu.h2020.symbiote.model.cim.WGS84Location;
+import eu.h2020.symbiote.ontology.utils.RDFGenerator;
+import eu.h2020.symbiote.semantics.ontology.CIM;
+import eu.h2020.symbiote.semantics.ontology.WGS84;
+import eu.h2020.symbiote.utils.LocationInfo;
+import eu.h2020.symbiote.utils.LocationManager;
+import eu.h2020.symbiote.utils.LocationNormalizer;
+import eu.h2020.symbiote.utils.LocationRepository;
+import eu.h2020.symbiote.utils.LocationResolver;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.vocabulary.RDF;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for resolving locations of a registration against existing locations of the platform.
+ */
+public class LocationResolverTests {
+
+    private static final String PLATFORM_ID = "platform1";
+
+    private LocationRepository locationRepository;
+    private LocationManager locationManager;
+
+    @Before
+    public void setup() {
+        locationRepository = mock(LocationRepository.class);
+        when(locationRepository.findByPlatformId(PLATFORM_ID)).thenReturn(Arrays.asList(
+                new LocationInfo("http://location/1", PLATFORM_ID, 52.5, 13.4, 30.0),
+                new LocationInfo("http://location/2", PLATFORM_ID, 48.1, 11.6, 520.0),
+                new LocationInfo("http://location/3", PLATFORM_ID, 52.5, 13.4, 30.0)));
+        locationManager = new LocationManager(locationRepository);
+    }
+
+    @Test
+    public void testLocationsLoadedOnce() {
+        LocationResolver resolver = locationManager.createResolver(PLATFORM_ID);
+        verify(locationRepository, never()).findByPlatformId(anyString());
+        for (int i = 0; i < 100; i++) {
+            Optional<LocationInfo> location = resolver.findExistingLocation("Location", 48.1, 11.6, 520.0);
+            assertTrue(location.isPresent());
+            assertEquals("http://location/2", location.get().getLocationUri());
+        }
+        assertFalse(resolver.findExistingLocation("Location", 48.1, 11.6, 0.0).isPresent());
+        verify(locationRepository, times(1)).findByPlatformId(PLATFORM_ID);
+    }
+
+    @Test
+    public void testResolvedAsLocationManager() {
+        LocationResolver resolver = locationManager.createResolver(PLATFORM_ID);
+        assertEquals("First location with the coordinates should be used", "http://location/1",
+                resolver.findExistingLocation("Location", 52.5, 13.4, 30.0).get().getLocationUri());
+        assertEquals(locationManager.findExistingLocation("Location", PLATFORM_ID, 52.5, 13.4, 30.0),
+                resolver.findExistingLocation("Location", 52.5, 13.4, 30.0));
+        assertFalse(locationManager.createResolver("platform2").findExistingLocation("Location", 52.5, 13.4, 30.0).isPresent());
+    }
+
+    @Test
+    public void testLocationsMatchedWithinTolerance() {
+        LocationResolver resolver = new LocationResolver(PLATFORM_ID, locationRepository::findByPlatformId, null, 10, 5);
+        assertEquals("GPS jitter should be tolerated", "http://location/2",
+                resolver.findExistingLocation("Location", 48.1 + 1e-9, 11.6 - 1e-9, 520.0).get().getLocationUri());
+        // 0.00005 degrees of latitude is about 5.6 meters
+        assertEquals("http://location/2",
+                resolver.findExistingLocation("Location", 48.10005, 11.6, 523.0).get().getLocationUri());
+        assertFalse("Location further than distance tolerance should not match",
+                resolver.findExistingLocation("Location", 48.1002, 11.6, 520.0).isPresent());
+        assertFalse("Location further than altitude tolerance should not match",
+                resolver.findExistingLocation("Location", 48.1, 11.6, 530.0).isPresent());
+        verify(locationRepository, times(1)).findByPlatformId(PLATFORM_ID);
+    }
+
+    @Test
+    public void testClaimedLocationsMatchedWithinTolerance() throws Exception {
+        LocationResolver resolver = new LocationResolver(PLATFORM_ID, locationRepository::findByPlatformId, null, 10, 5);
+        assertFalse(resolver.findExistingLocation("Location", 40.0, 10.0, 100.0).isPresent());
+        assertEquals("http://location/new", resolver.claimNewLocation(40.0, 10.0, 100.0, "http://location/new"));
+
+        assertEquals("Claimed location should be found within tolerance", "http://location/new",
+                resolver.findExistingLocation("Location", 40.00005, 10.0, 102.0).get().getLocationUri());
+        LocationInfo claimed = resolver.claimLocation(40.00003, 10.00003, 101.0, "http://location/other");
+        assertEquals("Location claimed within tolerance should be reused", "http://location/new", claimed.getLocationUri());
+        assertEquals(40.0, claimed.getLatitude(), 0);
+        assertEquals("http://location/far", resolver.claimNewLocation(40.001, 10.0, 100.0, "http://location/far"));
+
+        RDFGenerator rdfGenerator = new RDFGenerator(locationManager);
+        LocationResolver generatorResolver = new LocationResolver(PLATFORM_ID, locationRepository::findByPlatformId, null, 10, 5);
+        Model model = ModelFactory.createDefaultModel();
+        for (double jitter : new double[]{0, 0.00002, -0.00003}) {
+            MobileSensor sensor = new MobileSensor();
+            sensor.setId("sensor" + jitter);
+            sensor.setName("Sensor");
+            sensor.setLocatedAt(new WGS84Location(10.0 + jitter, 40.0 + jitter, 100.0, "Site", null));
+            model.add(rdfGenerator.generateRDFForResource(sensor, PLATFORM_ID, false, generatorResolver).getModel());
+        }
+        assertEquals("Sensors of one site should share a location", 1,
+                model.listObjectsOfProperty(CIM.locatedAt).toList().size());
+        assertEquals("Shared location should have a single geometry", 1,
+                model.listObjectsOfProperty(WGS84.lat).toList().size());
+    }
+
+    @Test
+    public void testWKTAndSymbolicLocationsMatched() {
+        LocationInfo wkt = new LocationInfo("http://location/wkt", PLATFORM_ID, 0, 0, 0);
+        wkt.setWktHash(LocationNormalizer.wktHash("POLYGON ((30 10, 40 40, 20 40, 30 10))"));
+        LocationInfo symbolic = new LocationInfo("http://location/symbolic", PLATFORM_ID, 0, 0, 0);
+        symbolic.setSymbolicName(LocationNormalizer.normalizeSymbolicName("Room 101"));
+        when(locationRepository.findByPlatformId(PLATFORM_ID)).thenReturn(Arrays.asList(wkt, symbolic));
+
+        LocationResolver resolver = locationManager.createResolver(PLATFORM_ID);
+        assertEquals("http://location/wkt",
+                resolver.findExistingWKTLocation("polygon((30.0 10, 40 40.00,  20 40,30 10))").get().getLocationUri());
+        assertFalse(resolver.findExistingWKTLocation("POLYGON ((30 10, 40 40, 20 41, 30 10))").isPresent());
+        assertEquals("http://location/symbolic",
+                resolver.findExistingSymbolicLocation("  room   101 ").get().getLocationUri());
+        assertFalse(resolver.findExistingSymbolicLocation("Room 102").isPresent());
+        assertFalse("WKT and symbolic locations should not match coordinates",
+                resolver.findExistingLocation("Location", 0, 0, 0).isPresent());
+    }
+
+    @Test
+    public void testReusedLocationDescribedByStoredValues() throws Exception {
+        ReflectionTestUtils.setField(locationManager, "distanceTolerance", 10.0);
+        ReflectionTestUtils.setField(locationManager, "altitudeTolerance", 5.0);
+        LocationInfo symbolic = new LocationInfo("http://location/symbolic", PLATFORM_ID, 0, 0, 0);
+        symbolic.setSymbolicName(LocationNormalizer.normalizeSymbolicName("Room 101"));
+        when(locationRepository.findByPlatformId(PLATFORM_ID)).thenReturn(Arrays.asList(
+                new LocationInfo("http://location/2", PLATFORM_ID, 48.1, 11.6, 520.0), symbolic));
+        RDFGenerator rdfGenerator = new RDFGenerator(locationManager);
+        LocationResolver resolver = locationManager.createResolver(PLATFORM_ID);
+
+        MobileSensor sensor = new MobileSensor();
+        sensor.setId("sensor1");
+        sensor.setName("Sensor");
+        sensor.setLocatedAt(new WGS84Location(11.6, 48.10005, 523.0, "Other name", null));
+        Model model = rdfGenerator.generateRDFForResource(sensor, PLATFORM_ID, false, resolver).getModel();
+        org.apache.jena.rdf.model.Resource location = model.getResource("http://location/2");
+        assertEquals("Stored coordinates should be used", "48.1", location.getProperty(WGS84.lat).getString());
+        assertEquals("520.0", location.getProperty(WGS84.alt).getString());
+        assertFalse("Reused location should not be renamed", location.hasProperty(CIM.name));
+
+        sensor.setLocatedAt(new SymbolicLocation());
+        sensor.getLocatedAt().setName("ROOM 101");
+        model = rdfGenerator.generateRDFForResource(sensor, PLATFORM_ID, false, resolver).getModel();
+        location = model.getResource("http://location/symbolic");
+        assertTrue(location.hasProperty(RDF.type, CIM.SymbolicLocation));
+        assertFalse(location.hasProperty(CIM.name));
+    }
+}
@@ -0,0 +1,111 @@
+package eu.h2020.symbiote;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteError;
+import eu.h2020.symbiote.utils.LocationInfo;
+import eu.h2020.symbiote.utils.LocationManager;
+import eu.h2020.symbiote.utils.LocationRepository;
+import eu.h2020.symbiote.utils.LocationResolver;
+import eu.h2020.symbiote.utils.LocationWriter;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for storing of locations created during generation of RDF.
+ */
+public class LocationWriterTests {
+
+    private static final String PLATFORM_ID = "platform1";
+
+    private MongoTemplate mongoTemplate;
+    private BulkOperations bulkOperations;
+    private LocationWriter writer;
+
+    @Before
+    public void setup() {
+        mongoTemplate = mock(MongoTemplate.class);
+        bulkOperations = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LocationInfo.class)).thenReturn(bulkOperations);
+        writer = new LocationWriter(mongoTemplate);
+    }
+
+    @Test
+    public void testConcurrentlyCreatedLocationReused() {
+        LocationRepository repository = mock(LocationRepository.class);
+        LocationManager locationManager = new LocationManager(repository, writer);
+        LocationResolver first = locationManager.createResolver(PLATFORM_ID);
+        LocationResolver second = locationManager.createResolver(PLATFORM_ID);
+
+        assertFalse(first.findExistingLocation("Location", 52.5, 13.4, 30.0).isPresent());
+        assertFalse(second.findExistingLocation("Location", 52.5, 13.4, 30.0).isPresent());
+        assertEquals("http://location/1", first.claimNewLocation(52.5, 13.4, 30.0, "http://location/1"));
+        assertEquals("Location claimed first should be used", "http://location/1",
+                second.claimNewLocation(52.5, 13.4, 30.0, "http://location/2"));
+        assertEquals("http://location/1",
+                locationManager.createResolver(PLATFORM_ID).findExistingLocation("Location", 52.5, 13.4, 30.0).get().getLocationUri());
+        assertEquals(1, writer.getPending());
+    }
+
+    @Test
+    public void testClaimedLocationsWrittenInBulk() {
+        for (int i = 0; i < 10; i++) {
+            writer.claim(new LocationInfo("http://location/" + i, PLATFORM_ID, 52.5, 13.4, i));
+        }
+        writer.flush();
+        verify(mongoTemplate, times(1)).bulkOps(BulkOperations.BulkMode.UNORDERED, LocationInfo.class);
+        verify(bulkOperations, times(10)).upsert(any(Query.class), any(Update.class));
+        verify(bulkOperations, times(1)).execute();
+        assertEquals(0, writer.getPending());
+        assertEquals(10, writer.getWritten());
+    }
+
+    @Test
+    public void testAlreadyStoredLocationsNotRetried() {
+        BulkOperationException duplicate = mock(BulkOperationException.class);
+        when(duplicate.getErrors()).thenReturn(Collections.singletonList(new BulkWriteError(11000, "duplicate key", new BasicDBObject(), 0)));
+        when(bulkOperations.execute()).thenThrow(duplicate);
+        writer.claim(new LocationInfo("http://location/1", PLATFORM_ID, 52.5, 13.4, 30.0));
+        writer.flush();
+        assertEquals(0, writer.getPending());
+        assertEquals(0, writer.getFailedWrites());
+    }
+
+    @Test
+    public void testClaimedLocationReusedWhenFull() {
+        ReflectionTestUtils.setField(writer, "maxPending", 1);
+        writer.claim(new LocationInfo("http://location/1", PLATFORM_ID, 52.5, 13.4, 30.0));
+        assertEquals("Claimed location should be used", "http://location/1",
+                writer.claim(new LocationInfo("http://location/2", PLATFORM_ID, 52.5, 13.4, 30.0)).getLocationUri());
+        assertEquals("http://location/3",
+                writer.claim(new LocationInfo("http://location/3", PLATFORM_ID, 10.0, 20.0, 0.0)).getLocationUri());
+        assertEquals(1, writer.getPending());
+        assertEquals(1, writer.getDropped());
+    }
+
+    @Test
+    public void testFailedWriteRetried() {
+        when(bulkOperations.execute()).thenThrow(new DataAccessResourceFailureException("Connection refused"));
+        writer.claim(new LocationInfo("http://location/1", PLATFORM_ID, 52.5, 13.4, 30.0));
+        try {
+            writer.flush();
+            fail("Failure should be reported");
+        } catch (DataAccessResourceFailureException e) {
+            // expected
+        }
+        assertEquals("Location should stay claimed", 1, writer.getPending());
+        assertEquals(1, writer.getFailedWrites());
+    }
+}
@@ -5,6 +5,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.rabbitmq.client.AMQP;
 import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Envelope;
 import eu.h2020.symbiote.core.internal.CoreResourceRegistryRequest;
 import eu.h2020.symbiote.core.internal.DescriptionType;
 import eu.h2020.symbiote.core.internal.RDFFormat;
@@ -17,11 +19,15 @@ import eu.h2020.symbiote.model.mim.InterworkingService;
 import eu.h2020.symbiote.model.mim.Platform;
 import eu.h2020.symbiote.ontology.SemanticManager;
 import eu.h2020.symbiote.ontology.errors.PropertyNotFoundException;
+import eu.h2020.symbiote.ontology.utils.GenerationResult;
+import eu.h2020.symbiote.ontology.utils.RDFGenerator;
 import eu.h2020.symbiote.security.accesspolicies.common.AccessPolicyType;
 import eu.h2020.symbiote.security.accesspolicies.common.IAccessPolicySpecifier;
 import eu.h2020.symbiote.security.accesspolicies.common.singletoken.SingleTokenAccessPolicySpecifier;
 import eu.h2020.symbiote.security.commons.exceptions.custom.InvalidArgumentsException;
 import eu.h2020.symbiote.security.communication.payloads.SecurityRequest;
+import eu.h2020.symbiote.utils.LocationResolver;
+import org.apache.jena.rdf.model.ModelFactory;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -33,17 +39,29 @@ import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static eu.h2020.symbiote.TestSetupConfig.*;
 import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Created by Mael on 06/02/2017.
@@ -90,51 +108,53 @@ public class MessagingTests {
 
     @Before
     public void setup() {
-        ReflectionTestUtils.setField(rabbitManager, "rabbitHost", "localhost");
-        ReflectionTestUtils.setField(rabbitManager, "rabbitUsername", "guest");
-        ReflectionTestUtils.setField(rabbitManager, "rabbitPassword", "guest");
-
-        ReflectionTestUtils.setField(rabbitManager, "platformModelValidationRequestedRoutingKey", PLATFORM_MODEL_VALIDATION_REQUESTED_RK);
-        ReflectionTestUtils.setField(rabbitManager, "platformModelValidationPerformedRoutingKey", "platformModelValidationPerformedRK");
-        ReflectionTestUtils.setField(rabbitManager, "platformModelCreatedRoutingKey", PLATFORM_MODEL_CREATED_RK);
-        ReflectionTestUtils.setField(rabbitManager, "platformModelModifiedRoutingKey", PLATFORM_MODEL_MODIFIED_RK);
-        ReflectionTestUtils.setField(rabbitManager, "platformModelRemovedRoutingKey", PLATFORM_MODEL_REMOVED_RK);
-        ReflectionTestUtils.setField(rabbitManager, "platformInstanceValidationRequestedRoutingKey", "platformInstanceValidationReqRK");
-        ReflectionTestUtils.setField(rabbitManager, "platformInstanceValidationPerformedRoutingKey", "platformInstanceValidationPerformedRK");
-        ReflectionTestUtils.setField(rabbitManager, "platformInstanceTranslationRequestedRoutingKey", "platformInstanceTranslationRequestedRK");
-        ReflectionTestUtils.setField(rabbitManager, "platformInstanceTranslationPerformedRoutingKey", "platformInstanceTranslationPerformedRK");
-        ReflectionTestUtils.setField(rabbitManager, "platformInformationModelRequestedKey", "platformInformationModelRequestedRK");
-
-        ReflectionTestUtils.setField(rabbitManager, "resourceInstanceValidationRequestedRoutingKey", RESOURCE_INSTANCE_VALIDATION_REQUESTED_ROUTING_KEY);
-        ReflectionTestUtils.setField(rabbitManager, "resourceInstanceValidationPerformedRoutingKey", "resourceInstanceValidationPerformedRoutingKey");
-        ReflectionTestUtils.setField(rabbitManager, "resourceInstanceTranslationRequestedRoutingKey", RESOURCE_INSTANCE_TRANSLATION_REQUESTED_ROUTING_KEY);
-        ReflectionTestUtils.setField(rabbitManager, "resourceInstanceTranslationPerformedRoutingKey", "resourceInstanceTranslationPerformedRoutingKey");
-
-        ReflectionTestUtils.setField(rabbitManager, "platformExchangeName", PLATFORM_EXCHANGE_NAME);
-        ReflectionTestUtils.setField(rabbitManager, "platformExchangeType", "topic");
-        ReflectionTestUtils.setField(rabbitManager, "plaftormExchangeDurable", false);
-        ReflectionTestUtils.setField(rabbitManager, "platformExchangeAutodelete", true);
-        ReflectionTestUtils.setField(rabbitManager, "platformExchangeInternal", false);
-        ReflectionTestUtils.setField(rabbitManager, "platformCreationRequestedRoutingKey", "platformCreationRequestedRoutingKey");
-        ReflectionTestUtils.setField(rabbitManager, "platformCreatedRoutingKey", PLATFORM_CREATED_ROUTING_KEY);
-        ReflectionTestUtils.setField(rabbitManager, "platformModifiedRoutingKey", "platformModifiedRoutingKey");
-        ReflectionTestUtils.setField(rabbitManager, "platformDeletedRoutingKey", "platformDeletedRoutingKey");
-
-
-        ReflectionTestUtils.setField(rabbitManager, "resourceExchangeName", RESOURCE_EXCHANGE_NAME);
-        ReflectionTestUtils.setField(rabbitManager, "resourceExchangeType", "topic");
-        ReflectionTestUtils.setField(rabbitManager, "resourceExchangeDurable", false);
-        ReflectionTestUtils.setField(rabbitManager, "resourceExchangeAutodelete", true);
-        ReflectionTestUtils.setField(rabbitManager, "resourceExchangeInternal", false);
-        ReflectionTestUtils.setField(rabbitManager, "rabbitMessageTimeout", 30000);
-
-
-        ReflectionTestUtils.setField(rabbitManager, "resourceSparqlSearchRequestedRoutingKey", "resourceSparqlSearchRequestedRoutingKey");
-
-
+        configure(rabbitManager);
         ReflectionTestUtils.invokeMethod(rabbitManager, "init");
     }
 
+    private void configure(RabbitManager manager) {
+        ReflectionTestUtils.setField(manager, "rabbitHost", "localhost");
+        ReflectionTestUtils.setField(manager, "rabbitUsername", "guest");
+        ReflectionTestUtils.setField(manager, "rabbitPassword", "guest");
+
+        ReflectionTestUtils.setField(manager, "platformModelValidationRequestedRoutingKey", PLATFORM_MODEL_VALIDATION_REQUESTED_RK);
+        ReflectionTestUtils.setField(manager, "platformModelValidationPerformedRoutingKey", "platformModelValidationPerformedRK");
+        ReflectionTestUtils.setField(manager, "platformModelCreatedRoutingKey", PLATFORM_MODEL_CREATED_RK);
+        ReflectionTestUtils.setField(manager, "platformModelModifiedRoutingKey", PLATFORM_MODEL_MODIFIED_RK);
+        ReflectionTestUtils.setField(manager, "platformModelRemovedRoutingKey", PLATFORM_MODEL_REMOVED_RK);
+        ReflectionTestUtils.setField(manager, "platformInstanceValidationRequestedRoutingKey", "platformInstanceValidationReqRK");
+        ReflectionTestUtils.setField(manager, "platformInstanceValidationPerformedRoutingKey", "platformInstanceValidationPerformedRK");
+        ReflectionTestUtils.setField(manager, "platformInstanceTranslationRequestedRoutingKey", "platformInstanceTranslationRequestedRK");
+        ReflectionTestUtils.setField(manager, "platformInstanceTranslationPerformedRoutingKey", "platformInstanceTranslationPerformedRK");
+        ReflectionTestUtils.setField(manager, "platformInformationModelRequestedKey", "platformInformationModelRequestedRK");
+
+        ReflectionTestUtils.setField(manager, "resourceInstanceValidationRequestedRoutingKey", RESOURCE_INSTANCE_VALIDATION_REQUESTED_ROUTING_KEY);
+        ReflectionTestUtils.setField(manager, "resourceInstanceValidationPerformedRoutingKey", "resourceInstanceValidationPerformedRoutingKey");
+        ReflectionTestUtils.setField(manager, "resourceInstanceTranslationRequestedRoutingKey", RESOURCE_INSTANCE_TRANSLATION_REQUESTED_ROUTING_KEY);
+        ReflectionTestUtils.setField(manager, "resourceInstanceTranslationPerformedRoutingKey", "resourceInstanceTranslationPerformedRoutingKey");
+
+        ReflectionTestUtils.setField(manager, "platformExchangeName", PLATFORM_EXCHANGE_NAME);
+        ReflectionTestUtils.setField(manager, "platformExchangeType", "topic");
+        ReflectionTestUtils.setField(manager, "plaftormExchangeDurable", false);
+        ReflectionTestUtils.setField(manager, "platformExchangeAutodelete", true);
+        ReflectionTestUtils.setField(manager, "platformExchangeInternal", false);
+        ReflectionTestUtils.setField(manager, "platformCreationRequestedRoutingKey", "platformCreationRequestedRoutingKey");
+        ReflectionTestUtils.setField(manager, "platformCreatedRoutingKey", PLATFORM_CREATED_ROUTING_KEY);
+        ReflectionTestUtils.setField(manager, "platformModifiedRoutingKey", "platformModifiedRoutingKey");
+        ReflectionTestUtils.setField(manager, "platformDeletedRoutingKey", "platformDeletedRoutingKey");
+
+
+        ReflectionTestUtils.setField(manager, "resourceExchangeName", RESOURCE_EXCHANGE_NAME);
+        ReflectionTestUtils.setField(manager, "resourceExchangeType", "topic");
+        ReflectionTestUtils.setField(manager, "resourceExchangeDurable", false);
+        ReflectionTestUtils.setField(manager, "resourceExchangeAutodelete", true);
+        ReflectionTestUtils.setField(manager, "resourceExchangeInternal", false);
+        ReflectionTestUtils.setField(manager, "rabbitMessageTimeout", 30000);
+
+
+        ReflectionTestUtils.setField(manager, "resourceSparqlSearchRequestedRoutingKey", "resourceSparqlSearchRequestedRoutingKey");
+    }
+
     @After
     public void teardown() {
         ReflectionTestUtils.invokeMethod(rabbitManager, "cleanup");
@@ -346,6 +366,246 @@ public class MessagingTests {
         }
     }
 
+    @Test
+    public void testValidateResourceInstanceConsumedConcurrently() throws Exception {
+        ReflectionTestUtils.setField(rabbitManager, "resourceValidationConcurrency", 2);
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            // completes only if the other request is being processed at the same time
+            bothStarted.countDown();
+            assertTrue("Requests should be processed concurrently", bothStarted.await(10, TimeUnit.SECONDS));
+            return null;
+        }).when(semanticManager).validateResourcesInstance(any());
+        rabbitManager.registerValidateResourceInstanceConsumer(semanticManager);
+
+        ObjectMapper mapper = new ObjectMapper();
+        ResourceInstanceValidationRequest request = new ResourceInstanceValidationRequest();
+        request.setInformationModelId("BIM");
+        request.setRdf("RDF");
+        request.setRdfFormat(RDFFormat.JSONLD);
+        String jsonRequest = mapper.writeValueAsString(request);
+        sendMessage(RESOURCE_EXCHANGE_NAME, RESOURCE_INSTANCE_VALIDATION_REQUESTED_ROUTING_KEY, null, jsonRequest);
+        sendMessage(RESOURCE_EXCHANGE_NAME, RESOURCE_INSTANCE_VALIDATION_REQUESTED_ROUTING_KEY, null, jsonRequest);
+
+        assertTrue("Both requests should be processed at the same time", bothStarted.await(5, TimeUnit.SECONDS));
+        verify(semanticManager, timeout(5000).times(2)).validateResourcesInstance(any());
+    }
+
+    @Test
+    public void testPIMValidationDoesNotDelayResourceRequests() throws Exception {
+        CountDownLatch pimValidationsRunning = new CountDownLatch(1);
+        CountDownLatch pimValidationsReleased = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            pimValidationsRunning.countDown();
+            pimValidationsReleased.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(semanticManager).validatePIMMetaModel(any());
+        rabbitManager.registerValidatePIMMetaModelConsumer(semanticManager);
+        rabbitManager.registerValidateResourceInstanceConsumer(semanticManager);
+
+        try {
+            ObjectMapper mapper = new ObjectMapper();
+            String jsonIm = mapper.writeValueAsString(createInformationModel());
+            for (int i = 0; i < 3; i++) {
+                sendMessage(PLATFORM_EXCHANGE_NAME, PLATFORM_MODEL_VALIDATION_REQUESTED_RK, null, jsonIm);
+            }
+            assertTrue(pimValidationsRunning.await(5, TimeUnit.SECONDS));
+
+            ResourceInstanceValidationRequest request = new ResourceInstanceValidationRequest();
+            request.setInformationModelId("BIM");
+            request.setRdf("RDF");
+            request.setRdfFormat(RDFFormat.JSONLD);
+            sendMessage(RESOURCE_EXCHANGE_NAME, RESOURCE_INSTANCE_VALIDATION_REQUESTED_ROUTING_KEY, null, mapper.writeValueAsString(request));
+
+            verify(semanticManager, timeout(2000).times(1)).validateResourcesInstance(any());
+        } finally {
+            pimValidationsReleased.countDown();
+        }
+    }
+
+    @Test
+    public void testSmallRegistrationTranslatedDuringLargeBatch() throws Exception {
+        RDFGenerator generator = mock(RDFGenerator.class);
+        CountDownLatch smallTranslated = new CountDownLatch(1);
+        CountDownLatch largeStarted = new CountDownLatch(1);
+        CountDownLatch largeReleased = new CountDownLatch(1);
+        when(generator.generateRDFForResource(any(Resource.class), anyString(), anyBoolean(), any(LocationResolver.class)))
+                .thenAnswer(invocation -> {
+                    if ("small_platform".equals(invocation.getArguments()[1])) {
+                        smallTranslated.countDown();
+                    } else {
+                        // large batch keeps its consumer busy until the test ends
+                        largeStarted.countDown();
+                        largeReleased.await(10, TimeUnit.SECONDS);
+                    }
+                    GenerationResult generationResult = new GenerationResult();
+                    generationResult.setModel(ModelFactory.createDefaultModel());
+                    generationResult.setResources(new HashMap<>());
+                    return generationResult;
+                });
+        // default settings of both the consumers and the translation gate
+        SemanticManager translationManager = new SemanticManager(generator);
+        translationManager.init();
+        rabbitManager.registerValidateAndCreateBIMResource(translationManager);
+
+        try {
+            sendMessage(RESOURCE_EXCHANGE_NAME, RESOURCE_INSTANCE_TRANSLATION_REQUESTED_ROUTING_KEY, null,
+                    createRegistryRequest("large_platform", 1000));
+            assertTrue(largeStarted.await(5, TimeUnit.SECONDS));
+            sendMessage(RESOURCE_EXCHANGE_NAME, RESOURCE_INSTANCE_TRANSLATION_REQUESTED_ROUTING_KEY, null,
+                    createRegistryRequest("small_platform", 1));
+
+            assertTrue("Small registration should be translated while the large batch is in progress",
+                    smallTranslated.await(5, TimeUnit.SECONDS));
+        } finally {
+            largeReleased.countDown();
+        }
+    }
+
+    private static String createRegistryRequest(String platformId, int count) throws IOException, InvalidArgumentsException {
+        Map<String, IAccessPolicySpecifier> filteringPolicies = new HashMap<>();
+        Map<String, Resource> resources = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            StationarySensor stationarySensor = new StationarySensor();
+            stationarySensor.setId(platformId + STATIONARY1_ID + i);
+            stationarySensor.setName(STATIONARY1_LABEL + i);
+            stationarySensor.setDescription(STATIONARY1_COMMENTS);
+            stationarySensor.setLocatedAt(STATIONARY1_LOCATION);
+            stationarySensor.setInterworkingServiceURL(STATIONARY1_URL);
+            stationarySensor.setFeatureOfInterest(STATIONARY1_FOI);
+            stationarySensor.setObservesProperty(STATIONARY1_PROPERTIES);
+            resources.put("res_" + i, stationarySensor);
+            filteringPolicies.put("res_" + i, new SingleTokenAccessPolicySpecifier(AccessPolicyType.PUBLIC, null));
+        }
+        ObjectMapper mapper = new ObjectMapper();
+        String body = mapper.writerFor(new TypeReference<Map<String, Resource>>() {
+        }).writeValueAsString(resources);
+        return mapper.writeValueAsString(new CoreResourceRegistryRequest(new SecurityRequest("test1"), body,
+                DescriptionType.BASIC, platformId, filteringPolicies));
+    }
+
+    @Test
+    public void testScaleOutDistributesRequestsAndBroadcastsEvents() throws Exception {
+        ReflectionTestUtils.setField(rabbitManager, "scaleOut", true);
+        SemanticManager secondSemanticManager = mock(SemanticManager.class);
+        RabbitManager secondRabbitManager = new RabbitManager(null);
+        configure(secondRabbitManager);
+        ReflectionTestUtils.setField(secondRabbitManager, "scaleOut", true);
+        ReflectionTestUtils.invokeMethod(secondRabbitManager, "init");
+        try {
+            AtomicInteger firstValidations = new AtomicInteger();
+            AtomicInteger secondValidations = new AtomicInteger();
+            int requests = 4;
+            CountDownLatch validated = new CountDownLatch(requests);
+            doAnswer(invocation -> {
+                firstValidations.incrementAndGet();
+                validated.countDown();
+                return null;
+            }).when(semanticManager).validateResourcesInstance(any());
+            doAnswer(invocation -> {
+                secondValidations.incrementAndGet();
+                validated.countDown();
+                return null;
+            }).when(secondSemanticManager).validateResourcesInstance(any());
+
+            rabbitManager.registerValidateResourceInstanceConsumer(semanticManager);
+            rabbitManager.registerPIMMetaModelCreationConsumer(semanticManager);
+            secondRabbitManager.registerValidateResourceInstanceConsumer(secondSemanticManager);
+            secondRabbitManager.registerPIMMetaModelCreationConsumer(secondSemanticManager);
+
+            ObjectMapper mapper = new ObjectMapper();
+            ResourceInstanceValidationRequest request = new ResourceInstanceValidationRequest();
+            request.setInformationModelId("BIM");
+            request.setRdf("RDF");
+            request.setRdfFormat(RDFFormat.JSONLD);
+            String jsonRequest = mapper.writeValueAsString(request);
+            Channel replyChannel = rabbitManager.getConnection().createChannel();
+            AMQP.BasicProperties replyProperties = new AMQP.BasicProperties.Builder()
+                    .replyTo(replyChannel.queueDeclare().getQueue())
+                    .build();
+            for (int i = 0; i < requests; i++) {
+                sendMessage(RESOURCE_EXCHANGE_NAME, RESOURCE_INSTANCE_VALIDATION_REQUESTED_ROUTING_KEY, replyProperties, jsonRequest);
+            }
+            sendMessage(PLATFORM_EXCHANGE_NAME, PLATFORM_MODEL_CREATED_RK, null, mapper.writeValueAsString(createInformationModel()));
+
+            assertTrue("All requests should be processed", validated.await(5, TimeUnit.SECONDS));
+            assertEquals("Every request should be processed exactly once", requests, firstValidations.get() + secondValidations.get());
+            assertTrue("Requests should be distributed among instances", firstValidations.get() > 0 && secondValidations.get() > 0);
+            verify(semanticManager, timeout(5000).times(1)).registerNewPIMMetaModel(any());
+            verify(secondSemanticManager, timeout(5000).times(1)).registerNewPIMMetaModel(any());
+        } finally {
+            // shared queues are not deleted automatically
+            Channel channel = rabbitManager.getConnection().createChannel();
+            channel.queueDelete("symbIoTe-SemanticManager-validate-Resource-Instance");
+            channel.close();
+            ReflectionTestUtils.invokeMethod(secondRabbitManager, "cleanup");
+        }
+    }
+
+    @Test
+    public void testRpcRepliesMatchedByCorrelationId() throws Exception {
+        String queueName = "symbIoTe-SemanticManager-rpc-test";
+        Channel responderChannel = rabbitManager.getConnection().createChannel();
+        try {
+            responderChannel.queueDeclare(queueName, false, true, true, null);
+            responderChannel.queueBind(queueName, PLATFORM_EXCHANGE_NAME, "rpcTestRK");
+            responderChannel.basicConsume(queueName, true, new DefaultConsumer(responderChannel) {
+                @Override
+                public void handleDelivery(String consumerTag, Envelope envelope, AMQP.BasicProperties properties, byte[] body) throws IOException {
+                    AMQP.BasicProperties replyProperties = new AMQP.BasicProperties.Builder()
+                            .correlationId(properties.getCorrelationId())
+                            .build();
+                    getChannel().basicPublish("", properties.getReplyTo(), replyProperties, ("reply-" + new String(body)).getBytes());
+                }
+            });
+
+            List<CompletableFuture<String>> responses = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                responses.add(rabbitManager.sendRpcMessageAsync(PLATFORM_EXCHANGE_NAME, "rpcTestRK", "request-" + i, String.class.getCanonicalName()));
+            }
+            for (int i = 0; i < 10; i++) {
+                assertEquals("reply-request-" + i, responses.get(i).get(5, TimeUnit.SECONDS));
+            }
+            assertEquals("reply-single", rabbitManager.sendRpcMessage(PLATFORM_EXCHANGE_NAME, "rpcTestRK", "single", String.class.getCanonicalName()));
+            assertEquals(0, rabbitManager.getRpcClient().getPendingCalls());
+        } finally {
+            responderChannel.close();
+        }
+    }
+
+    @Test
+    public void testRpcTimesOutWithoutReply() throws Exception {
+        String queueName = "symbIoTe-SemanticManager-rpc-timeout-test";
+        Channel channel = rabbitManager.getConnection().createChannel();
+        try {
+            // queue without consumer, so the message is routed but never answered
+            channel.queueDeclare(queueName, false, true, true, null);
+            channel.queueBind(queueName, PLATFORM_EXCHANGE_NAME, "rpcTimeoutRK");
+
+            CompletableFuture<String> response = rabbitManager.getRpcClient()
+                    .call(PLATFORM_EXCHANGE_NAME, "rpcTimeoutRK", "request", String.class.getCanonicalName(), 200);
+            try {
+                response.get(5, TimeUnit.SECONDS);
+                fail("Call should time out");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof TimeoutException);
+            }
+            assertEquals(1, rabbitManager.getRpcClient().getTimeouts());
+            assertEquals(0, rabbitManager.getRpcClient().getPendingCalls());
+
+            CompletableFuture<String> unroutable = rabbitManager.getRpcClient()
+                    .call(PLATFORM_EXCHANGE_NAME, "unboundRK", "request", String.class.getCanonicalName(), 5000);
+            try {
+                unroutable.get(2, TimeUnit.SECONDS);
+                fail("Unroutable call should fail before its timeout");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IOException);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
     private void sendMessage(String exchange, String routingKey, AMQP.BasicProperties properties, String message) {
         Channel channel = null;
         try {
@@ -0,0 +1,46 @@
+package eu.h2020.symbiote;
+
+import eu.h2020.symbiote.ontology.utils.PropertyNameIndex;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for index of property names used when generating RDF of resources.
+ */
+public class PropertyNameIndexTests {
+
+    private static final String BIM_NS = "http://www.symbiote-h2020.eu/ontology/bim/property#";
+    private static final String QU_NS = "http://purl.oclc.org/NET/ssnx/qu/quantity#";
+
+    @Test
+    public void testNamesIndexedWithPrecedence() {
+        Model bim = ModelFactory.createDefaultModel();
+        bim.createResource(BIM_NS + "temperature").addProperty(RDF.type, RDF.Property);
+        bim.createResource(BIM_NS + "carbonMonoxideConcentration").addProperty(RDF.type, RDF.Property);
+        Model qu = ModelFactory.createDefaultModel();
+        qu.createResource(QU_NS + "temperature").addProperty(RDF.type, RDF.Property);
+        // names used only as objects are indexed as well
+        qu.createResource("http://example.com/other").addProperty(RDFS.seeAlso, qu.createResource(QU_NS + "pH"));
+
+        LinkedHashMap<String, Model> vocabularies = new LinkedHashMap<>();
+        vocabularies.put(BIM_NS, bim);
+        vocabularies.put(QU_NS, qu);
+        PropertyNameIndex index = PropertyNameIndex.build(vocabularies);
+
+        assertEquals("BIM should take precedence", BIM_NS + "temperature", index.find("temperature"));
+        assertEquals(BIM_NS + "carbonMonoxideConcentration", index.find("carbonMonoxideConcentration"));
+        assertEquals(QU_NS + "pH", index.find("pH"));
+        assertNull(index.find("other"));
+        assertNull(index.find("temperature1234566789"));
+        assertEquals(3, index.size());
+        assertEquals(Arrays.asList(BIM_NS, QU_NS), index.getNamespaces());
+    }
+}
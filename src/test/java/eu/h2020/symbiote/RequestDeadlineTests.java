@@ -0,0 +1,98 @@
+package eu.h2020.symbiote;
+
+import com.rabbitmq.client.AMQP;
+import eu.h2020.symbiote.core.internal.RDFFormat;
+import eu.h2020.symbiote.core.internal.ResourceInstanceValidationRequest;
+import eu.h2020.symbiote.messaging.MessageDeadline;
+import eu.h2020.symbiote.model.mim.InformationModel;
+import eu.h2020.symbiote.ontology.SemanticManager;
+import eu.h2020.symbiote.ontology.errors.RequestExpiredException;
+import eu.h2020.symbiote.ontology.utils.RequestDeadline;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for abandoning requests whose callers have already given up.
+ */
+public class RequestDeadlineTests {
+
+    @After
+    public void cleanup() {
+        RequestDeadline.clear();
+    }
+
+    @Test
+    public void testDeadlineFromMessage() {
+        AMQP.BasicProperties withHeader = new AMQP.BasicProperties.Builder()
+                .headers(Collections.singletonMap(MessageDeadline.DEADLINE_HEADER, 12345L))
+                .timestamp(new Date(1000))
+                .build();
+        assertEquals("Header should take precedence", 12345L, MessageDeadline.of(withHeader, 30000));
+
+        AMQP.BasicProperties withTimestamp = new AMQP.BasicProperties.Builder()
+                .timestamp(new Date(1000))
+                .build();
+        assertEquals(31000L + MessageDeadline.TIMESTAMP_MARGIN, MessageDeadline.of(withTimestamp, 30000));
+        assertEquals("Unknown timeout means no deadline", 0L, MessageDeadline.of(withTimestamp, 0));
+
+        long before = System.currentTimeMillis();
+        long fromDelivery = MessageDeadline.of(new AMQP.BasicProperties(), 30000);
+        assertTrue("Deadline should fall back to the delivery time",
+                fromDelivery >= before + 30000 && fromDelivery <= System.currentTimeMillis() + 30000);
+        assertEquals(0L, MessageDeadline.of(new AMQP.BasicProperties(), 0));
+    }
+
+    @Test
+    public void testCheckWithoutDeadline() {
+        RequestDeadline.set(0);
+        RequestDeadline.check(RequestDeadline.STAGE_PARSE);
+        assertFalse(RequestDeadline.isExpired());
+
+        RequestDeadline.set(System.currentTimeMillis() + 60000);
+        RequestDeadline.check(RequestDeadline.STAGE_PARSE);
+        assertFalse(RequestDeadline.isExpired());
+    }
+
+    @Test
+    public void testExpiredResourceValidationAbandoned() {
+        SemanticManager semanticManager = new SemanticManager(null);
+        ResourceInstanceValidationRequest request = new ResourceInstanceValidationRequest();
+        request.setInformationModelId("BIM");
+        request.setRdf("<http://a> <http://b> <http://c> .");
+        request.setRdfFormat(RDFFormat.NTriples);
+
+        long expiredBefore = RequestDeadline.getExpired();
+        Long parseExpiredBefore = RequestDeadline.getExpiredByStage().getOrDefault(RequestDeadline.STAGE_PARSE, 0L);
+        RequestDeadline.set(System.currentTimeMillis() - 1);
+        try {
+            semanticManager.validateResourcesInstance(request);
+            fail("Expired request should be abandoned");
+        } catch (RequestExpiredException e) {
+            assertEquals(RequestDeadline.STAGE_PARSE, e.getStage());
+        }
+        assertEquals(expiredBefore + 1, RequestDeadline.getExpired());
+        assertEquals(parseExpiredBefore + 1, (long) RequestDeadline.getExpiredByStage().get(RequestDeadline.STAGE_PARSE));
+    }
+
+    @Test
+    public void testExpiredPIMValidationNotCached() {
+        SemanticManager semanticManager = new SemanticManager(null);
+        InformationModel request = new InformationModel();
+        request.setRdf("@prefix : <http://www.example.com/pim#> . :a :b :c .");
+        request.setRdfFormat(RDFFormat.Turtle);
+
+        RequestDeadline.set(System.currentTimeMillis() - 1);
+        try {
+            semanticManager.validatePIMMetaModel(request);
+            fail("Expired request should be abandoned");
+        } catch (RequestExpiredException e) {
+            assertEquals(RequestDeadline.STAGE_PARSE, e.getStage());
+        }
+        assertEquals("Abandoned validation must not be cached", 0, semanticManager.getPimValidationCache().size());
+    }
+}
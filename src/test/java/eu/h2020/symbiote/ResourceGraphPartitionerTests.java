@@ -0,0 +1,136 @@
+package eu.h2020.symbiote;
+
+import eu.h2020.symbiote.ontology.validation.ResourceGraphPartitioner;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that closures extracted concurrently are identical to the ones
+ * extracted by a single thread.
+ */
+public class ResourceGraphPartitionerTests {
+
+    private static final String NS = "http://www.example.com/";
+    private static final int RESOURCES = 100;
+    private static final int THREADS = 32;
+
+    private Model model;
+    private List<Resource> resources;
+
+    @Before
+    public void init() {
+        model = ModelFactory.createDefaultModel();
+        resources = new ArrayList<>();
+        Resource sharedLocation = model.createResource(NS + "location")
+                .addProperty(model.createProperty(NS, "name"), "building");
+        for (int i = 0; i < RESOURCES; i++) {
+            Resource resource = model.createResource(NS + "resource" + i)
+                    .addProperty(model.createProperty(NS, "name"), "resource" + i)
+                    .addProperty(model.createProperty(NS, "locatedAt"), sharedLocation)
+                    .addProperty(model.createProperty(NS, "hasService"), model.createResource()
+                            .addProperty(model.createProperty(NS, "url"), "http://service/" + i)
+                            .addProperty(model.createProperty(NS, "parameter"), model.createResource()
+                                    .addLiteral(model.createProperty(NS, "index"), i)));
+            if (i > 0) {
+                // chain resources so that closures overlap
+                resource.addProperty(model.createProperty(NS, "next"), resources.get(i - 1));
+            }
+            resources.add(resource);
+        }
+    }
+
+    @Test
+    public void testConcurrentPartitioning() throws Exception {
+        Map<Resource, Model> expected = ResourceGraphPartitioner.partition(model.getGraph(), resources);
+        assertEquals(RESOURCES, expected.size());
+
+        ResourceGraphPartitioner sharedPartitioner = new ResourceGraphPartitioner(model.getGraph());
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Map<Resource, Model>>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                boolean useSharedPartitioner = i % 2 == 0;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    if (useSharedPartitioner) {
+                        Map<Resource, Model> result = new HashMap<>();
+                        for (Resource resource : resources) {
+                            result.put(resource, sharedPartitioner.getClosure(resource.asNode()));
+                        }
+                        return result;
+                    }
+                    return ResourceGraphPartitioner.partition(model.getGraph(), resources);
+                }));
+            }
+            start.countDown();
+            for (Future<Map<Resource, Model>> result : results) {
+                Map<Resource, Model> actual = result.get(60, TimeUnit.SECONDS);
+                assertEquals(expected.keySet(), actual.keySet());
+                for (Resource resource : resources) {
+                    assertEquals("Closure of " + resource + " differs",
+                            triples(expected.get(resource)), triples(actual.get(resource)));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Set<Triple> triples(Model model) {
+        return model.getGraph().find(Node.ANY, Node.ANY, Node.ANY).toSet();
+    }
+
+    @Test
+    public void testClosureSize() {
+        ResourceGraphPartitioner partitioner = new ResourceGraphPartitioner(model.getGraph());
+        // name, locatedAt, hasService + location name + service url, parameter + parameter index
+        assertEquals(7, partitioner.getClosure(resources.get(0).asNode()).size());
+        assertEquals("Closure of the last resource should contain the whole chain",
+                7 * RESOURCES, partitioner.getClosure(resources.get(RESOURCES - 1).asNode()).size());
+    }
+
+    @Test
+    public void testCyclesAndLongChains() {
+        Model chain = ModelFactory.createDefaultModel();
+        int length = 10000;
+        for (int i = 1; i < length; i++) {
+            chain.createResource(NS + "node" + i).addProperty(chain.createProperty(NS, "next"), chain.createResource(NS + "node" + (i - 1)));
+        }
+        // close the chain into a single cycle
+        chain.createResource(NS + "node0").addProperty(chain.createProperty(NS, "next"), chain.createResource(NS + "node" + (length - 1)));
+        ResourceGraphPartitioner partitioner = new ResourceGraphPartitioner(chain.getGraph());
+        assertEquals(length, partitioner.getClosure(chain.createResource(NS + "node0").asNode()).size());
+        assertEquals(length, partitioner.getClosure(chain.createResource(NS + "node5000").asNode()).size());
+        assertEquals(0, partitioner.getClosure(chain.createResource(NS + "unknown").asNode()).size());
+    }
+
+    @Test
+    public void testClosuresOfAcyclicChainRequestedInAnyOrder() {
+        Model chain = ModelFactory.createDefaultModel();
+        int length = 10000;
+        for (int i = 1; i < length; i++) {
+            chain.createResource(NS + "node" + i).addProperty(chain.createProperty(NS, "next"), chain.createResource(NS + "node" + (i - 1)));
+        }
+        ResourceGraphPartitioner partitioner = new ResourceGraphPartitioner(chain.getGraph());
+        assertEquals(length - 1, partitioner.getClosure(chain.createResource(NS + "node" + (length - 1)).asNode()).size());
+        assertEquals(5000, partitioner.getClosure(chain.createResource(NS + "node5000").asNode()).size());
+        assertEquals(2500, partitioner.getClosure(chain.createResource(NS + "node2500").asNode()).size());
+        Model head = partitioner.getClosure(chain.createResource(NS + "node" + (length - 1)).asNode());
+        assertEquals(length - 1, head.size());
+        // reuses the closure of node5000 requested before
+        Model upper = partitioner.getClosure(chain.createResource(NS + "node7500").asNode());
+        assertEquals(7500, upper.size());
+        assertTrue(triples(head).containsAll(triples(upper)));
+    }
+}
@@ -9,24 +9,34 @@ import eu.h2020.symbiote.core.internal.DescriptionType;
 import eu.h2020.symbiote.core.internal.ResourceInstanceValidationResult;
 import eu.h2020.symbiote.model.cim.*;
 import eu.h2020.symbiote.ontology.SemanticManager;
+import eu.h2020.symbiote.ontology.errors.PropertyNotFoundException;
+import eu.h2020.symbiote.ontology.utils.GenerationResult;
 import eu.h2020.symbiote.ontology.utils.RDFGenerator;
 import eu.h2020.symbiote.utils.LocationInfo;
 import eu.h2020.symbiote.utils.LocationManager;
 import eu.h2020.symbiote.utils.LocationRepository;
+import eu.h2020.symbiote.utils.LocationResolver;
+import org.apache.jena.rdf.model.ModelFactory;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import static eu.h2020.symbiote.TestSetupConfig.*;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -252,6 +262,84 @@ public class SemanticManagerTests {
         resourceValidateAndTranslate(actuator,1);
     }
 
+    @Test
+    public void testParallelTranslationMatchesSequential() throws Exception {
+        SemanticManager parallelManager = new SemanticManager(rdfGenerator);
+        ReflectionTestUtils.setField(parallelManager, "translationParallelism", 4);
+        parallelManager.init();
+        try {
+            ResourceInstanceValidationResult sequentialResult = semanticManager.validateAndCreateBIMResourceToRDF(createSensors(20, false), PLATFORM_ID, false);
+            ResourceInstanceValidationResult parallelResult = parallelManager.validateAndCreateBIMResourceToRDF(createSensors(20, false), PLATFORM_ID, false);
+            assertTrue(parallelResult.isSuccess());
+            assertEquals(sequentialResult.getObjectDescription().keySet(), parallelResult.getObjectDescription().keySet());
+            for (String pairingId : sequentialResult.getObjectDescription().keySet()) {
+                assertEquals(sequentialResult.getObjectDescription().get(pairingId).getId(),
+                        parallelResult.getObjectDescription().get(pairingId).getId());
+            }
+
+            sequentialResult = semanticManager.validateAndCreateBIMResourceToRDF(createSensors(20, true), PLATFORM_ID, false);
+            parallelResult = parallelManager.validateAndCreateBIMResourceToRDF(createSensors(20, true), PLATFORM_ID, false);
+            assertFalse(parallelResult.isSuccess());
+            assertEquals("Errors should be reported in the same order", sequentialResult.getMessage(), parallelResult.getMessage());
+        } finally {
+            parallelManager.shutdown();
+        }
+    }
+
+    @Test
+    public void testTranslationStopsAtUnknownProperty() throws Exception {
+        RDFGenerator failingGenerator = mock(RDFGenerator.class);
+        when(failingGenerator.generateRDFForResource(any(Resource.class), any(String.class), anyBoolean(), any(LocationResolver.class)))
+                .thenAnswer(invocation -> {
+                    Resource resource = (Resource) invocation.getArguments()[0];
+                    if (resource.getName().equals(STATIONARY1_LABEL + 3)) {
+                        throw new PropertyNotFoundException("unknownProperty", "BIM");
+                    }
+                    GenerationResult generationResult = new GenerationResult();
+                    generationResult.setModel(ModelFactory.createDefaultModel());
+                    generationResult.setResources(new HashMap<>());
+                    return generationResult;
+                });
+        SemanticManager sequentialManager = new SemanticManager(failingGenerator);
+        try {
+            sequentialManager.validateAndCreateBIMResourceToRDF(createSensors(20, false), PLATFORM_ID, false);
+            fail("Unknown property should be reported");
+        } catch (PropertyNotFoundException e) {
+            assertEquals("unknownProperty", e.getPropertyName());
+        }
+        verify(failingGenerator, times(4)).generateRDFForResource(any(Resource.class), any(String.class), anyBoolean(), any(LocationResolver.class));
+
+        SemanticManager parallelManager = new SemanticManager(failingGenerator);
+        ReflectionTestUtils.setField(parallelManager, "translationParallelism", 4);
+        parallelManager.init();
+        try {
+            parallelManager.validateAndCreateBIMResourceToRDF(createSensors(20, false), PLATFORM_ID, false);
+            fail("Unknown property should be reported");
+        } catch (PropertyNotFoundException e) {
+            assertEquals("unknownProperty", e.getPropertyName());
+        } finally {
+            parallelManager.shutdown();
+        }
+    }
+
+    private Map<String, Resource> createSensors(int count, boolean withInvalid) {
+        Map<String, Resource> resources = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            StationarySensor stationarySensor = new StationarySensor();
+            stationarySensor.setId(STATIONARY1_ID + i);
+            stationarySensor.setName(STATIONARY1_LABEL + i);
+            stationarySensor.setDescription(STATIONARY1_COMMENTS);
+            stationarySensor.setLocatedAt(STATIONARY1_LOCATION);
+            stationarySensor.setFeatureOfInterest(STATIONARY1_FOI);
+            stationarySensor.setObservesProperty(STATIONARY1_PROPERTIES);
+            if (!withInvalid || i % 7 != 3) {
+                stationarySensor.setInterworkingServiceURL(STATIONARY1_URL);
+            }
+            resources.put(String.valueOf(i), stationarySensor);
+        }
+        return resources;
+    }
+
 //    @Test
 //    public void testMobileDeviceValdiateAndCreate() {
 //        MobileDevice mobileDevice = new MobileDevice();
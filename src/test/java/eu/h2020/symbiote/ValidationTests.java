@@ -9,18 +9,25 @@ import eu.h2020.symbiote.ontology.SemanticManager;
 import eu.h2020.symbiote.ontology.errors.PropertyNotFoundException;
 import eu.h2020.symbiote.ontology.utils.RDFGenerator;
 import eu.h2020.symbiote.ontology.utils.SymbioteModelsUtil;
+import eu.h2020.symbiote.ontology.validation.ResourceGraphPartitioner;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.Arrays;
 import java.util.Formatter;
+import java.util.Map;
 
 import eu.h2020.symbiote.utils.LocationManager;
 import org.apache.commons.io.IOUtils;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.junit.Assert.*;
 import static eu.h2020.symbiote.TestSetupConfig.*;
@@ -120,6 +127,74 @@ public class ValidationTests {
         }
     }
 
+    @Test
+    public void testPIMValidationResultCached() throws IOException {
+        String rdf = ModelHelper.writeAll(ModelHelper.readModel(BIM.getURI(), false, false), RDFFormat.Turtle);
+        InformationModel first = new InformationModel();
+        first.setRdfFormat(RDFFormat.Turtle);
+        first.setRdf(rdf);
+        first.setUri("http://www.example.com/first");
+        first.setOwner("owner1");
+        InformationModel second = new InformationModel();
+        second.setRdfFormat(RDFFormat.Turtle);
+        second.setRdf(rdf);
+        second.setUri("http://www.example.com/second");
+        second.setOwner("owner2");
+
+        InformationModelValidationResult firstResult = semanticManager.validatePIMMetaModel(first);
+        InformationModelValidationResult secondResult = semanticManager.validatePIMMetaModel(second);
+
+        assertEquals("Second validation should be answered from cache", 1, semanticManager.getPimValidationCache().getHitCount());
+        assertTrue(secondResult.isSuccess());
+        assertEquals(firstResult.getMessage(), secondResult.getMessage());
+        assertEquals(firstResult.getModelValidated(), secondResult.getModelValidated());
+        assertEquals("http://www.example.com/second", secondResult.getObjectDescription().getUri());
+        assertEquals("owner2", secondResult.getObjectDescription().getOwner());
+        assertNotEquals("Id should be generated for every request",
+                firstResult.getObjectDescription().getId(), secondResult.getObjectDescription().getId());
+    }
+
+    @Test
+    public void testParsedPIMReusedForRegistration() throws IOException {
+        InformationModel request = new InformationModel();
+        request.setRdfFormat(RDFFormat.Turtle);
+        request.setRdf(ModelHelper.writeAll(ModelHelper.readModel(BIM.getURI(), false, false), RDFFormat.Turtle));
+        InformationModelValidationResult validationResult = semanticManager.validatePIMMetaModel(request);
+        assertTrue(validationResult.isSuccess());
+        assertEquals(1, semanticManager.getParsedModelCache().size());
+
+        InformationModel pim = validationResult.getObjectDescription();
+        try {
+            semanticManager.registerNewPIMMetaModel(pim);
+            assertEquals("Parsed model should be reused", 1, semanticManager.getParsedModelCache().getHitCount());
+            assertEquals("Parsed model should be handed over only once", 0, semanticManager.getParsedModelCache().size());
+            assertNotNull(SymbioteModelsUtil.findCardinalityConstraintsById(pim.getId()));
+        } finally {
+            semanticManager.deletePIMMetaModel(pim);
+        }
+    }
+
+    @Test
+    public void testParsedPIMReusedAfterCachedValidation() throws IOException {
+        InformationModel request = new InformationModel();
+        request.setRdfFormat(RDFFormat.Turtle);
+        request.setRdf(ModelHelper.writeAll(ModelHelper.readModel(BIM.getURI(), false, false), RDFFormat.Turtle));
+        semanticManager.validatePIMMetaModel(request);
+        semanticManager.getParsedModelCache().invalidateAll();
+        InformationModelValidationResult validationResult = semanticManager.validatePIMMetaModel(request);
+        assertEquals(1, semanticManager.getPimValidationCache().getHitCount());
+        assertEquals("Parsed model should be kept with the cached outcome", 1, semanticManager.getParsedModelCache().size());
+
+        InformationModel pim = validationResult.getObjectDescription();
+        try {
+            semanticManager.registerNewPIMMetaModel(pim);
+            assertEquals("Parsed model should be reused", 1, semanticManager.getParsedModelCache().getHitCount());
+            assertNotNull(SymbioteModelsUtil.findCardinalityConstraintsById(pim.getId()));
+        } finally {
+            semanticManager.deletePIMMetaModel(pim);
+        }
+    }
+
     @Test
     public void bimResourceValidationTest() {
         try {
@@ -145,6 +220,34 @@ public class ValidationTests {
         }
     }
 
+    @Test
+    public void bimResourceParallelValidationTest() {
+        try {
+            ResourceInstanceValidationRequest request = new ResourceInstanceValidationRequest();
+            request.setInformationModelId("BIM");
+            request.setRdfFormat(RDFFormat.Turtle);
+            request.setRdf(IOUtils.toString(this.getClass().getResource("/bim_resource.ttl")));
+            ResourceInstanceValidationResult sequentialResult = semanticManager.validateResourcesInstance(request);
+
+            SemanticManager parallelManager = new SemanticManager(rdfGenerator);
+            ReflectionTestUtils.setField(parallelManager, "validationParallelism", 4);
+            parallelManager.init();
+            try {
+                ResourceInstanceValidationResult parallelResult = parallelManager.validateResourcesInstance(request);
+                assertEquals(sequentialResult.isSuccess(), parallelResult.isSuccess());
+                assertEquals(sequentialResult.getMessage(), parallelResult.getMessage());
+                if (sequentialResult.getObjectDescription() != null) {
+                    assertEquals(sequentialResult.getObjectDescription().keySet(), parallelResult.getObjectDescription().keySet());
+                }
+            } finally {
+                parallelManager.shutdown();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            fail("Error occurred when loading model from file");
+        }
+    }
+
     public void loadIosb() throws IOException {
         InformationModel im = new InformationModel();
         im.setName("iosb");
@@ -185,5 +288,25 @@ public class ValidationTests {
         }
     }
 
+    @Test
+    public void partitionResourcesTest() {
+        Model model = ModelFactory.createDefaultModel();
+        model.read(new StringReader(""
+                + "@prefix : <http://www.example.com/> .\n"
+                + ":sensor :name \"sensor\" ; :locatedAt [ :name \"room\" ; :in :building ] ; :hostedBy :device .\n"
+                + ":device :name \"device\" ; :hosts :sensor .\n"
+                + ":building :name \"building\" .\n"
+                + ":other :name \"other\" .\n"), null, "TURTLE");
+        Resource sensor = model.getResource("http://www.example.com/sensor");
+        Resource other = model.getResource("http://www.example.com/other");
+
+        Map<Resource, Model> result = ResourceGraphPartitioner.partition(model.getGraph(), Arrays.asList(sensor, other));
 
+        assertEquals(2, result.size());
+        Model sensorModel = result.get(sensor);
+        assertEquals("Should contain triples of sensor, location, building and device", 8, sensorModel.size());
+        assertEquals("Should contain only triples of other", 1, result.get(other).size());
+        Resource key = result.keySet().stream().filter(x -> x.equals(sensor)).findFirst().get();
+        assertSame("Key should belong to the resource model", sensorModel, key.getModel());
+    }
 }